@@ -1,5 +1,6 @@
 package org.jboss.pnc.repositorydriver;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -11,7 +12,11 @@ import java.util.List;
 @Builder
 @Getter
 @ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ArchivePayload {
     private String buildConfigId;
     private List<ArchiveDownloadEntry> downloads;
+    /** Index of the page of the downloads, starting at 0. */
+    private Integer page;
+    private Integer pages;
 }
@@ -0,0 +1,48 @@
+package org.jboss.pnc.repositorydriver;
+
+import lombok.Getter;
+
+/**
+ * Progress of an accepted archival.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@Getter
+public class ArchiveStatus {
+
+    public enum State {
+        IN_PROGRESS, SUCCESS, FAILED
+    }
+
+    private final String buildContentId;
+
+    private volatile State state = State.IN_PROGRESS;
+
+    /** Pages of the downloads to submit, 0 until the tracking report is processed. */
+    private volatile int pages;
+
+    private volatile int submittedPages;
+
+    private volatile String message;
+
+    ArchiveStatus(String buildContentId) {
+        this.buildContentId = buildContentId;
+    }
+
+    void started(int pages) {
+        this.pages = pages;
+    }
+
+    synchronized void pageSubmitted() {
+        submittedPages++;
+    }
+
+    void succeeded() {
+        state = State.SUCCESS;
+    }
+
+    void failed(String message) {
+        this.message = message;
+        state = State.FAILED;
+    }
+}
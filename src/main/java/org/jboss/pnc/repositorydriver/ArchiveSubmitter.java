@@ -0,0 +1,208 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.RetryPolicy;
+import net.jodah.failsafe.event.ExecutionAttemptedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.jboss.pnc.api.constants.HttpHeaders.AUTHORIZATION_STRING;
+import static org.jboss.pnc.api.constants.HttpHeaders.CONTENT_TYPE_STRING;
+
+/**
+ * Submits the downloads to archive to the archive service in pages of {@link Configuration#getArchivePageSize()}
+ * entries. At most {@link Configuration#getArchiveParallelism()} pages are submitted at the same time, each of them
+ * retried with a backoff for up to {@link Configuration#getArchiveRetryDuration()}. The status of the archivals is
+ * kept for {@link Configuration#getArchiveStatusRetention()}.
+ * When the downloads fit into a single page, which they always do with the page size 0, they are submitted without
+ * the page index and count, as a single request.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class ArchiveSubmitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveSubmitter.class);
+
+    private static final int MAX_STATUSES = 10000;
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    @Pool(Pool.ARCHIVE_SUBMISSION)
+    HttpClient httpClient;
+
+    @Inject
+    ObjectMapper jsonMapper;
+
+    @Inject
+    ServiceAccountTokens serviceTokens;
+
+    @Inject
+    @Pool(Pool.ARCHIVE_SUBMISSION)
+    ExecutorService submissionExecutor;
+
+    private Cache<String, ArchiveStatus> statuses;
+
+    @PostConstruct
+    void init() {
+        statuses = Caffeine.newBuilder()
+                .maximumSize(MAX_STATUSES)
+                .expireAfterWrite(configuration.getArchiveStatusRetention())
+                .build();
+    }
+
+    /**
+     * Registers a new archival of the build, it replaces the status of the previous one.
+     */
+    public ArchiveStatus accepted(String buildContentId) {
+        ArchiveStatus status = new ArchiveStatus(buildContentId);
+        statuses.put(buildContentId, status);
+        return status;
+    }
+
+    /**
+     * @return the status of the last archival of the build, null if unknown
+     */
+    public ArchiveStatus getStatus(String buildContentId) {
+        return statuses.getIfPresent(buildContentId);
+    }
+
+    /**
+     * Submits the pages and waits for all of them, once a page fails the pages that haven't started yet are skipped.
+     */
+    public void submit(String buildConfigId, List<ArchiveDownloadEntry> downloads, ArchiveStatus status) {
+        int pageSize = configuration.getArchivePageSize();
+        boolean paged = pageSize > 0 && downloads.size() > pageSize;
+        // an empty archival is still submitted, as a single empty page
+        int pages = paged ? (downloads.size() + pageSize - 1) / pageSize : 1;
+        status.started(pages);
+        logger.info("Submitting {} downloads to archive in {} pages.", downloads.size(), pages);
+
+        Semaphore permits = new Semaphore(configuration.getArchiveParallelism());
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> submissions = new ArrayList<>();
+        for (int page = 0; page < pages && !failed.get(); page++) {
+            List<ArchiveDownloadEntry> entries = paged
+                    ? downloads.subList(page * pageSize, Math.min((page + 1) * pageSize, downloads.size()))
+                    : downloads;
+            ArchivePayload payload = ArchivePayload.builder()
+                    .buildConfigId(buildConfigId)
+                    .downloads(entries)
+                    .page(paged ? page : null)
+                    .pages(paged ? pages : null)
+                    .build();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                break;
+            }
+            submissions.add(submitPage(payload).whenComplete((nothing, e) -> {
+                permits.release();
+                if (e == null) {
+                    status.pageSubmitted();
+                } else {
+                    failed.set(true);
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        for (CompletableFuture<Void> submission : submissions) {
+            try {
+                submission.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            logger.error("Archival request failed.", failure);
+            status.failed("Archival request failed: " + failure.getMessage());
+        } else if (failed.get()) {
+            status.failed("Archival was interrupted.");
+        } else {
+            logger.info("Archival request successful, {} pages submitted.", pages);
+            status.succeeded();
+        }
+    }
+
+    private CompletableFuture<Void> submitPage(ArchivePayload payload) {
+        RequestBody body;
+        try {
+            body = RequestBody.json(jsonMapper, payload, configuration.isHttpClientGzipRequestBody());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        RetryPolicy<HttpResponse<String>> retryPolicy = new RetryPolicy<HttpResponse<String>>()
+                .withMaxDuration(configuration.getArchiveRetryDuration())
+                .withMaxRetries(Integer.MAX_VALUE) // retry until maxDuration is reached
+                .withBackoff(
+                        configuration.getArchiveRetryDelay().toMillis(),
+                        configuration.getArchiveRetryMaxDelay().toMillis(),
+                        ChronoUnit.MILLIS)
+                .onRetry(ctx -> onRetry(ctx, payload.getPage()));
+        return Failsafe.with(retryPolicy)
+                .with(submissionExecutor)
+                // the request is built on each attempt, so it gets a fresh token
+                .getStageAsync(
+                        () -> httpClient.sendAsync(toHttpRequest(body), HttpResponse.BodyHandlers.ofString())
+                                .thenApply(ArchiveSubmitter::validateResponse))
+                .thenApply(response -> null);
+    }
+
+    private HttpRequest toHttpRequest(RequestBody body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(configuration.getArchiveEndpoint()))
+                .POST(body.publisher())
+                .timeout(Duration.ofSeconds(configuration.getHttpClientRequestTimeout()))
+                .header(AUTHORIZATION_STRING, "Bearer " + serviceTokens.getAccessToken())
+                .header(CONTENT_TYPE_STRING, "application/json");
+        return body.encodingHeader(builder).build();
+    }
+
+    private static HttpResponse<String> validateResponse(HttpResponse<String> response) {
+        if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            return response;
+        }
+        throw new FailedResponseException("Response status code: " + response.statusCode());
+    }
+
+    /**
+     * @param page null if the downloads are not paged
+     */
+    private static void onRetry(ExecutionAttemptedEvent<HttpResponse<String>> ctx, Integer page) {
+        logger.warn(
+                "Archive page #{} retry attempt #{}, last error: [{}], last status: [{}].",
+                page == null ? 0 : page,
+                ctx.getAttemptCount(),
+                ctx.getLastFailure() == null ? "" : ctx.getLastFailure().getMessage(),
+                ctx.getLastResult() == null ? null : ctx.getLastResult().statusCode());
+    }
+}
@@ -0,0 +1,498 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.jboss.pnc.api.repositorydriver.dto.TargetRepository;
+
+/**
+ * Columnar list of the collected artifacts. Instead of a {@link RepositoryArtifact} with its own strings per
+ * artifact, the values are kept in columns: the directories of the deploy paths in a tree of interned path segments,
+ * the origin urls as an interned prefix of the deploy path, the checksums as raw bytes and the target repositories as
+ * indexes. The DTOs are created on each access, only when the artifacts leave the driver.
+ *
+ * The values that don't fit the compact columns (e.g. a checksum that is not a lower-case hex string) are kept as they
+ * are, so every artifact reads back equal to the added one. The batch is not thread-safe.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class ArtifactBatch extends AbstractList<RepositoryArtifact> implements RandomAccess {
+
+    private static final int NULL = -1;
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final int MD5_LENGTH = 16;
+
+    private static final int SHA1_LENGTH = 20;
+
+    private static final int SHA256_LENGTH = 32;
+
+    private static final int MD5 = 0;
+
+    private static final int SHA1 = 1;
+
+    private static final int SHA256 = 2;
+
+    private static final int FILENAME = 3;
+
+    private static final int ORIGIN_URL = 4;
+
+    private static final int FIELDS = 5;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Directories directories = new Directories();
+
+    private Dictionary originPrefixes = new Dictionary();
+
+    private Map<TargetRepository, Integer> repositoryIndexes = new IdentityHashMap<>();
+
+    private List<TargetRepository> targetRepositories = new ArrayList<>();
+
+    /** Values that don't fit the columns, keyed by index * {@link #FIELDS} + field. */
+    private Map<Long, String> irregular = new HashMap<>();
+
+    private int size;
+
+    private String[] identifiers;
+
+    private String[] purls;
+
+    private int[] deployDirectories;
+
+    private String[] filenames;
+
+    private int[] origins;
+
+    private byte[] md5s;
+
+    private byte[] sha1s;
+
+    private byte[] sha256s;
+
+    private long[] sizes;
+
+    private long[] importSeconds;
+
+    private int[] importNanos;
+
+    private byte[] buildCategories;
+
+    private int[] repositories;
+
+    public ArtifactBatch() {
+        this(16);
+    }
+
+    public ArtifactBatch(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    @Override
+    public RepositoryArtifact get(int index) {
+        checkIndex(index);
+        String filename = irregularOr(index, FILENAME, filenames[index]);
+        long seconds = importSeconds[index];
+        byte category = buildCategories[index];
+        int repository = repositories[index];
+        return RepositoryArtifact.builder()
+                .identifier(identifiers[index])
+                .purl(purls[index])
+                .md5(checksum(index, MD5, md5s, MD5_LENGTH))
+                .sha1(checksum(index, SHA1, sha1s, SHA1_LENGTH))
+                .sha256(checksum(index, SHA256, sha256s, SHA256_LENGTH))
+                .size(sizes[index] == NULL_LONG ? null : sizes[index])
+                .deployPath(join(deployDirectories[index], filenames[index]))
+                .filename(filename)
+                .originUrl(irregularOr(index, ORIGIN_URL, originUrl(index)))
+                .importDate(seconds == NULL_LONG ? null : Instant.ofEpochSecond(seconds, importNanos[index]))
+                .buildCategory(category == NULL ? null : BuildCategory.values()[category])
+                .targetRepository(repository == NULL ? null : targetRepositories.get(repository))
+                .build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(RepositoryArtifact artifact) {
+        if (size == identifiers.length) {
+            allocate(size + (size >> 1) + 1);
+        }
+        size++;
+        modCount++;
+        write(size - 1, artifact);
+        return true;
+    }
+
+    @Override
+    public RepositoryArtifact set(int index, RepositoryArtifact artifact) {
+        RepositoryArtifact previous = get(index);
+        write(index, artifact);
+        return previous;
+    }
+
+    /**
+     * Sorts by identifier without creating the DTOs.
+     */
+    @Override
+    public void sort(Comparator<? super RepositoryArtifact> order) {
+        if (order == TrackingReportProcessor.IDENTIFIER_ORDER) {
+            Integer[] permutation = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                permutation[i] = i;
+            }
+            // stable, as the sort of the DTOs
+            Arrays.sort(permutation, Comparator.comparing(i -> identifiers[i]));
+            permute(permutation);
+            modCount++;
+        } else {
+            super.sort(order);
+        }
+    }
+
+    @Override
+    public void clear() {
+        directories = new Directories();
+        originPrefixes = new Dictionary();
+        repositoryIndexes = new IdentityHashMap<>();
+        targetRepositories = new ArrayList<>();
+        irregular = new HashMap<>();
+        allocate(16);
+        Arrays.fill(identifiers, null);
+        Arrays.fill(purls, null);
+        Arrays.fill(filenames, null);
+        size = 0;
+        modCount++;
+    }
+
+    private void write(int index, RepositoryArtifact artifact) {
+        for (int field = 0; field < FIELDS; field++) {
+            irregular.remove(key(index, field));
+        }
+        identifiers[index] = artifact.getIdentifier();
+        purls[index] = artifact.getPurl();
+        writeChecksum(index, MD5, artifact.getMd5(), md5s, MD5_LENGTH);
+        writeChecksum(index, SHA1, artifact.getSha1(), sha1s, SHA1_LENGTH);
+        writeChecksum(index, SHA256, artifact.getSha256(), sha256s, SHA256_LENGTH);
+        sizes[index] = artifact.getSize() == null ? NULL_LONG : artifact.getSize();
+
+        String deployPath = artifact.getDeployPath();
+        String name = null;
+        if (deployPath == null) {
+            deployDirectories[index] = NULL;
+        } else {
+            int slash = deployPath.lastIndexOf('/') + 1;
+            deployDirectories[index] = directories.add(deployPath.substring(0, slash));
+            name = deployPath.substring(slash);
+        }
+        filenames[index] = name;
+        if (name == null || !name.equals(artifact.getFilename())) {
+            // the name part of the deploy path and the filename differ, both are kept
+            irregular.put(key(index, FILENAME), artifact.getFilename());
+        }
+
+        String originUrl = artifact.getOriginUrl();
+        origins[index] = NULL;
+        if (originUrl != null && deployPath != null && originUrl.endsWith(deployPath)) {
+            // the url of the remote repository followed by the deploy path
+            origins[index] = originPrefixes.add(originUrl.substring(0, originUrl.length() - deployPath.length()));
+        } else if (originUrl != null) {
+            irregular.put(key(index, ORIGIN_URL), originUrl);
+        }
+
+        Instant importDate = artifact.getImportDate();
+        importSeconds[index] = importDate == null ? NULL_LONG : importDate.getEpochSecond();
+        importNanos[index] = importDate == null ? 0 : importDate.getNano();
+        BuildCategory category = artifact.getBuildCategory();
+        buildCategories[index] = category == null ? NULL : (byte) category.ordinal();
+        repositories[index] = repositoryIndex(artifact.getTargetRepository());
+    }
+
+    private void writeChecksum(int index, int field, String checksum, byte[] column, int length) {
+        if (checksum == null || checksum.length() != length * 2 || !parseHex(checksum, column, index * length)) {
+            irregular.put(key(index, field), checksum);
+        }
+    }
+
+    private String checksum(int index, int field, byte[] column, int length) {
+        Long key = key(index, field);
+        if (irregular.containsKey(key)) {
+            return irregular.get(key);
+        }
+        char[] hex = new char[length * 2];
+        int offset = index * length;
+        for (int i = 0; i < length; i++) {
+            int b = column[offset + i] & 0xff;
+            hex[i * 2] = HEX[b >>> 4];
+            hex[i * 2 + 1] = HEX[b & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    private String irregularOr(int index, int field, String regular) {
+        Long key = key(index, field);
+        return irregular.containsKey(key) ? irregular.get(key) : regular;
+    }
+
+    private String join(int directory, String name) {
+        if (directory == NULL) {
+            return null;
+        }
+        return directories.get(directory) + name;
+    }
+
+    private String originUrl(int index) {
+        if (origins[index] == NULL) {
+            return null;
+        }
+        return originPrefixes.get(origins[index]) + join(deployDirectories[index], filenames[index]);
+    }
+
+    private int repositoryIndex(TargetRepository targetRepository) {
+        if (targetRepository == null) {
+            return NULL;
+        }
+        // the target repositories are shared by the artifacts of a build
+        return repositoryIndexes.computeIfAbsent(targetRepository, repository -> {
+            targetRepositories.add(repository);
+            return targetRepositories.size() - 1;
+        });
+    }
+
+    private void permute(Integer[] permutation) {
+        String[] sortedIdentifiers = new String[identifiers.length];
+        String[] sortedPurls = new String[purls.length];
+        int[] sortedDeployDirectories = new int[deployDirectories.length];
+        String[] sortedFilenames = new String[filenames.length];
+        int[] sortedOrigins = new int[origins.length];
+        byte[] sortedMd5s = new byte[md5s.length];
+        byte[] sortedSha1s = new byte[sha1s.length];
+        byte[] sortedSha256s = new byte[sha256s.length];
+        long[] sortedSizes = new long[sizes.length];
+        long[] sortedImportSeconds = new long[importSeconds.length];
+        int[] sortedImportNanos = new int[importNanos.length];
+        byte[] sortedBuildCategories = new byte[buildCategories.length];
+        int[] sortedRepositories = new int[repositories.length];
+        Map<Long, String> sortedIrregular = new HashMap<>();
+        for (int to = 0; to < size; to++) {
+            int from = permutation[to];
+            sortedIdentifiers[to] = identifiers[from];
+            sortedPurls[to] = purls[from];
+            sortedDeployDirectories[to] = deployDirectories[from];
+            sortedFilenames[to] = filenames[from];
+            sortedOrigins[to] = origins[from];
+            System.arraycopy(md5s, from * MD5_LENGTH, sortedMd5s, to * MD5_LENGTH, MD5_LENGTH);
+            System.arraycopy(sha1s, from * SHA1_LENGTH, sortedSha1s, to * SHA1_LENGTH, SHA1_LENGTH);
+            System.arraycopy(sha256s, from * SHA256_LENGTH, sortedSha256s, to * SHA256_LENGTH, SHA256_LENGTH);
+            sortedSizes[to] = sizes[from];
+            sortedImportSeconds[to] = importSeconds[from];
+            sortedImportNanos[to] = importNanos[from];
+            sortedBuildCategories[to] = buildCategories[from];
+            sortedRepositories[to] = repositories[from];
+            for (int field = 0; field < FIELDS; field++) {
+                Long key = key(from, field);
+                if (irregular.containsKey(key)) {
+                    sortedIrregular.put(key(to, field), irregular.get(key));
+                }
+            }
+        }
+        identifiers = sortedIdentifiers;
+        purls = sortedPurls;
+        deployDirectories = sortedDeployDirectories;
+        filenames = sortedFilenames;
+        origins = sortedOrigins;
+        md5s = sortedMd5s;
+        sha1s = sortedSha1s;
+        sha256s = sortedSha256s;
+        sizes = sortedSizes;
+        importSeconds = sortedImportSeconds;
+        importNanos = sortedImportNanos;
+        buildCategories = sortedBuildCategories;
+        repositories = sortedRepositories;
+        irregular = sortedIrregular;
+    }
+
+    private void allocate(int capacity) {
+        identifiers = identifiers == null ? new String[capacity] : Arrays.copyOf(identifiers, capacity);
+        purls = purls == null ? new String[capacity] : Arrays.copyOf(purls, capacity);
+        deployDirectories = deployDirectories == null ? new int[capacity]
+                : Arrays.copyOf(deployDirectories, capacity);
+        filenames = filenames == null ? new String[capacity] : Arrays.copyOf(filenames, capacity);
+        origins = origins == null ? new int[capacity] : Arrays.copyOf(origins, capacity);
+        md5s = md5s == null ? new byte[capacity * MD5_LENGTH] : Arrays.copyOf(md5s, capacity * MD5_LENGTH);
+        sha1s = sha1s == null ? new byte[capacity * SHA1_LENGTH] : Arrays.copyOf(sha1s, capacity * SHA1_LENGTH);
+        sha256s = sha256s == null ? new byte[capacity * SHA256_LENGTH]
+                : Arrays.copyOf(sha256s, capacity * SHA256_LENGTH);
+        sizes = sizes == null ? new long[capacity] : Arrays.copyOf(sizes, capacity);
+        importSeconds = importSeconds == null ? new long[capacity] : Arrays.copyOf(importSeconds, capacity);
+        importNanos = importNanos == null ? new int[capacity] : Arrays.copyOf(importNanos, capacity);
+        buildCategories = buildCategories == null ? new byte[capacity] : Arrays.copyOf(buildCategories, capacity);
+        repositories = repositories == null ? new int[capacity] : Arrays.copyOf(repositories, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static Long key(int index, int field) {
+        return (long) index * FIELDS + field;
+    }
+
+    /**
+     * @return false if the value is not a lower-case hex string
+     */
+    private static boolean parseHex(String hex, byte[] column, int offset) {
+        for (int i = 0; i < hex.length(); i += 2) {
+            int high = hexDigit(hex.charAt(i));
+            int low = hexDigit(hex.charAt(i + 1));
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            column[offset + i / 2] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return NULL;
+    }
+
+    /**
+     * Interned strings of the batch, each stored once.
+     */
+    private static class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        private int add(String value) {
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private String get(int id) {
+            return values.get(id);
+        }
+    }
+
+    /**
+     * Directories as a tree, each node is the parent directory and an interned segment. The nodes are looked up by an
+     * open addressing table of the (parent, segment) keys, so a directory costs a few ints instead of its own string.
+     */
+    private static class Directories {
+
+        private static final int ROOT = 0;
+
+        private final Dictionary segments = new Dictionary();
+
+        private int[] parents = new int[16];
+
+        private int[] names = new int[16];
+
+        private int count = 1;
+
+        private long[] keys = new long[32];
+
+        /** Node + 1 for each key, 0 for an empty slot. */
+        private int[] slots = new int[32];
+
+        private Directories() {
+            parents[ROOT] = NULL;
+            names[ROOT] = NULL;
+        }
+
+        /**
+         * @param directory empty or ending with a slash
+         */
+        private int add(String directory) {
+            int node = ROOT;
+            int start = 0;
+            for (int slash = directory.indexOf('/'); slash >= 0; slash = directory.indexOf('/', start)) {
+                node = child(node, segments.add(directory.substring(start, slash)));
+                start = slash + 1;
+            }
+            return node;
+        }
+
+        private String get(int node) {
+            StringBuilder directory = new StringBuilder();
+            append(directory, node);
+            return directory.toString();
+        }
+
+        private void append(StringBuilder directory, int node) {
+            if (node != ROOT) {
+                append(directory, parents[node]);
+                directory.append(segments.get(names[node])).append('/');
+            }
+        }
+
+        private int child(int parent, int name) {
+            long key = ((long) parent << 32) | (name & 0xffffffffL);
+            int mask = slots.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (slots[slot] != 0) {
+                if (keys[slot] == key) {
+                    return slots[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (count == parents.length) {
+                parents = Arrays.copyOf(parents, count * 2);
+                names = Arrays.copyOf(names, count * 2);
+            }
+            int node = count++;
+            parents[node] = parent;
+            names[node] = name;
+            keys[slot] = key;
+            slots[slot] = node + 1;
+            if (count * 2 > slots.length) {
+                rehash();
+            }
+            return node;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new long[oldKeys.length * 2];
+            slots = new int[oldSlots.length * 2];
+            int mask = slots.length - 1;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != 0) {
+                    int slot = Long.hashCode(oldKeys[i] * 0x9E3779B97F4A7C15L) & mask;
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    slots[slot] = oldSlots[i];
+                }
+            }
+        }
+    }
+}
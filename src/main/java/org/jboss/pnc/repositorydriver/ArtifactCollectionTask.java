@@ -0,0 +1,156 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.slf4j.MDC;
+
+/**
+ * Collects the artifacts of a range of tracking report entries in a fork-join pool. The range is split until it is not
+ * larger than the chunk size, each chunk is collected in the entries order and sorted (stable), the sorted runs are
+ * merged preferring the left run on equal keys. The result is the same as a sequential collection of all the entries
+ * followed by a stable sort. When there is no order, the chunks are concatenated in the entries order.
+ *
+ * When collection of an entry fails, the failure of the leftmost failing chunk is returned, which is the same failure
+ * the sequential collection would end with.
+ *
+ * The chunks are collected with the MDC of the thread that created the task.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+class ArtifactCollectionTask extends RecursiveTask<ArtifactCollectionTask.Result> {
+
+    @FunctionalInterface
+    interface EntryCollector {
+        void collect(TrackedContentEntryDTO entry, List<RepositoryArtifact> artifacts) throws RepositoryDriverException;
+    }
+
+    private final TrackedContentEntryDTO[] entries;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+    private final EntryCollector entryCollector;
+    private final Comparator<RepositoryArtifact> order;
+    private final Map<String, String> mdc;
+
+    /**
+     * @param order the order of the result, null to keep the entries order
+     */
+    ArtifactCollectionTask(
+            TrackedContentEntryDTO[] entries,
+            int from,
+            int to,
+            int chunkSize,
+            EntryCollector entryCollector,
+            Comparator<RepositoryArtifact> order) {
+        this(entries, from, to, chunkSize, entryCollector, order, MDC.getCopyOfContextMap());
+    }
+
+    private ArtifactCollectionTask(
+            TrackedContentEntryDTO[] entries,
+            int from,
+            int to,
+            int chunkSize,
+            EntryCollector entryCollector,
+            Comparator<RepositoryArtifact> order,
+            Map<String, String> mdc) {
+        this.entries = entries;
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+        this.entryCollector = entryCollector;
+        this.order = order;
+        this.mdc = mdc;
+    }
+
+    @Override
+    protected Result compute() {
+        if (to - from <= chunkSize) {
+            return collectChunk();
+        }
+        int middle = (from + to) >>> 1;
+        ArtifactCollectionTask left = subtask(from, middle);
+        ArtifactCollectionTask right = subtask(middle, to);
+        left.fork();
+        Result rightResult = right.compute();
+        Result leftResult = left.join();
+        return merge(leftResult, rightResult);
+    }
+
+    private ArtifactCollectionTask subtask(int from, int to) {
+        return new ArtifactCollectionTask(entries, from, to, chunkSize, entryCollector, order, mdc);
+    }
+
+    private Result collectChunk() {
+        Result[] result = new Result[1];
+        MdcUtils.withMdc(mdc, () -> result[0] = collectChunkEntries()).run();
+        return result[0];
+    }
+
+    private Result collectChunkEntries() {
+        List<RepositoryArtifact> artifacts = new ArrayList<>(to - from);
+        try {
+            for (int i = from; i < to; i++) {
+                entryCollector.collect(entries[i], artifacts);
+            }
+        } catch (RepositoryDriverException e) {
+            return new Result(Collections.emptyList(), e);
+        }
+        if (order != null) {
+            artifacts.sort(order);
+        }
+        return new Result(artifacts, null);
+    }
+
+    private Result merge(Result left, Result right) {
+        if (left.failure != null) {
+            return left;
+        }
+        if (right.failure != null) {
+            return right;
+        }
+        List<RepositoryArtifact> merged = new ArrayList<>(left.artifacts.size() + right.artifacts.size());
+        if (order == null) {
+            merged.addAll(left.artifacts);
+            merged.addAll(right.artifacts);
+            return new Result(merged, null);
+        }
+        int l = 0;
+        int r = 0;
+        while (l < left.artifacts.size() && r < right.artifacts.size()) {
+            // take from the right run only when strictly smaller to keep the sort stable
+            if (order.compare(right.artifacts.get(r), left.artifacts.get(l)) < 0) {
+                merged.add(right.artifacts.get(r++));
+            } else {
+                merged.add(left.artifacts.get(l++));
+            }
+        }
+        merged.addAll(left.artifacts.subList(l, left.artifacts.size()));
+        merged.addAll(right.artifacts.subList(r, right.artifacts.size()));
+        return new Result(merged, null);
+    }
+
+    static class Result {
+
+        private final List<RepositoryArtifact> artifacts;
+        private final RepositoryDriverException failure;
+
+        Result(List<RepositoryArtifact> artifacts, RepositoryDriverException failure) {
+            this.artifacts = artifacts;
+            this.failure = failure;
+        }
+
+        List<RepositoryArtifact> get() throws RepositoryDriverException {
+            if (failure != null) {
+                throw failure;
+            }
+            return artifacts;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.jboss.pnc.repositorydriver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identifier and purl computed from a single parsing of an artifact path.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class ArtifactCoordinates {
+    private final String identifier;
+    private final String purl;
+    /** The path is valid for its package type, but the purl cannot be built from it. */
+    private final boolean purlMalformed;
+
+    public ArtifactCoordinates(String identifier, String purl) {
+        this(identifier, purl, false);
+    }
+
+    /**
+     * @return the coordinates with the identifier only
+     */
+    public static ArtifactCoordinates withMalformedPurl(String identifier) {
+        return new ArtifactCoordinates(identifier, null, true);
+    }
+}
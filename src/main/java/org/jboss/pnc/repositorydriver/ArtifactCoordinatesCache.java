@@ -0,0 +1,80 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014-2020 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.repositorydriver;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size bounded cache of the coordinates parsed from package-type specific paths (maven, npm). The same paths appear in
+ * most of the builds, the cache saves the path parsing and the purl building. Generic coordinates depend on the urls
+ * and checksums of the entry, they are not cached. The hit and eviction statistics are exposed as cache metrics named
+ * {@value #CACHE_NAME}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class ArtifactCoordinatesCache {
+
+    public static final String CACHE_NAME = "artifact-coordinates";
+
+    /**
+     * Cached for paths that are not valid for their package type to skip parsing them again.
+     */
+    public static final ArtifactCoordinates NOT_PARSABLE = new ArtifactCoordinates(null, null);
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Cache<String, ArtifactCoordinates> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder().maximumSize(configuration.getCoordinatesCacheMaxSize()).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @return cached coordinates, {@link #NOT_PARSABLE} or null if the path is not in the cache
+     */
+    public ArtifactCoordinates get(String packageType, String path) {
+        return cache.getIfPresent(key(packageType, path));
+    }
+
+    public void put(String packageType, String path, ArtifactCoordinates coordinates) {
+        cache.put(key(packageType, path), coordinates);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private String key(String packageType, String path) {
+        return packageType + ':' + path;
+    }
+}
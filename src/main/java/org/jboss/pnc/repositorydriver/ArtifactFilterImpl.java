@@ -19,8 +19,11 @@ package org.jboss.pnc.repositorydriver;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -30,6 +33,8 @@ import javax.inject.Inject;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.Setter;
 import lombok.ToString;
 import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
@@ -48,6 +53,8 @@ import static org.commonjava.indy.pkg.npm.model.NPMPackageTypeDescriptor.NPM_PKG
 @ApplicationScoped
 public class ArtifactFilterImpl implements ArtifactFilter {
 
+    private static final int IGNORED_DEPENDENCY_SOURCES_SIZE = 1000;
+
     @Inject
     Configuration configuration;
 
@@ -57,6 +64,11 @@ public class ArtifactFilterImpl implements ArtifactFilter {
 
     private PatternsList ignoredRepoPatterns;
 
+    /**
+     * Decisions of {@link #ignoreDependencySource(StoreKey)}, there are only a few distinct stores in a report.
+     */
+    private Cache<StoreKey, Boolean> ignoredDependencySources;
+
     @PostConstruct
     public void init() {
         ignoredPathPatternsPromotion = new IgnoredPatterns();
@@ -75,6 +87,7 @@ public class ArtifactFilterImpl implements ArtifactFilter {
         } else {
             ignoredRepoPatterns = new PatternsList(Collections.emptyList());
         }
+        ignoredDependencySources = Caffeine.newBuilder().maximumSize(IGNORED_DEPENDENCY_SOURCES_SIZE).build();
     }
 
     @Override
@@ -125,8 +138,7 @@ public class ArtifactFilterImpl implements ArtifactFilter {
 
     @Override
     public boolean ignoreDependencySource(StoreKey storeKey) {
-        String strSK = storeKey.toString();
-        return matchesOne(strSK, ignoredRepoPatterns);
+        return ignoredDependencySources.get(storeKey, sk -> matchesOne(sk.toString(), ignoredRepoPatterns));
     }
 
     /**
@@ -137,25 +149,56 @@ public class ArtifactFilterImpl implements ArtifactFilter {
      * @return true if there is a matching pattern, false otherwise
      */
     private boolean matchesOne(String string, PatternsList patterns) {
-        if (patterns != null) {
-            for (Pattern pattern : patterns.getPatterns()) {
-                if (pattern.matcher(string).matches()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return patterns != null && patterns.matches(string);
     }
 
+    /**
+     * List of patterns compiled for matching a string against all of them at once. Patterns that are just a literal
+     * prefix, suffix, infix or the whole string (like {@code .*\.sha1$}) are checked with plain string operations, the
+     * others are merged into a single alternation.
+     */
     public static class PatternsList {
 
+        private static final String SPECIAL_CHARS = ".*+?[](){}|^$";
+
+        private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9k]");
+
+        private static final Pattern NAMED_GROUP = Pattern.compile("\\(\\?<[a-zA-Z]");
+
         private List<Pattern> patterns;
 
+        private final List<String> prefixes = new ArrayList<>();
+        private final List<String> suffixes = new ArrayList<>();
+        private final List<String> infixes = new ArrayList<>();
+        private final Set<String> literals = new HashSet<>();
+
+        /**
+         * Patterns that are not literals, merged into a single alternation when possible.
+         */
+        private final List<Pattern> others = new ArrayList<>();
+
         public PatternsList(List<String> strings) {
             if (strings != null) {
                 patterns = new ArrayList<>(strings.size());
+                List<String> toMerge = new ArrayList<>();
                 for (String string : strings) {
                     patterns.add(Pattern.compile(string));
+                    if (!addLiteral(string)) {
+                        if (isMergeable(string)) {
+                            toMerge.add(string);
+                        } else {
+                            others.add(Pattern.compile(string));
+                        }
+                    }
+                }
+                if (!toMerge.isEmpty()) {
+                    String alternation = toMerge.stream().map(p -> "(?:" + p + ")").collect(Collectors.joining("|"));
+                    try {
+                        others.add(Pattern.compile(alternation));
+                    } catch (PatternSyntaxException e) {
+                        // the patterns are valid on their own, they just can't be combined
+                        toMerge.forEach(p -> others.add(Pattern.compile(p)));
+                    }
                 }
             }
         }
@@ -163,6 +206,146 @@ public class ArtifactFilterImpl implements ArtifactFilter {
         public List<Pattern> getPatterns() {
             return patterns == null ? Collections.emptyList() : patterns;
         }
+
+        /**
+         * @return true if the string matches any of the patterns, same as {@link #matchesEach(String)}
+         */
+        public boolean matches(String string) {
+            if (patterns == null) {
+                return false;
+            }
+            if (hasLineTerminator(string)) {
+                // '.' does not match line terminators, the literal shortcuts would not be exact
+                return matchesEach(string);
+            }
+            if (literals.contains(string)) {
+                return true;
+            }
+            for (String suffix : suffixes) {
+                if (string.endsWith(suffix)) {
+                    return true;
+                }
+            }
+            for (String prefix : prefixes) {
+                if (string.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            for (String infix : infixes) {
+                if (string.contains(infix)) {
+                    return true;
+                }
+            }
+            for (Pattern pattern : others) {
+                if (pattern.matcher(string).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true if the string matches any of the patterns, each pattern is tried separately
+         */
+        public boolean matchesEach(String string) {
+            for (Pattern pattern : getPatterns()) {
+                if (pattern.matcher(string).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds the pattern to the literal checks if it is a literal optionally preceded and/or followed by {@code .*}.
+         *
+         * @return false if the pattern is not of such a shape
+         */
+        private boolean addLiteral(String regex) {
+            String body = regex;
+            if (body.startsWith("^")) {
+                body = body.substring(1);
+            }
+            if (body.endsWith("$") && !isEscaped(body, body.length() - 1)) {
+                body = body.substring(0, body.length() - 1);
+            }
+            boolean anyStart = body.startsWith(".*");
+            if (anyStart) {
+                body = body.substring(2);
+            }
+            boolean anyEnd = body.endsWith(".*") && !isEscaped(body, body.length() - 2);
+            if (anyEnd) {
+                body = body.substring(0, body.length() - 2);
+            }
+
+            String literal = toLiteral(body);
+            if (literal == null) {
+                return false;
+            }
+            if (anyStart && anyEnd) {
+                infixes.add(literal);
+            } else if (anyStart) {
+                suffixes.add(literal);
+            } else if (anyEnd) {
+                prefixes.add(literal);
+            } else {
+                literals.add(literal);
+            }
+            return true;
+        }
+
+        /**
+         * @return the string matched by the regex, null if the regex is not a plain literal
+         */
+        private static String toLiteral(String regex) {
+            StringBuilder literal = new StringBuilder(regex.length());
+            for (int i = 0; i < regex.length(); i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 == regex.length()) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(++i);
+                    if (Character.isLetterOrDigit(escaped)) {
+                        // character classes, back references, quotations, ...
+                        return null;
+                    }
+                    literal.append(escaped);
+                } else if (SPECIAL_CHARS.indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.toString();
+        }
+
+        private static boolean isEscaped(String regex, int index) {
+            int backslashes = 0;
+            for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+                backslashes++;
+            }
+            return backslashes % 2 == 1;
+        }
+
+        /**
+         * Back references would be renumbered, an unterminated quotation would swallow the rest of the alternation and
+         * the same group name can't be used in two of the alternatives.
+         */
+        private static boolean isMergeable(String regex) {
+            return !regex.contains("\\Q") && !BACK_REFERENCE.matcher(regex).find()
+                    && !NAMED_GROUP.matcher(regex).find();
+        }
+
+        private static boolean hasLineTerminator(String string) {
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     @ToString
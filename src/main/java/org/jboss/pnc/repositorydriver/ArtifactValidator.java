@@ -0,0 +1,241 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validation of the collected artifacts. The Bean Validation metadata of {@link RepositoryArtifact} is translated once
+ * into plain checks of the property values, which run for each artifact without the reflective traversal and the
+ * allocations of the validator. Only an artifact rejected by the checks goes through the full {@link Validator}, which
+ * decides and describes the violations.
+ * When the metadata contains a constraint without a check, every artifact is validated by the {@link Validator}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class ArtifactValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactValidator.class);
+
+    @Inject
+    Validator validator;
+
+    /** Null when the fast path is not available. */
+    private PropertyCheck[] checks;
+
+    @PostConstruct
+    public void init() {
+        try {
+            checks = checksFor(RepositoryArtifact.class);
+        } catch (UnsupportedConstraintException e) {
+            logger.warn("Artifacts are validated by the full Bean Validation: {}", e.getMessage());
+            checks = null;
+        }
+    }
+
+    /**
+     * @return the same artifact
+     * @throws RepositoryDriverException if there are constraint violations
+     */
+    public RepositoryArtifact validate(RepositoryArtifact artifact) throws RepositoryDriverException {
+        if (accepts(artifact)) {
+            return artifact;
+        }
+        Set<ConstraintViolation<RepositoryArtifact>> violations = validator.validate(artifact);
+        if (!violations.isEmpty()) {
+            throw new RepositoryDriverException(
+                    "Repository manager returned invalid artifact: " + artifact.toString()
+                            + " Constraint Violations: %s",
+                    violations);
+        }
+        return artifact;
+    }
+
+    /**
+     * The fast path only, false also when it is not available.
+     */
+    boolean accepts(RepositoryArtifact artifact) {
+        return checks != null && PropertyCheck.acceptsAll(checks, artifact);
+    }
+
+    boolean isFastPathAvailable() {
+        return checks != null;
+    }
+
+    private PropertyCheck[] checksFor(Class<?> type) throws UnsupportedConstraintException {
+        BeanDescriptor bean = validator.getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            throw new UnsupportedConstraintException("class level constraints of " + type.getName());
+        }
+        List<PropertyCheck> propertyChecks = new ArrayList<>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            String name = type.getSimpleName() + "." + property.getPropertyName();
+            if (!property.getConstrainedContainerElementTypes().isEmpty()) {
+                throw new UnsupportedConstraintException("container element constraints of " + name);
+            }
+            MethodHandle getter = getter(type, property.getPropertyName());
+            for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                propertyChecks.add(new PropertyCheck(getter, check(name, property.getElementClass(), constraint)));
+            }
+            if (property.isCascaded()) {
+                Class<?> element = property.getElementClass();
+                if (element.isArray() || Iterable.class.isAssignableFrom(element)
+                        || Map.class.isAssignableFrom(element) || Optional.class.equals(element)) {
+                    throw new UnsupportedConstraintException("cascaded container " + name);
+                }
+                PropertyCheck[] nested = checksFor(element);
+                propertyChecks.add(
+                        new PropertyCheck(getter, value -> value == null || PropertyCheck.acceptsAll(nested, value)));
+            }
+        }
+        return propertyChecks.toArray(new PropertyCheck[0]);
+    }
+
+    private static Predicate<Object> check(String name, Class<?> type, ConstraintDescriptor<?> constraint)
+            throws UnsupportedConstraintException {
+        Annotation annotation = constraint.getAnnotation();
+        if (!constraint.getComposingConstraints().isEmpty() || !Set.of(Default.class).equals(constraint.getGroups())) {
+            throw new UnsupportedConstraintException(annotation + " on " + name);
+        }
+        if (annotation instanceof NotNull) {
+            return value -> value != null;
+        }
+        if (annotation instanceof NotBlank && CharSequence.class.isAssignableFrom(type)) {
+            return value -> value != null && !isBlank((CharSequence) value);
+        }
+        if (annotation instanceof NotEmpty && CharSequence.class.isAssignableFrom(type)) {
+            return value -> value != null && ((CharSequence) value).length() > 0;
+        }
+        if (annotation instanceof NotEmpty && Collection.class.isAssignableFrom(type)) {
+            return value -> value != null && !((Collection<?>) value).isEmpty();
+        }
+        if (annotation instanceof Size && CharSequence.class.isAssignableFrom(type)) {
+            Size size = (Size) annotation;
+            return value -> value == null || isBetween(((CharSequence) value).length(), size.min(), size.max());
+        }
+        if (annotation instanceof Size && Collection.class.isAssignableFrom(type)) {
+            Size size = (Size) annotation;
+            return value -> value == null || isBetween(((Collection<?>) value).size(), size.min(), size.max());
+        }
+        if (annotation instanceof Min && isIntegral(type)) {
+            long min = ((Min) annotation).value();
+            return value -> value == null || ((Number) value).longValue() >= min;
+        }
+        if (annotation instanceof Max && isIntegral(type)) {
+            long max = ((Max) annotation).value();
+            return value -> value == null || ((Number) value).longValue() <= max;
+        }
+        throw new UnsupportedConstraintException(annotation + " on " + name);
+    }
+
+    private static MethodHandle getter(Class<?> type, String property) throws UnsupportedConstraintException {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String prefix : new String[] { "get", "is" }) {
+            try {
+                Method method = type.getMethod(prefix + suffix);
+                return MethodHandles.publicLookup()
+                        .unreflect(method)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (NoSuchMethodException e) {
+                // try the next prefix
+            } catch (IllegalAccessException e) {
+                throw new UnsupportedConstraintException("inaccessible getter of " + type.getName() + "." + property);
+            }
+        }
+        throw new UnsupportedConstraintException("no getter of " + type.getName() + "." + property);
+    }
+
+    /**
+     * Blank as in Hibernate Validator, only the characters trimmed by {@link String#trim()}.
+     */
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBetween(int length, int min, int max) {
+        return length >= min && length <= max;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class
+                || type == long.class || type == int.class || type == short.class || type == byte.class;
+    }
+
+    /**
+     * A constraint on the value returned by the getter.
+     */
+    private static class PropertyCheck {
+
+        private final MethodHandle getter;
+
+        private final Predicate<Object> constraint;
+
+        private PropertyCheck(MethodHandle getter, Predicate<Object> constraint) {
+            this.getter = getter;
+            this.constraint = constraint;
+        }
+
+        private static boolean acceptsAll(PropertyCheck[] checks, Object bean) {
+            for (PropertyCheck check : checks) {
+                if (!check.constraint.test(check.get(bean))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Object get(Object bean) {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class UnsupportedConstraintException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedConstraintException(String message) {
+            super(message);
+        }
+    }
+}
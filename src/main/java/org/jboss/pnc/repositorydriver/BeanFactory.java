@@ -3,20 +3,21 @@ package org.jboss.pnc.repositorydriver;
 import java.net.http.HttpClient;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import javax.net.ssl.SSLContext;
 
 import org.apache.commons.lang.StringUtils;
 import org.commonjava.indy.client.core.Indy;
 import org.commonjava.indy.client.core.IndyClientException;
 import org.commonjava.indy.client.core.IndyClientModule;
-import org.commonjava.indy.client.core.auth.IndyClientAuthenticator;
-import org.commonjava.indy.client.core.auth.OAuth20BearerTokenAuthenticator;
 import org.commonjava.indy.client.core.module.IndyContentClientModule;
 import org.commonjava.indy.folo.client.IndyFoloAdminClientModule;
 import org.commonjava.indy.folo.client.IndyFoloContentClientModule;
@@ -24,11 +25,10 @@ import org.commonjava.indy.model.core.io.IndyObjectMapper;
 import org.commonjava.indy.promote.client.IndyPromoteClientModule;
 import org.commonjava.util.jhttpc.model.SiteConfig;
 import org.commonjava.util.jhttpc.model.SiteConfigBuilder;
-import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.quarkus.oidc.client.Tokens;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
@@ -42,24 +42,37 @@ public class BeanFactory {
     Configuration configuration;
 
     @Inject
-    Tokens serviceTokens;
+    ServiceAccountTokens serviceTokens;
+
+    @Inject
+    MeterRegistry meterRegistry;
 
     protected SiteConfig indySiteConfig;
     protected IndyClientModule[] indyModules;
-    protected Indy indy;
 
     @Inject
-    ManagedExecutor executor;
+    @Pool(Pool.CALLBACK)
+    ExecutorService callbackExecutor;
+
+    @Inject
+    @Pool(Pool.HEARTBEAT)
+    ExecutorService heartbeatExecutor;
+
+    @Inject
+    @Pool(Pool.ARCHIVE_SUBMISSION)
+    ExecutorService archiveSubmissionExecutor;
 
     private HttpClient httpClient;
 
+    private HttpClient heartbeatHttpClient;
+
+    private HttpClient archiveHttpClient;
+
     @PostConstruct
     void init() throws NoSuchAlgorithmException {
-        httpClient = java.net.http.HttpClient.newBuilder()
-                .sslContext(SSLContext.getDefault())
-                .executor(executor)
-                .connectTimeout(Duration.ofSeconds(configuration.getHttpClientConnectTimeout()))
-                .build();
+        httpClient = createHttpClient(callbackExecutor);
+        heartbeatHttpClient = createHttpClient(heartbeatExecutor);
+        archiveHttpClient = createHttpClient(archiveSubmissionExecutor);
 
         String baseUrl = StringUtils.stripEnd(configuration.getIndyUrl(), "/");
         if (!baseUrl.endsWith("/api")) {
@@ -68,43 +81,75 @@ public class BeanFactory {
 
         indySiteConfig = new SiteConfigBuilder("indy", baseUrl)
                 .withRequestTimeoutSeconds(configuration.getIndyClientRequestTimeout())
-                .withMaxConnections(10)
+                .withMaxConnections(configuration.getIndyClientMaxConnections())
                 .build();
 
         indyModules = new IndyClientModule[] { new IndyFoloAdminClientModule(), new IndyFoloContentClientModule(),
-                new IndyPromoteClientModule() };
+                new IndyFoloReportClientModule(), new IndyPromoteClientModule() };
     }
 
+    /**
+     * Single Indy client shared by all the requests, its connections are pooled. The service account token and the MDC
+     * headers are set on each request by the {@link ServiceAccountAuthenticator}.
+     */
     @Produces
-    synchronized Indy createIndyServiceAccountClient() {
-        IndyClientAuthenticator authenticator = new OAuth20BearerTokenAuthenticator(serviceTokens.getAccessToken());
+    @Singleton
+    Indy createIndyServiceAccountClient() {
         try {
-            indy = new Indy(
+            return new Indy(
                     indySiteConfig,
-                    authenticator,
+                    createAuthenticator(),
                     new IndyObjectMapper(true),
-                    MdcUtils.mdcToMapWithHeaderKeys(),
+                    Collections.emptyMap(),
                     indyModules);
-            return indy;
-        } catch (RepositoryDriverException | IndyClientException e) {
+        } catch (IndyClientException e) {
             logger.error("Failed to create Indy client: " + e.getMessage(), e);
-            return null;
+            throw new IllegalStateException("Failed to create Indy client.", e);
         }
     }
 
+    protected ServiceAccountAuthenticator createAuthenticator() {
+        return new ServiceAccountAuthenticator(
+                serviceTokens::getAccessToken,
+                meterRegistry,
+                configuration.getIndyClientMaxConnections());
+    }
+
+    void closeIndy(@Disposes Indy indy) {
+        indy.close();
+    }
+
+    /**
+     * HTTP client of the callbacks.
+     */
     @Produces
     public HttpClient getHttpClient() {
         return httpClient;
     }
 
+    @Produces
+    @Pool(Pool.HEARTBEAT)
+    public HttpClient getHeartbeatHttpClient() {
+        return heartbeatHttpClient;
+    }
+
+    @Produces
+    @Pool(Pool.ARCHIVE_SUBMISSION)
+    public HttpClient getArchiveHttpClient() {
+        return archiveHttpClient;
+    }
+
     @Produces
     public IndyContentClientModule getIndyContentClientModule() {
         return new IndyContentClientModule();
     }
 
-    @PreDestroy
-    void destroy() {
-        indy.close();
+    private HttpClient createHttpClient(ExecutorService executor) throws NoSuchAlgorithmException {
+        return HttpClient.newBuilder()
+                .sslContext(SSLContext.getDefault())
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(configuration.getHttpClientConnectTimeout()))
+                .build();
     }
 
 }
@@ -2,21 +2,22 @@ package org.jboss.pnc.repositorydriver;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import lombok.Builder;
 import lombok.Getter;
-import org.apache.commons.lang.StringUtils;
-import org.commonjava.indy.client.core.Indy;
 import org.commonjava.indy.client.core.IndyClientException;
+import org.commonjava.indy.client.core.module.IndyStoresClientModule;
 import org.commonjava.indy.model.core.Group;
 import org.commonjava.indy.model.core.RemoteRepository;
 import org.commonjava.indy.model.core.StoreKey;
 import org.commonjava.indy.model.core.StoreType;
-import org.commonjava.indy.model.core.dto.StoreListingDTO;
 import org.jboss.pnc.api.enums.BuildType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,18 +33,25 @@ public class BuildGroupBuilder {
 
     private static final Logger userLog = LoggerFactory.getLogger("org.jboss.pnc._userlog_.repository-driver");
 
-    private Indy indy;
+    private IndyAsyncClient indy;
+    private RemoteRepositoryIndex remoteIndex;
     private Group buildGroup;
     private String packageType;
     private String buildContentId;
+    private final List<CompletableFuture<RemoteRepository>> pendingCreations = new ArrayList<>();
 
     // use #builder
     private BuildGroupBuilder() {
     }
 
-    public static BuildGroupBuilder builder(Indy indy, String packageType, String buildContentId) {
+    public static BuildGroupBuilder builder(
+            IndyAsyncClient indy,
+            RemoteRepositoryIndex remoteIndex,
+            String packageType,
+            String buildContentId) {
         BuildGroupBuilder buildGroupBuilder = new BuildGroupBuilder();
         buildGroupBuilder.indy = indy;
+        buildGroupBuilder.remoteIndex = remoteIndex;
         buildGroupBuilder.packageType = packageType;
         buildGroupBuilder.buildContentId = buildContentId;
         buildGroupBuilder.buildGroup = new Group(packageType, buildContentId);
@@ -94,7 +102,8 @@ public class BuildGroupBuilder {
 
     /**
      * Adds extra remote repositories to the build group that are requested for the particular build. For a Maven build
-     * these are repositories defined in the root pom removed by PME by the adjust process.
+     * these are repositories defined in the root pom removed by PME by the adjust process. The missing remote
+     * repositories are created concurrently, {@link #buildAsync()} completes once they are created.
      *
      * @param repositoryUrls the list of repositories to be added
      *
@@ -107,26 +116,16 @@ public class BuildGroupBuilder {
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
 
-            StoreListingDTO<RemoteRepository> existingRepos = indy.stores().listRemoteRepositories(packageType);
+            IndyStoresClientModule stores = indy.stores();
             for (ArtifactRepository repository : repositories) {
-                StoreKey remoteKey = null;
-                for (RemoteRepository existingRepo : existingRepos) {
-                    if (StringUtils.equals(existingRepo.getUrl(), repository.getUrl())) {
-                        remoteKey = existingRepo.getKey();
-                        break;
-                    }
-                }
+                StoreKey remoteKey = remoteIndex.findByUrl(stores, packageType, repository.getUrl());
 
                 if (remoteKey == null) {
                     // this is basically an implied repo, so using the same prefix "i-"
                     String remoteName = "i-" + convertIllegalCharacters(repository.getId());
 
                     // find a free repository ID for the newly created repo
-                    remoteKey = new StoreKey(packageType, StoreType.remote, remoteName);
-                    int i = 2;
-                    while (indy.stores().exists(remoteKey)) {
-                        remoteKey = new StoreKey(packageType, StoreType.remote, remoteName + "-" + i++);
-                    }
+                    remoteKey = remoteIndex.reserveName(stores, packageType, remoteName);
 
                     RemoteRepository remoteRepo = new RemoteRepository(
                             packageType,
@@ -138,12 +137,19 @@ public class BuildGroupBuilder {
                             "Implicitly created " + packageType + " repo for: " + repository.getName() + " ("
                                     + repository.getId() + ") from repository declaration removed by PME " + " (repo: "
                                     + buildContentId + ")");
-                    indy.stores()
-                            .create(
-                                    remoteRepo,
-                                    "Creating extra remote repository " + repository.getName() + " ("
-                                            + repository.getId() + ") repo: " + buildContentId + "",
-                                    RemoteRepository.class);
+                    StoreKey reservedKey = remoteKey;
+                    CompletionStage<RemoteRepository> creation = indy.create(
+                            remoteRepo,
+                            "Creating extra remote repository " + repository.getName() + " (" + repository.getId()
+                                    + ") repo: " + buildContentId + "",
+                            RemoteRepository.class).whenComplete((created, e) -> {
+                                if (e != null) {
+                                    remoteIndex.release(reservedKey);
+                                } else {
+                                    remoteIndex.added(remoteRepo);
+                                }
+                            });
+                    pendingCreations.add(creation.toCompletableFuture());
                 }
 
                 buildGroup.addConstituent(remoteKey);
@@ -163,8 +169,20 @@ public class BuildGroupBuilder {
         return ArtifactRepository.builder().id(id).name(id).url(url.trim()).releases(true).snapshots(false).build();
     }
 
-    public Group build() {
-        return buildGroup;
+    /**
+     * @return the group once all the extra remote repositories are created
+     * @throws IndyClientException if the creation of an extra remote repository failed
+     */
+    public Group build() throws IndyClientException {
+        return IndyAsyncClient.join(buildAsync());
+    }
+
+    /**
+     * @return the group completed once all the extra remote repositories are created
+     */
+    public CompletionStage<Group> buildAsync() {
+        return CompletableFuture.allOf(pendingCreations.toArray(new CompletableFuture[0]))
+                .thenApply(nothing -> buildGroup);
     }
 
     /**
@@ -0,0 +1,33 @@
+package org.jboss.pnc.repositorydriver;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.jboss.pnc.api.dto.Request;
+
+/**
+ * Callback waiting in the {@link CallbackOutbox}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class CallbackMessage {
+
+    private String id;
+
+    private Request callback;
+
+    private RequestBody body;
+
+    /** Epoch millis of the time the callback was queued. */
+    private long createdAt;
+
+    CallbackMessage(String id, Request callback, RequestBody body, long createdAt) {
+        this.id = id;
+        this.callback = callback;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,364 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jboss.pnc.api.dto.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the callbacks to the invokers. The callbacks are queued per destination host, at most
+ * {@link Configuration#getCallbackMaxPerHost()} callbacks are in flight to a host. A delivery failing because of the
+ * host (a connection error, 5xx, 408 or 429) puts the whole host in backoff and the callback is queued again at the
+ * tail, after the backoff a single callback probes the host before the others follow. A callback rejected by the
+ * invoker with any other status is dropped at once, it doesn't hold back the other callbacks to the host. Callbacks not
+ * delivered within {@link Configuration#getCallbackRetryDuration()} seconds are dropped.
+ *
+ * When persistent, the queued callbacks are stored in {@link Configuration#getCallbackOutboxDir()} until delivered
+ * and are sent again after a restart. The stored callbacks include their headers, which may carry bearer tokens of the
+ * invoker, in plain text; the files are readable by the owner only and the directory must not be shared.
+ *
+ * The state is owned by the single outbox thread, all the changes run on it.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class CallbackOutbox {
+
+    static final String QUEUED_GAUGE = "repository-driver.callbacks.queued";
+
+    static final String LAG_TIMER = "repository-driver.callbacks.lag";
+
+    static final String EXPIRED_COUNTER = "repository-driver.callbacks.expired";
+
+    private static final Logger logger = LoggerFactory.getLogger(CallbackOutbox.class);
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    HttpClient httpClient;
+
+    @Inject
+    ObjectMapper jsonMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Destination> destinations = new HashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    private Path outboxDir;
+
+    private Timer lag;
+
+    private Counter expired;
+
+    @PostConstruct
+    void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-driver-callback-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge(QUEUED_GAUGE, queued);
+        lag = meterRegistry.timer(LAG_TIMER);
+        expired = meterRegistry.counter(EXPIRED_COUNTER);
+        if (configuration.isCallbackOutboxPersistent()) {
+            outboxDir = Paths.get(configuration.getCallbackOutboxDir());
+            List<CallbackMessage> stored = load();
+            logger.info("Loaded {} undelivered callbacks.", stored.size());
+            scheduler.execute(() -> stored.forEach(message -> enqueue(message, new CompletableFuture<>())));
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Queues the callback for the delivery.
+     *
+     * @return completed when the callback is delivered, completed exceptionally when it is dropped
+     */
+    public CompletionStage<Void> send(Request callback, RequestBody body) {
+        long now = System.currentTimeMillis();
+        String id = String.format("%013d-%06d", now, sequence.incrementAndGet() % 1_000_000);
+        CallbackMessage message = new CallbackMessage(id, callback, body, now);
+        store(message);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        scheduler.execute(() -> enqueue(message, result));
+        return result;
+    }
+
+    private void enqueue(CallbackMessage message, CompletableFuture<Void> result) {
+        String host = host(message.getCallback().getUri());
+        destinations.computeIfAbsent(host, Destination::new).pending.add(new Delivery(message, result));
+        queued.incrementAndGet();
+        dispatch();
+    }
+
+    private void dispatch() {
+        long now = System.nanoTime();
+        Iterator<Destination> iterator = destinations.values().iterator();
+        while (iterator.hasNext()) {
+            Destination destination = iterator.next();
+            dropExpired(destination);
+            if (destination.pending.isEmpty()) {
+                if (destination.inFlight == 0) {
+                    iterator.remove();
+                }
+                continue;
+            }
+            if (now < destination.notBefore) {
+                if (!destination.wakeUpScheduled) {
+                    destination.wakeUpScheduled = true;
+                    scheduler.schedule(() -> {
+                        destination.wakeUpScheduled = false;
+                        dispatch();
+                    }, destination.notBefore - now, TimeUnit.NANOSECONDS);
+                }
+                continue;
+            }
+            // a host that failed is probed by a single callback
+            int limit = destination.failures > 0 ? 1 : configuration.getCallbackMaxPerHost();
+            while (destination.inFlight < limit && !destination.pending.isEmpty()) {
+                deliver(destination, destination.pending.poll());
+            }
+        }
+    }
+
+    private void dropExpired(Destination destination) {
+        long deadline = System.currentTimeMillis() - configuration.getCallbackRetryDuration() * 1000;
+        Iterator<Delivery> iterator = destination.pending.iterator();
+        while (iterator.hasNext()) {
+            Delivery delivery = iterator.next();
+            if (delivery.message.getCreatedAt() < deadline) {
+                iterator.remove();
+                logger.error(
+                        "Unable to send callback {} to {} after {} attempts.",
+                        delivery.message.getId(),
+                        destination.host,
+                        delivery.attempts);
+                finished(delivery);
+                expired.increment();
+                delivery.result.completeExceptionally(
+                        new FailedResponseException("Callback not delivered to " + destination.host + "."));
+            }
+        }
+    }
+
+    private void deliver(Destination destination, Delivery delivery) {
+        destination.inFlight++;
+        delivery.attempts++;
+        try {
+            httpClient.sendAsync(toHttpRequest(delivery.message), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete(
+                            (response, error) -> scheduler
+                                    .execute(() -> delivered(destination, delivery, response, error)));
+        } catch (RuntimeException e) {
+            scheduler.execute(() -> delivered(destination, delivery, null, e));
+        }
+    }
+
+    private void delivered(Destination destination, Delivery delivery, HttpResponse<?> response, Throwable error) {
+        destination.inFlight--;
+        if (error == null && response.statusCode() >= 200 && response.statusCode() < 300) {
+            logger.info("Callback sent, response status: {}.", response.statusCode());
+            destination.failures = 0;
+            destination.notBefore = 0;
+            finished(delivery);
+            lag.record(
+                    Duration.ofMillis(Math.max(0, System.currentTimeMillis() - delivery.message.getCreatedAt())));
+            delivery.result.complete(null);
+        } else if (error == null && !isHostFailure(response.statusCode())) {
+            logger.error(
+                    "Callback {} rejected by {} with status {}, not retrying.",
+                    delivery.message.getId(),
+                    destination.host,
+                    response.statusCode());
+            finished(delivery);
+            delivery.result.completeExceptionally(
+                    new FailedResponseException(
+                            "Callback rejected by " + destination.host + " with status " + response.statusCode()
+                                    + "."));
+        } else {
+            destination.failures++;
+            long backoff = backoff(destination.failures);
+            destination.notBefore = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+            logger.warn(
+                    "Callback retry attempt #{} to {} in {}ms, last error: [{}], last status: [{}].",
+                    delivery.attempts,
+                    destination.host,
+                    backoff,
+                    error == null ? "" : error.getMessage(),
+                    response == null ? null : response.statusCode());
+            // at the tail, so the probe after the backoff is not always the same callback
+            destination.pending.add(delivery);
+        }
+        dispatch();
+    }
+
+    /**
+     * @return true if the status tells the host can't take the callback now, false if it rejects the callback itself
+     */
+    private static boolean isHostFailure(int status) {
+        return status >= 500 || status == 408 || status == 429;
+    }
+
+    private long backoff(int failures) {
+        long delay = configuration.getCallbackRetryDelayMsec() << Math.min(failures - 1, 20);
+        return Math.min(delay, configuration.getCallbackRetryMaxDelayMsec());
+    }
+
+    private void finished(Delivery delivery) {
+        queued.decrementAndGet();
+        if (outboxDir != null) {
+            try {
+                Files.deleteIfExists(outboxDir.resolve(delivery.message.getId() + ".json"));
+            } catch (IOException e) {
+                logger.warn("Cannot remove callback {} from the outbox.", delivery.message.getId(), e);
+            }
+        }
+    }
+
+    private void store(CallbackMessage message) {
+        if (outboxDir == null) {
+            return;
+        }
+        try {
+            Path tmp = outboxDir.resolve(message.getId() + ".tmp");
+            jsonMapper.writeValue(tmp.toFile(), message);
+            ownerOnly(tmp);
+            Files.move(
+                    tmp,
+                    outboxDir.resolve(message.getId() + ".json"),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the callback is still delivered, it is just lost on restart
+            logger.error("Cannot store callback {} to the outbox.", message.getId(), e);
+        }
+    }
+
+    /**
+     * The stored headers may contain credentials.
+     */
+    private static void ownerOnly(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system, the permissions are up to the directory
+        }
+    }
+
+    private List<CallbackMessage> load() {
+        List<CallbackMessage> messages = new ArrayList<>();
+        try {
+            Files.createDirectories(outboxDir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(outboxDir, "*.json")) {
+                for (Path file : files) {
+                    try {
+                        messages.add(jsonMapper.readValue(file.toFile(), CallbackMessage.class));
+                    } catch (IOException e) {
+                        logger.warn("Skipping unreadable callback {}.", file, e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Cannot read the callback outbox {}.", outboxDir, e);
+        }
+        messages.sort((a, b) -> a.getId().compareTo(b.getId()));
+        return messages;
+    }
+
+    private HttpRequest toHttpRequest(CallbackMessage message) {
+        Request callback = message.getCallback();
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(callback.getUri())
+                .method(callback.getMethod().name(), message.getBody().publisher())
+                .timeout(Duration.ofSeconds(configuration.getHttpClientRequestTimeout()));
+        message.getBody().encodingHeader(builder);
+        callback.getHeaders().forEach(h -> builder.header(h.getName(), h.getValue()));
+        return builder.build();
+    }
+
+    private static String host(URI uri) {
+        return uri.getAuthority() == null ? "" : uri.getAuthority();
+    }
+
+    private static class Destination {
+
+        private final String host;
+
+        private final Queue<Delivery> pending = new ArrayDeque<>();
+
+        private int inFlight;
+
+        /** Consecutive failed deliveries, the host is in backoff while greater than zero. */
+        private int failures;
+
+        /** Nano time before which no callback is sent to the host. */
+        private long notBefore;
+
+        private boolean wakeUpScheduled;
+
+        private Destination(String host) {
+            this.host = host;
+        }
+    }
+
+    private static class Delivery {
+
+        private final CallbackMessage message;
+
+        private final CompletableFuture<Void> result;
+
+        private int attempts;
+
+        private Delivery(CallbackMessage message, CompletableFuture<Void> result) {
+            this.message = message;
+            this.result = result;
+        }
+    }
+}
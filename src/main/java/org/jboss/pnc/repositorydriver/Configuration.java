@@ -44,12 +44,113 @@ public class Configuration {
     @ConfigProperty(name = "repository-driver.indy-client.request-timeout", defaultValue = "30")
     Integer indyClientRequestTimeout;
 
+    @ConfigProperty(name = "repository-driver.indy-client.max-connections", defaultValue = "50")
+    int indyClientMaxConnections;
+
+    @ConfigProperty(name = "repository-driver.indy-pool.size", defaultValue = "20")
+    int indyPoolSize;
+
+    @ConfigProperty(name = "repository-driver.indy-pool.queue-size", defaultValue = "1000")
+    int indyPoolQueueSize;
+
+    @ConfigProperty(name = "repository-driver.indy-client-pool.size", defaultValue = "20")
+    int indyClientPoolSize;
+
+    @ConfigProperty(name = "repository-driver.indy-client-pool.queue-size", defaultValue = "1000")
+    int indyClientPoolQueueSize;
+
+    @ConfigProperty(name = "repository-driver.processing-pool.size", defaultValue = "8")
+    int processingPoolSize;
+
+    @ConfigProperty(name = "repository-driver.processing-pool.queue-size", defaultValue = "100")
+    int processingPoolQueueSize;
+
+    /** Parallelism of the collection of the large tracking reports, 0 uses the number of the available processors. */
+    @ConfigProperty(name = "repository-driver.collection-pool.size", defaultValue = "0")
+    int collectionPoolSize;
+
+    @ConfigProperty(name = "repository-driver.promotion-pool.size", defaultValue = "32")
+    int promotionPoolSize;
+
+    @ConfigProperty(name = "repository-driver.promotion-pool.queue-size", defaultValue = "1000")
+    int promotionPoolQueueSize;
+
+    @ConfigProperty(name = "repository-driver.archive-pool.size", defaultValue = "4")
+    int archivePoolSize;
+
+    @ConfigProperty(name = "repository-driver.archive-pool.queue-size", defaultValue = "100")
+    int archivePoolQueueSize;
+
+    /**
+     * Downloads in one archive request, 0 submits all of them in a single request. The archive service does not accept
+     * paged requests yet.
+     */
+    @ConfigProperty(name = "repository-driver.archive.page-size", defaultValue = "0")
+    int archivePageSize;
+
+    @ConfigProperty(name = "repository-driver.archive.parallelism", defaultValue = "4")
+    int archiveParallelism;
+
+    @ConfigProperty(name = "repository-driver.archive.retry-duration", defaultValue = "PT10M")
+    Duration archiveRetryDuration;
+
+    @ConfigProperty(name = "repository-driver.archive.retry-delay", defaultValue = "PT1S")
+    Duration archiveRetryDelay;
+
+    @ConfigProperty(name = "repository-driver.archive.retry-max-delay", defaultValue = "PT30S")
+    Duration archiveRetryMaxDelay;
+
+    /** How long the status of a finished archival can be queried. */
+    @ConfigProperty(name = "repository-driver.archive.status-retention", defaultValue = "PT24H")
+    Duration archiveStatusRetention;
+
+    @ConfigProperty(name = "repository-driver.archive-submission-pool.size", defaultValue = "4")
+    int archiveSubmissionPoolSize;
+
+    @ConfigProperty(name = "repository-driver.archive-submission-pool.queue-size", defaultValue = "100")
+    int archiveSubmissionPoolQueueSize;
+
+    @ConfigProperty(name = "repository-driver.callback-pool.size", defaultValue = "8")
+    int callbackPoolSize;
+
+    @ConfigProperty(name = "repository-driver.callback-pool.queue-size", defaultValue = "10000")
+    int callbackPoolQueueSize;
+
+    @ConfigProperty(name = "repository-driver.heartbeat-pool.size", defaultValue = "2")
+    int heartbeatPoolSize;
+
+    @ConfigProperty(name = "repository-driver.heartbeat-pool.queue-size", defaultValue = "1000")
+    int heartbeatPoolQueueSize;
+
+    /**
+     * Indy answers the stores calls only once they are done, so they fail after the {@link #indyClientRequestTimeout}
+     * without a response anyway, a longer timeout has no effect. The promote calls have no timeout of their own, they
+     * end with the response or with the request timeout, see {@link IndyAsyncClient#promoteByPath}.
+     */
+    @ConfigProperty(name = "repository-driver.indy-client.timeouts.stores", defaultValue = "PT30S")
+    Duration indyStoresTimeout;
+
+    /**
+     * Timeout of the tracking record calls of the {@link IndyAsyncClient}, including the retrieval of the whole report
+     * in a single response. The {@link #indyClientRequestTimeout} limits only the wait for each read of the response,
+     * so the download of a large report can take longer than it.
+     */
+    @ConfigProperty(name = "repository-driver.indy-client.timeouts.tracking", defaultValue = "PT5M")
+    Duration indyTrackingTimeout;
+
     @ConfigProperty(name = "repository-driver.http-client.connect-timeout", defaultValue = "5")
     int httpClientConnectTimeout;
 
     @ConfigProperty(name = "repository-driver.http-client.request-timeout", defaultValue = "15")
     int httpClientRequestTimeout;
 
+    /** Gzip the callback and archive request bodies. */
+    @ConfigProperty(name = "repository-driver.http-client.gzip-request-body", defaultValue = "false")
+    boolean httpClientGzipRequestBody;
+
+    @ConfigProperty(name = "repository-driver.heartbeat-interval", defaultValue = "PT30S")
+    Duration heartbeatInterval;
+
     @ConfigProperty(name = "repository-driver.callback-retry-duration", defaultValue = "600")
     long callbackRetryDuration;
 
@@ -59,6 +160,20 @@ public class Configuration {
     @ConfigProperty(name = "repository-driver.callback-retry-max-delay-msec", defaultValue = "5000")
     long callbackRetryMaxDelayMsec;
 
+    @ConfigProperty(name = "repository-driver.callback-outbox.max-per-host", defaultValue = "4")
+    int callbackMaxPerHost;
+
+    /**
+     * The stored callbacks include their headers, e.g. the Authorization header of the invoker, in plain text.
+     */
+    @ConfigProperty(name = "repository-driver.callback-outbox.persistent", defaultValue = "false")
+    boolean callbackOutboxPersistent;
+
+    @ConfigProperty(
+            name = "repository-driver.callback-outbox.dir",
+            defaultValue = "/var/lib/repository-driver/callbacks")
+    String callbackOutboxDir;
+
     @ConfigProperty(name = "repository-driver.keycloak.request-timeout", defaultValue = "PT10S")
     private Duration keyCloakRequestTimeout;
 
@@ -90,6 +205,66 @@ public class Configuration {
     @ConfigProperty(name = "repository-driver.ignored-path-patterns.result.npm")
     Optional<List<String>> ignoredPathPatternsResultNpm;
 
+    @ConfigProperty(name = "repository-driver.tracking-report.streaming", defaultValue = "false")
+    boolean trackingReportStreaming;
+
+    @ConfigProperty(name = "repository-driver.tracking-report.parallel-threshold", defaultValue = "10000")
+    int trackingReportParallelThreshold;
+
+    @ConfigProperty(name = "repository-driver.coordinates-cache.max-size", defaultValue = "20000")
+    long coordinatesCacheMaxSize;
+
+    /**
+     * Collected artifact lists of at least this size are moved to memory-mapped files once the collection is finished,
+     * 0 disables spilling.
+     */
+    @ConfigProperty(name = "repository-driver.tracking-report.spill.threshold", defaultValue = "0")
+    int spillThreshold;
+
+    @ConfigProperty(name = "repository-driver.tracking-report.spill.dir", defaultValue = "/tmp/repository-driver")
+    String spillDir;
+
+    /** Estimated heap size of the cached tracking report analyses in megabytes, 0 disables the cache. */
+    @ConfigProperty(name = "repository-driver.tracking-report.cache.max-mb", defaultValue = "256")
+    long trackingReportCacheMaxMb;
+
+    @ConfigProperty(name = "repository-driver.promotion.chunk-size", defaultValue = "1000")
+    int promotionChunkSize;
+
+    @ConfigProperty(name = "repository-driver.promotion.parallelism", defaultValue = "4")
+    int promotionParallelism;
+
+    @ConfigProperty(name = "repository-driver.promotion.admission.max-active", defaultValue = "8")
+    int promotionMaxActive;
+
+    @ConfigProperty(name = "repository-driver.promotion.admission.max-queued", defaultValue = "16")
+    int promotionMaxQueued;
+
+    @ConfigProperty(name = "repository-driver.promotion.admission.max-entries", defaultValue = "500000")
+    long promotionMaxEntries;
+
+    @ConfigProperty(name = "repository-driver.promotion.admission.retry-after", defaultValue = "PT1M")
+    Duration promotionRetryAfter;
+
+    @ConfigProperty(name = "repository-driver.promotion.scheduler.shortest-first", defaultValue = "false")
+    boolean promotionShortestFirst;
+
+    @ConfigProperty(name = "repository-driver.promotion.scheduler.aging", defaultValue = "PT15M")
+    Duration promotionAging;
+
+    @ConfigProperty(name = "repository-driver.journal.enabled", defaultValue = "false")
+    boolean journalEnabled;
+
+    @ConfigProperty(name = "repository-driver.journal.dir", defaultValue = "/var/lib/repository-driver/journal")
+    String journalDir;
+
+    @ConfigProperty(name = "repository-driver.remote-index.refresh-interval", defaultValue = "PT5M")
+    Duration remoteIndexRefreshInterval;
+
+    /** A URL not found in an index older than this refreshes the index in the background. */
+    @ConfigProperty(name = "repository-driver.remote-index.miss-refresh-interval", defaultValue = "PT30S")
+    Duration remoteIndexMissRefreshInterval;
+
     @ConfigProperty(name = "repository-driver.indy-sidecar.enabled", defaultValue = "false")
     boolean sidecarEnabled;
 
@@ -18,44 +18,46 @@
 package org.jboss.pnc.repositorydriver;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
-
-import javax.enterprise.context.RequestScoped;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.quarkus.oidc.client.Tokens;
-import net.jodah.failsafe.Failsafe;
-import net.jodah.failsafe.Fallback;
-import net.jodah.failsafe.RetryPolicy;
-import net.jodah.failsafe.event.ExecutionAttemptedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
 import org.apache.commons.lang.StringUtils;
 import org.commonjava.indy.client.core.Indy;
 import org.commonjava.indy.client.core.IndyClientException;
-import org.commonjava.indy.client.core.module.IndyStoresClientModule;
-import org.commonjava.indy.folo.client.IndyFoloAdminClientModule;
 import org.commonjava.indy.folo.client.IndyFoloContentClientModule;
 import org.commonjava.indy.folo.dto.TrackedContentDTO;
 import org.commonjava.indy.model.core.Group;
 import org.commonjava.indy.model.core.HostedRepository;
 import org.commonjava.indy.model.core.StoreKey;
 import org.commonjava.indy.model.core.StoreType;
-import org.commonjava.indy.promote.client.IndyPromoteClientModule;
 import org.commonjava.indy.promote.model.AbstractPromoteResult;
 import org.commonjava.indy.promote.model.PathsPromoteRequest;
 import org.commonjava.indy.promote.model.PathsPromoteResult;
 import org.commonjava.indy.promote.model.ValidationResult;
-import org.eclipse.microprofile.context.ManagedExecutor;
 import org.jboss.pnc.api.dto.Request;
 import org.jboss.pnc.api.enums.BuildCategory;
 import org.jboss.pnc.api.enums.BuildType;
@@ -70,31 +72,35 @@ import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteResult;
 import org.jboss.pnc.repositorydriver.runtime.ApplicationLifecycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import static org.commonjava.indy.model.core.GenericPackageTypeDescriptor.GENERIC_PKG_KEY;
-import static org.jboss.pnc.api.constants.HttpHeaders.AUTHORIZATION_STRING;
-import static org.jboss.pnc.api.constants.HttpHeaders.CONTENT_TYPE_STRING;
 
 /**
  * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
  */
-@RequestScoped
+@ApplicationScoped
 public class Driver {
 
     /** Store key of gradle-plugins remote repository. */
     static final String GRADLE_PLUGINS_REPO = "maven:remote:gradle-plugins";
 
+    /** Timer of the repository creation. */
+    static final String CREATE_TIMER = "repository-driver.create";
+
     private static final Logger logger = LoggerFactory.getLogger(Driver.class);
     private static final Logger userLog = LoggerFactory.getLogger("org.jboss.pnc._userlog_.repository-driver");
 
     @Inject
-    ManagedExecutor executor;
+    @Pool(Pool.PROMOTION)
+    ExecutorService promotionExecutor;
 
     @Inject
-    Configuration configuration;
+    @Pool(Pool.INDY)
+    ExecutorService indyExecutor;
 
     @Inject
-    java.net.http.HttpClient httpClient;
+    Configuration configuration;
 
     @Inject
     ObjectMapper jsonMapper;
@@ -102,6 +108,9 @@ public class Driver {
     @Inject
     Indy indy;
 
+    @Inject
+    IndyAsyncClient indyClient;
+
     @Inject
     ApplicationLifecycle lifecycle;
 
@@ -109,21 +118,74 @@ public class Driver {
     TrackingReportProcessor trackingReportProcessor;
 
     @Inject
-    Tokens serviceTokens;
+    TrackingReportReader trackingReportReader;
+
+    @Inject
+    TrackingReportCache trackingReportCache;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    RemoteRepositoryIndex remoteRepositoryIndex;
+
+    @Inject
+    PromotionAdmission promotionAdmission;
+
+    @Inject
+    HeartbeatScheduler heartbeatScheduler;
+
+    @Inject
+    PromotionJournal promotionJournal;
+
+    @Inject
+    CallbackOutbox callbackOutbox;
+
+    @Inject
+    ArchiveSubmitter archiveSubmitter;
+
+    @Inject
+    @Pool(Pool.ARCHIVE)
+    ExecutorService archiveExecutor;
+
+    /**
+     * Resumes the promotions that were not completed before the last shutdown.
+     */
+    void onStart(@Observes StartupEvent event) {
+        for (PromotionCheckpoint checkpoint : promotionJournal.takeRecovered()) {
+            indyExecutor.execute(MdcUtils.withMdc(checkpoint.getMdc(), () -> resume(checkpoint)));
+        }
+    }
 
     public RepositoryCreateResponse create(RepositoryCreateRequest repositoryCreateRequest)
             throws RepositoryDriverException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return doCreate(repositoryCreateRequest);
+        } finally {
+            sample.stop(meterRegistry.timer(CREATE_TIMER, "build-type", repositoryCreateRequest.getBuildType().name()));
+        }
+    }
+
+    private RepositoryCreateResponse doCreate(RepositoryCreateRequest repositoryCreateRequest)
+            throws RepositoryDriverException {
         BuildType buildType = repositoryCreateRequest.getBuildType();
         String packageType = TypeConverters.getIndyPackageTypeKey(buildType.getRepoType());
         String buildId = repositoryCreateRequest.getBuildContentId();
+        // the record is cleared, a report of the previous run must not be used
+        trackingReportCache.invalidate(buildId);
+
+        // manually initialize the tracking record, just in case (somehow) nothing gets downloaded/uploaded.
+        CompletionStage<Void> trackingInit = indyClient.initTrackingRecord(buildId);
 
         try {
-            setupBuildRepos(
-                    repositoryCreateRequest.getBuildContentId(),
-                    buildType,
-                    packageType,
-                    repositoryCreateRequest.isTempBuild(),
-                    repositoryCreateRequest.getExtraRepositories());
+            IndyAsyncClient.join(
+                    setupBuildRepos(
+                            repositoryCreateRequest.getBuildContentId(),
+                            buildType,
+                            packageType,
+                            repositoryCreateRequest.isTempBuild(),
+                            repositoryCreateRequest.getExtraRepositories()));
         } catch (IndyClientException e) {
             logger.debug("Failed to setup repository or repository group for this build");
             throw new RepositoryDriverException(
@@ -136,10 +198,7 @@ public class Driver {
         String deployUrl;
 
         try {
-            // manually initialize the tracking record, just in case (somehow) nothing gets downloaded/uploaded.
-            IndyFoloAdminClientModule foloAdminModule = indy.module(IndyFoloAdminClientModule.class);
-            foloAdminModule.clearTrackingRecord(buildId);
-            foloAdminModule.initReport(buildId);
+            IndyAsyncClient.join(trackingInit);
 
             StoreKey groupKey = new StoreKey(packageType, StoreType.group, buildId);
             downloadsUrl = indy.module(IndyFoloContentClientModule.class).trackingUrl(buildId, groupKey);
@@ -181,239 +240,321 @@ public class Driver {
         if (lifecycle.isShuttingDown()) {
             throw new StoppingException();
         }
+        promotionAdmission.checkCapacity(promoteRequest.getBuildContentId());
+        // the promotion is resumed from the journal if the driver stops before it completes
+        PromotionCheckpoint checkpoint = promotionJournal.started(promoteRequest);
+        try {
+            schedulePromotion(checkpoint);
+        } catch (RepositoryDriverException | RuntimeException e) {
+            checkpoint.completed();
+            throw e;
+        }
+    }
+
+    private void resume(PromotionCheckpoint checkpoint) {
+        RepositoryPromoteRequest promoteRequest = checkpoint.getRequest();
+        String buildContentId = promoteRequest.getBuildContentId();
+        logger.info("Resuming the promotion of {}.", buildContentId);
+        try {
+            schedulePromotion(checkpoint);
+        } catch (RepositoryDriverException | RuntimeException e) {
+            logger.error("Failed to resume the promotion.", e);
+            // removeActivePromotion is called as the last step of Driver#notifyInvoker
+            lifecycle.addActivePromotion();
+            notifyInvoker(
+                    promoteRequest.getCallback(),
+                    RepositoryPromoteResult.failed(buildContentId, e.getMessage(), ResultStatus.SYSTEM_ERROR),
+                    checkpoint);
+        }
+    }
+
+    private void schedulePromotion(PromotionCheckpoint checkpoint) throws RepositoryDriverException {
+        RepositoryPromoteRequest promoteRequest = checkpoint.getRequest();
         String buildContentId = promoteRequest.getBuildContentId();
         BuildType buildType = promoteRequest.getBuildType();
-        TrackedContentDTO report = retrieveTrackingReport(buildContentId);
+        TrackingReportCollector collector = trackingReportProcessor.newPromotionCollector(
+                promoteRequest.isTempBuild(),
+                promoteRequest.getBuildCategory(),
+                buildType.getRepoType(),
+                buildContentId);
+        if (configuration.isTrackingReportStreaming()) {
+            // the report is streamed only once admitted, its entries are charged to the budget as they are read
+            admitPromotion(promoteRequest, checkpoint, 0, budget -> {
+                try {
+                    streamTrackingReport(buildContentId, PromotionAdmission.charging(budget, collector));
+                } catch (RepositoryDriverException | PromotionRejectedException e) {
+                    logger.error("Failed collecting the tracking report.", e);
+                    notifyInvoker(
+                            promoteRequest.getCallback(),
+                            RepositoryPromoteResult.failed(buildContentId, e.getMessage(), ResultStatus.SYSTEM_ERROR),
+                            checkpoint);
+                    return;
+                }
+                doPromote(promoteRequest, collector, null, checkpoint);
+            });
+        } else {
+            TrackedContentDTO report = retrieveTrackingReport(buildContentId);
+            admitPromotion(
+                    promoteRequest,
+                    checkpoint,
+                    size(report.getDownloads()) + size(report.getUploads()),
+                    budget -> doPromote(promoteRequest, collector, report, checkpoint));
+        }
 
         // fire and forget
-        executor.runAsync(() -> {
-            try {
-                logger.info("Deleting build group {} {} ...", buildType.getRepoType(), buildContentId);
-                deleteBuildGroup(buildType.getRepoType(), buildContentId);
-            } catch (Throwable e) {
+        logger.info("Deleting build group {} {} ...", buildType.getRepoType(), buildContentId);
+        deleteBuildGroup(buildType.getRepoType(), buildContentId).whenComplete((nothing, e) -> {
+            if (e != null) {
                 logger.error("Failed to delete build group.", e);
             }
         });
+    }
 
+    /**
+     * Submits the promotion to the {@link PromotionAdmission}, the heartbeats are sent while it is queued and running.
+     *
+     * @param reportEntries entries of the already retrieved report, 0 when they are charged by the promotion
+     */
+    private void admitPromotion(
+            RepositoryPromoteRequest promoteRequest,
+            PromotionCheckpoint checkpoint,
+            int reportEntries,
+            Consumer<PromotionAdmission.EntryBudget> promotion) {
         // removeActivePromotion is called as the last step of Driver#notifyInvoker
         lifecycle.addActivePromotion();
-        // schedule promotion
-        executor.runAsync(() -> {
-            Request heartBeat = promoteRequest.getHeartBeat();
-            Runnable heartBeatSender;
-            if (heartBeat != null) {
-                heartBeatSender = heartBeatSender(heartBeat);
-            } else {
-                heartBeatSender = () -> {};
-            }
-
-            List<RepositoryArtifact> downloadedArtifacts;
-            List<RepositoryArtifact> uploadedArtifacts;
-            try {
-                downloadedArtifacts = trackingReportProcessor.collectDownloadedArtifacts(report);
-                heartBeatSender.run();
-                uploadedArtifacts = trackingReportProcessor.collectUploadedArtifacts(
-                        report,
-                        promoteRequest.isTempBuild(),
-                        promoteRequest.getBuildCategory());
-            } catch (RepositoryDriverException e) {
-                logger.error("Failed collecting downloaded or uploaded artifacts.", e);
-                String message = e.getMessage();
-                notifyInvoker(
-                        promoteRequest.getCallback(),
-                        RepositoryPromoteResult.failed(buildContentId, message, ResultStatus.SYSTEM_ERROR));
-                return;
-            }
+        // heartbeats are sent at a fixed interval while the promotion is queued and running
+        HeartbeatScheduler.Heartbeat heartbeat = heartbeatScheduler.start(promoteRequest.getHeartBeat());
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        // schedule promotion by priority and owner, rejected when the driver is saturated
+        try {
+            promotionAdmission.submit(
+                    promoteRequest.getBuildContentId(),
+                    promoteRequest.isTempBuild(),
+                    promoteRequest.getBuildCategory(),
+                    reportEntries,
+                    budget -> MdcUtils.withMdc(mdc, () -> {
+                        try {
+                            promotion.accept(budget);
+                        } catch (Throwable throwable) {
+                            logger.error("Unhanded promotion exception.", throwable);
+                            if (!lifecycle.isShuttingDown()) {
+                                // not resumed, it would most likely fail the same way
+                                checkpoint.completed();
+                            }
+                        } finally {
+                            heartbeat.close();
+                            lifecycle.removeActivePromotion();
+                        }
+                    }).run());
+        } catch (RuntimeException e) {
+            heartbeat.close();
+            lifecycle.removeActivePromotion();
+            throw e;
+        }
+    }
 
-            try {
-                // the promotion is done only after a successfully collected downloads and uploads
-                heartBeatSender.run();
-                promoteDownloads(
-                        trackingReportProcessor.collectDownloadsPromotions(report),
-                        heartBeatSender,
-                        promoteRequest.isTempBuild());
-                heartBeatSender.run();
-                promoteUploads(
-                        trackingReportProcessor.collectUploadsPromotions(
-                                report,
-                                promoteRequest.isTempBuild(),
-                                buildType.getRepoType(),
-                                buildContentId),
-                        promoteRequest.isTempBuild(),
-                        heartBeatSender);
-            } catch (RepositoryDriverException e) {
-                logger.error("Failed promoting downloaded or uploaded artifacts.", e);
-
-                notifyInvoker(
-                        promoteRequest.getCallback(),
-                        RepositoryPromoteResult.failed(buildContentId, e.getMessage(), ResultStatus.SYSTEM_ERROR));
-                return;
-            } catch (PromotionValidationException e) {
-                logger.warn("Failed promoting downloaded or uploaded artifacts.", e);
-
-                notifyInvoker(
-                        promoteRequest.getCallback(),
-                        RepositoryPromoteResult.failed(buildContentId, e.getMessage(), ResultStatus.FAILED));
-                return;
-            }
+    /**
+     * Collects the artifacts of the build, promotes them and sends the result to the invoker.
+     */
+    private void doPromote(
+            RepositoryPromoteRequest promoteRequest,
+            TrackingReportCollector collector,
+            TrackedContentDTO report,
+            PromotionCheckpoint checkpoint) {
+        String buildContentId = promoteRequest.getBuildContentId();
+        if (report != null) {
+            collector.visitReport(report);
+        }
 
-            logger.info(
-                    "Returning built artifacts / dependencies:\nUploads:\n  {}\n\nDownloads:\n  {}\n\n",
-                    StringUtils.join(uploadedArtifacts, "\n  "),
-                    StringUtils.join(downloadedArtifacts, "\n  "));
+        List<RepositoryArtifact> downloadedArtifacts;
+        List<RepositoryArtifact> uploadedArtifacts;
+        try {
+            downloadedArtifacts = collector.getDownloadedArtifacts();
+            uploadedArtifacts = collector.getUploadedArtifacts();
+            trackingReportCache.put(
+                    buildContentId,
+                    new TrackingReportAnalysis(
+                            downloadedArtifacts,
+                            uploadedArtifacts,
+                            promoteRequest.isTempBuild(),
+                            promoteRequest.getBuildCategory()));
+        } catch (RepositoryDriverException e) {
+            logger.error("Failed collecting downloaded or uploaded artifacts.", e);
+            String message = e.getMessage();
             notifyInvoker(
                     promoteRequest.getCallback(),
-                    new RepositoryPromoteResult(
-                            uploadedArtifacts,
-                            downloadedArtifacts,
-                            buildContentId,
-                            "",
-                            ResultStatus.SUCCESS));
-        }).handle((nul, throwable) -> {
-            if (throwable != null) {
-                logger.error("Unhanded promotion exception.", throwable);
-            }
-            lifecycle.removeActivePromotion();
-            return null;
-        });
-    }
+                    RepositoryPromoteResult.failed(buildContentId, message, ResultStatus.SYSTEM_ERROR),
+                    checkpoint);
+            return;
+        }
 
-    public void archive(ArchiveRequest request) throws RepositoryDriverException {
-        logger.info("Retrieving tracking report and filtering artifacts to archive.");
-        TrackedContentDTO report = retrieveTrackingReport(request.getBuildContentId());
-        List<ArchiveDownloadEntry> toArchive = trackingReportProcessor.collectArchivalArtifacts(report);
+        try {
+            // the promotion is done only after a successfully collected downloads and uploads
+            promoteDownloads(collector.getDownloadsPromotions(), promoteRequest.isTempBuild(), checkpoint);
+            promoteUploads(collector.getUploadsPromotions(), promoteRequest.isTempBuild(), checkpoint);
+        } catch (RepositoryDriverException e) {
+            logger.error("Failed promoting downloaded or uploaded artifacts.", e);
 
-        logger.info("Retrieved these artifacts {}", toArchive);
+            notifyInvoker(
+                    promoteRequest.getCallback(),
+                    RepositoryPromoteResult.failed(buildContentId, e.getMessage(), ResultStatus.SYSTEM_ERROR),
+                    checkpoint);
+            return;
+        } catch (PromotionValidationException e) {
+            logger.warn("Failed promoting downloaded or uploaded artifacts.", e);
 
-        ArchivePayload archiveRequest = ArchivePayload.builder()
-                .buildConfigId(request.getBuildConfigId())
-                .downloads(toArchive)
-                .build();
+            notifyInvoker(
+                    promoteRequest.getCallback(),
+                    RepositoryPromoteResult.failed(buildContentId, e.getMessage(), ResultStatus.FAILED),
+                    checkpoint);
+            return;
+        }
 
-        requestArchival(archiveRequest);
+        logger.info(
+                "Returning built artifacts / dependencies:\nUploads:\n  {}\n\nDownloads:\n  {}\n\n",
+                StringUtils.join(uploadedArtifacts, "\n  "),
+                StringUtils.join(downloadedArtifacts, "\n  "));
+        notifyInvoker(
+                promoteRequest.getCallback(),
+                new RepositoryPromoteResult(
+                        uploadedArtifacts,
+                        downloadedArtifacts,
+                        buildContentId,
+                        "",
+                        ResultStatus.SUCCESS),
+                checkpoint);
     }
 
-    private void requestArchival(ArchivePayload request) throws RepositoryDriverException {
-        logger.info("Invoking archive service. Request: {}", request);
-        String body;
+    private static int size(Collection<?> entries) {
+        return entries == null ? 0 : entries.size();
+    }
+
+    /**
+     * Accepts the archival, the tracking report is processed and the downloads are submitted to the archive service
+     * asynchronously. The progress is available from {@link #getArchiveStatus(String)}.
+     *
+     * @throws RepositoryDriverException when there are too many archivals in progress
+     */
+    public ArchiveStatus archive(ArchiveRequest request) throws RepositoryDriverException {
+        ArchiveStatus status = archiveSubmitter.accepted(request.getBuildContentId());
         try {
-            body = jsonMapper.writeValueAsString(request);
-        } catch (JsonProcessingException e) {
-            logger.error("Cannot serialize callback object.", e);
-            body = "";
-        }
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(configuration.getArchiveEndpoint()))
-                .POST(HttpRequest.BodyPublishers.ofString(body))
-                .timeout(Duration.ofSeconds(configuration.getHttpClientRequestTimeout()))
-                .header(AUTHORIZATION_STRING, "Bearer " + serviceTokens.getAccessToken())
-                .header(CONTENT_TYPE_STRING, "application/json");
+            archiveExecutor.execute(MdcUtils.withCurrentMdc(() -> doArchive(request, status)));
+        } catch (RejectedExecutionException e) {
+            status.failed("Too many archivals in progress.");
+            throw new RepositoryDriverException("Too many archivals in progress.", e);
+        }
+        return status;
+    }
+
+    public ArchiveStatus getArchiveStatus(String buildContentId) {
+        return archiveSubmitter.getStatus(buildContentId);
+    }
 
+    private void doArchive(ArchiveRequest request, ArchiveStatus status) {
         try {
-            HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            String buildContentId = request.getBuildContentId();
+            TrackingReportAnalysis analysis = trackingReportCache.get(buildContentId);
+            if (analysis == null) {
+                logger.info("Retrieving tracking report and filtering artifacts to archive.");
+                TrackingReportCollector collector = trackingReportProcessor.newDownloadsCollector();
+                visitTrackingReport(buildContentId, collector);
+                analysis = TrackingReportAnalysis.downloads(collector.getDownloadedArtifacts());
+                trackingReportCache.put(buildContentId, analysis);
+            }
+            List<ArchiveDownloadEntry> toArchive = trackingReportProcessor
+                    .collectArchivalArtifacts(analysis.getDownloadedArtifacts());
 
-            // Validate status code
-            validateResponse().apply(response);
+            logger.debug("Retrieved these artifacts {}", toArchive);
 
-            // on success
-            logger.info("Archival request successful, response status {}", response.statusCode());
-        } catch (IOException e) {
-            logger.warn("Archival request failed. Caught an network IO exception while invoking archive service ", e);
-            throw new RepositoryDriverException("Network IO error while invoking archive service.");
-        } catch (InterruptedException e) {
-            logger.warn("Archival request failed. The thread was interrupted in the process");
-            throw new RepositoryDriverException("The archival operation was interrupted");
+            archiveSubmitter.submit(request.getBuildConfigId(), toArchive, status);
+        } catch (RepositoryDriverException | RuntimeException e) {
+            logger.error("Archival failed.", e);
+            status.failed(e.getMessage());
         }
     }
 
-    private static void onRetry(ExecutionAttemptedEvent<HttpResponse<String>> ctx, String operation) {
-        String lastError;
-        if (ctx.getLastFailure() != null) {
-            lastError = ctx.getLastFailure().getMessage();
-        } else {
-            lastError = "";
+    /**
+     * Hands the result to the outbox and completes the promotion in the journal once the result can't be lost by a
+     * restart: as soon as it is stored by a persistent outbox, otherwise once it is delivered (or dropped). Until then
+     * the promotion is resumed and reported on the next start. A failure during the shutdown is not reported at all, it
+     * is most likely caused by the shutdown itself.
+     */
+    private void notifyInvoker(
+            Request callback,
+            RepositoryPromoteResult promoteResult,
+            PromotionCheckpoint checkpoint) {
+        if (lifecycle.isShuttingDown() && promotionJournal.isEnabled()
+                && promoteResult.getStatus() != ResultStatus.SUCCESS) {
+            logger.warn(
+                    "Promotion of {} failed during shutdown, it is resumed on the next start.",
+                    checkpoint.getRequest().getBuildContentId());
+            lifecycle.removeActivePromotion();
+            return;
         }
-        Integer lastStatus;
-        if (ctx.getLastResult() != null) {
-            lastStatus = ctx.getLastResult().statusCode();
-        } else {
-            lastStatus = null;
-        }
-        logger.warn(
-                "{} retry attempt #{}, last error: [{}], last status: [{}].",
-                operation,
-                ctx.getAttemptCount(),
-                lastError,
-                lastStatus);
+        RequestBody body = serialize(promoteResult);
+        boolean stored = configuration.isCallbackOutboxPersistent();
+        // retried with the backoff shared by all the callbacks to the same host
+        CompletionStage<Void> delivery = callbackOutbox.send(callback, body);
+        if (stored && !lifecycle.isShuttingDown()) {
+            // the stored callback is sent again after a restart
+            checkpoint.completed();
+        }
+        delivery.whenComplete((nothing, e) -> {
+            if (!stored) {
+                checkpoint.completed();
+            }
+            lifecycle.removeActivePromotion();
+        });
     }
 
-    private void notifyInvoker(Request callback, RepositoryPromoteResult promoteResult) {
-        String body;
+    private RequestBody serialize(Object value) {
         try {
-            body = jsonMapper.writeValueAsString(promoteResult);
-        } catch (JsonProcessingException e) {
-            logger.error("Cannot serialize callback object.", e);
-            body = "";
-        }
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(callback.getUri())
-                .method(callback.getMethod().name(), HttpRequest.BodyPublishers.ofString(body))
-                .timeout(Duration.ofSeconds(configuration.getHttpClientRequestTimeout()));
-        callback.getHeaders().forEach(h -> builder.header(h.getName(), h.getValue()));
-        HttpRequest request = builder.build();
-
-        RetryPolicy<HttpResponse<String>> retryPolicy = new RetryPolicy<HttpResponse<String>>()
-                .withMaxDuration(Duration.ofSeconds(configuration.getCallbackRetryDuration()))
-                .withMaxRetries(Integer.MAX_VALUE) // retry until maxDuration is reached
-                .withBackoff(
-                        configuration.getCallbackRetryDelayMsec(),
-                        configuration.getCallbackRetryMaxDelayMsec(),
-                        ChronoUnit.MILLIS)
-                .onSuccess(ctx -> logger.info("Callback sent, response status: {}.", ctx.getResult().statusCode()))
-                .onRetry(ctx -> onRetry(ctx, "Callback"))
-                .onFailure(ctx -> logger.error("Unable to send callback."))
-                .onAbort(e -> logger.warn("Callback aborted: {}.", e.getFailure().getMessage()));
-        Failsafe.with(retryPolicy)
-                .with(executor)
-                .getStageAsync(
-                        () -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                                .thenApply(validateResponse()))
-                .handle((r, t) -> {
-                    lifecycle.removeActivePromotion();
-                    return null;
-                });
+            return RequestBody.json(jsonMapper, value, configuration.isHttpClientGzipRequestBody());
+        } catch (IOException e) {
+            logger.error("Cannot serialize request body.", e);
+            return RequestBody.empty();
+        }
     }
 
     public RepositoryPromoteResult collectRepoManagerResult(
             String buildContentId,
             boolean tempBuild,
             BuildCategory buildCategory) throws RepositoryDriverException {
-        TrackedContentDTO report = retrieveTrackingReport(buildContentId);
-        try {
-            List<RepositoryArtifact> downloadedArtifacts = trackingReportProcessor.collectDownloadedArtifacts(report);
-            List<RepositoryArtifact> uploadedArtifacts = trackingReportProcessor
-                    .collectUploadedArtifacts(report, tempBuild, buildCategory);
-
-            logger.info(
-                    "Returning built artifacts / dependencies:\nUploads:\n  {}\n\nDownloads:\n  {}\n\n",
-                    StringUtils.join(uploadedArtifacts, "\n  "),
-                    StringUtils.join(downloadedArtifacts, "\n  "));
-            return new RepositoryPromoteResult(
-                    uploadedArtifacts,
-                    downloadedArtifacts,
-                    buildContentId,
-                    "",
-                    ResultStatus.SUCCESS);
-        } catch (RepositoryDriverException e) {
-            String message = e.getMessage();
-            userLog.error("Failed to collect artifacts. Error(s): {}", message);
-            return new RepositoryPromoteResult(
-                    Collections.emptyList(),
-                    Collections.emptyList(),
-                    buildContentId,
-                    message,
-                    ResultStatus.FAILED);
+        TrackingReportAnalysis analysis = trackingReportCache.get(buildContentId);
+        if (analysis == null || !analysis.hasUploadedArtifacts(tempBuild, buildCategory)) {
+            TrackingReportCollector collector = trackingReportProcessor.newResultCollector(tempBuild, buildCategory);
+            visitTrackingReport(buildContentId, collector);
+            try {
+                analysis = new TrackingReportAnalysis(
+                        collector.getDownloadedArtifacts(),
+                        collector.getUploadedArtifacts(),
+                        tempBuild,
+                        buildCategory);
+            } catch (RepositoryDriverException e) {
+                String message = e.getMessage();
+                userLog.error("Failed to collect artifacts. Error(s): {}", message);
+                return new RepositoryPromoteResult(
+                        Collections.emptyList(),
+                        Collections.emptyList(),
+                        buildContentId,
+                        message,
+                        ResultStatus.FAILED);
+            }
+            trackingReportCache.put(buildContentId, analysis);
         }
+        List<RepositoryArtifact> downloadedArtifacts = analysis.getDownloadedArtifacts();
+        List<RepositoryArtifact> uploadedArtifacts = analysis.getUploadedArtifacts();
+
+        logger.info(
+                "Returning built artifacts / dependencies:\nUploads:\n  {}\n\nDownloads:\n  {}\n\n",
+                StringUtils.join(uploadedArtifacts, "\n  "),
+                StringUtils.join(downloadedArtifacts, "\n  "));
+        return new RepositoryPromoteResult(
+                uploadedArtifacts,
+                downloadedArtifacts,
+                buildContentId,
+                "",
+                ResultStatus.SUCCESS);
     }
 
     /**
@@ -422,9 +563,14 @@ public class Driver {
      * product-level content group with which this build is associated. The group also provides a tracking target, so
      * the repository manager can keep track of downloads and uploads for the build.
      *
+     * The cleanup of the group, the re-creation of the hosted repository and the creation of the extra remote
+     * repositories run concurrently, the group is created once all are done.
+     *
      * @param packageType the package type key used by Indy
+     * @return the setup completed exceptionally in case of failure, see {@link IndyAsyncClient#join(CompletionStage)}
+     * @throws IndyClientException if the remote repositories can't be listed
      */
-    private void setupBuildRepos(
+    private CompletionStage<Void> setupBuildRepos(
             String buildContentId,
             BuildType buildType,
             String packageType,
@@ -436,49 +582,63 @@ public class Driver {
         StoreKey hostedKey = new StoreKey(packageType, StoreType.hosted, buildContentId);
 
         // if the group and repo exist, delete them and recreate them from scratch
-        IndyStoresClientModule storesModule = indy.stores();
-        if (storesModule.exists(groupKey)) {
-            storesModule.delete(groupKey, "Cleanup " + groupKey + " before build run.");
-        }
-        if (storesModule.exists(hostedKey)) {
-            HostedRepository hosted = storesModule.load(hostedKey, HostedRepository.class);
-            if (hosted.isReadonly()) {
-                hosted.setReadonly(false);
-                storesModule.update(hosted, "Make " + hostedKey + " writable before delete.");
+        CompletionStage<Void> groupCleanup = indyClient.exists(groupKey).thenCompose(exists -> {
+            if (!exists) {
+                return CompletableFuture.<Void> completedFuture(null);
             }
-            storesModule.delete(hostedKey, "Cleanup " + hostedKey + " before build run.", true);
-        }
+            return indyClient.delete(groupKey, "Cleanup " + groupKey + " before build run.", false);
+        });
+
+        CompletionStage<Void> hostedCleanup = indyClient.exists(hostedKey).thenCompose(exists -> {
+            if (!exists) {
+                return CompletableFuture.<Void> completedFuture(null);
+            }
+            return indyClient.load(hostedKey, HostedRepository.class).thenCompose(hosted -> {
+                if (!hosted.isReadonly()) {
+                    return CompletableFuture.completedFuture(true);
+                }
+                hosted.setReadonly(false);
+                return indyClient.update(hosted, "Make " + hostedKey + " writable before delete.");
+            }).thenCompose(
+                    updated -> indyClient.delete(hostedKey, "Cleanup " + hostedKey + " before build run.", true));
+        });
 
         // create build repo
-        HostedRepository buildArtifacts = new HostedRepository(packageType, buildContentId);
-        buildArtifacts.setAllowSnapshots(false);
-        buildArtifacts.setAllowReleases(true);
-
-        buildArtifacts.setDescription(String.format("Build output for PNC %s build #%s", packageType, buildContentId));
-
-        storesModule.create(
-                buildArtifacts,
-                "Creating hosted repository for " + packageType + " build: " + buildContentId + " (repo: "
-                        + buildContentId + ")",
-                HostedRepository.class);
-
-        // create build group
-        Group buildGroup = BuildGroupBuilder.builder(indy, packageType, buildContentId)
-                .withDescription(
-                        String.format(
-                                "Aggregation group for PNC %sbuild #%s",
-                                tempBuild ? "temporary " : "",
-                                buildContentId))
+        CompletionStage<HostedRepository> hostedSetup = hostedCleanup.thenCompose(nothing -> {
+            HostedRepository buildArtifacts = new HostedRepository(packageType, buildContentId);
+            buildArtifacts.setAllowSnapshots(false);
+            buildArtifacts.setAllowReleases(true);
+
+            buildArtifacts
+                    .setDescription(String.format("Build output for PNC %s build #%s", packageType, buildContentId));
+
+            return indyClient.create(
+                    buildArtifacts,
+                    "Creating hosted repository for " + packageType + " build: " + buildContentId + " (repo: "
+                            + buildContentId + ")",
+                    HostedRepository.class);
+        });
+
+        // create build group, the extra remote repositories are created meanwhile
+        String description = String
+                .format("Aggregation group for PNC %sbuild #%s", tempBuild ? "temporary " : "", buildContentId);
+        CompletionStage<Group> buildGroup = BuildGroupBuilder
+                .builder(indyClient, remoteRepositoryIndex, packageType, buildContentId)
+                .withDescription(description)
                 // build-local artifacts
                 .addConstituent(hostedKey)
                 // Global-level repos, for captured/shared artifacts and access to the outside world
                 .addGlobalConstituents(buildType, tempBuild)
                 // build-specific repos
                 .addExtraConstituents(extraDependencyRepositories)
-                .build();
+                .buildAsync();
 
+        CompletableFuture<Void> storesReady = CompletableFuture
+                .allOf(groupCleanup.toCompletableFuture(), hostedSetup.toCompletableFuture());
         String changelog = "Creating repository group for resolving artifacts (repo: " + buildContentId + ").";
-        storesModule.create(buildGroup, changelog, Group.class);
+        return buildGroup.thenCombine(storesReady, (group, nothing) -> group)
+                .thenCompose(group -> indyClient.create(group, changelog, Group.class))
+                .thenApply(group -> null);
     }
 
     /**
@@ -488,32 +648,28 @@ public class Driver {
      * @throws RepositoryDriverException in case of an unexpected error during promotion
      * @throws PromotionValidationException when the promotion process results in an error due to validation failure
      */
-    private void promoteDownloads(PromotionPaths promotionPaths, Runnable heartBeatSender, boolean tempBuild)
-            throws RepositoryDriverException, PromotionValidationException {
+    private void promoteDownloads(
+            PromotionPaths promotionPaths,
+            boolean tempBuild,
+            PromotionCheckpoint checkpoint) throws RepositoryDriverException, PromotionValidationException {
         // Promote all build dependencies NOT ALREADY CAPTURED to the hosted repository holding store for the shared
         // imports
-        for (SourceTargetPaths sourceTargetPaths : promotionPaths.getSourceTargetsPaths()) {
-            heartBeatSender.run();
-            PathsPromoteRequest request = new PathsPromoteRequest(
-                    sourceTargetPaths.getSource(),
-                    sourceTargetPaths.getTarget(),
-                    sourceTargetPaths.getPaths());
-            request.setPurgeSource(false);
+        promoteConcurrently(promotionPaths, sourceTargetPaths -> {
             // set read-only only the generic http proxy hosted repos, not shared-imports
             boolean readonly = !tempBuild && GENERIC_PKG_KEY.equals(sourceTargetPaths.getTarget().getPackageType());
 
             try {
                 userLog.info(
                         "Promoting {} dependencies from {} to {}",
-                        request.getPaths().size(),
-                        request.getSource(),
-                        request.getTarget());
-                doPromoteByPath(request, false, readonly);
+                        sourceTargetPaths.getPaths().size(),
+                        sourceTargetPaths.getSource(),
+                        sourceTargetPaths.getTarget());
+                promoteInChunks(sourceTargetPaths, true, false, readonly, checkpoint);
             } catch (RepositoryDriverException ex) {
                 userLog.error("Failed to promote by path. Error(s): {}", ex.getMessage());
                 throw ex;
             }
-        }
+        });
     }
 
     /**
@@ -524,64 +680,222 @@ public class Driver {
      *         in transport
      * @throws PromotionValidationException when the promotion process results in an error due to validation failure
      */
-    private void promoteUploads(PromotionPaths promotionPaths, boolean tempBuild, Runnable heartBeatSender)
-            throws RepositoryDriverException, PromotionValidationException {
-        for (SourceTargetPaths sourceTargetPaths : promotionPaths.getSourceTargetsPaths()) {
-            heartBeatSender.run();
+    private void promoteUploads(
+            PromotionPaths promotionPaths,
+            boolean tempBuild,
+            PromotionCheckpoint checkpoint) throws RepositoryDriverException, PromotionValidationException {
+        promoteConcurrently(promotionPaths, sourceTargetPaths -> {
             try {
-                PathsPromoteRequest request = new PathsPromoteRequest(
-                        sourceTargetPaths.getSource(),
-                        sourceTargetPaths.getTarget(),
-                        sourceTargetPaths.getPaths());
-                doPromoteByPath(request, !tempBuild, false);
+                promoteInChunks(sourceTargetPaths, false, !tempBuild, false, checkpoint);
             } catch (RepositoryDriverException | PromotionValidationException ex) {
                 userLog.error("Built artifact promotion failed. Error(s): {}", ex.getMessage());
                 throw ex;
             }
+        });
+    }
+
+    /**
+     * Promotes the source-target pairs concurrently, the pairs are independent. At most
+     * {@link Configuration#getPromotionParallelism()} pairs are promoted at the same time, once a pair fails the pairs
+     * that haven't started yet are skipped.
+     *
+     * @throws RepositoryDriverException the first unexpected error of the pairs
+     * @throws PromotionValidationException the first validation failure of the pairs
+     */
+    private void promoteConcurrently(PromotionPaths promotionPaths, PairPromotion pairPromotion)
+            throws RepositoryDriverException, PromotionValidationException {
+        Semaphore permits = new Semaphore(configuration.getPromotionParallelism());
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> promotions = new ArrayList<>();
+        // the pairs already started are joined also when the remaining pairs cannot be started
+        RepositoryDriverException notStarted = null;
+        for (SourceTargetPaths sourceTargetPaths : promotionPaths.getSourceTargetsPaths()) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                notStarted = new RepositoryDriverException("Interrupted while promoting %s.", e, sourceTargetPaths);
+                break;
+            }
+            try {
+                promotions.add(CompletableFuture.runAsync(MdcUtils.withCurrentMdc(() -> {
+                    try {
+                        if (!failed.get()) {
+                            pairPromotion.promote(sourceTargetPaths);
+                        }
+                    } catch (RepositoryDriverException | PromotionValidationException e) {
+                        failed.set(true);
+                        throw new CompletionException(e);
+                    } finally {
+                        permits.release();
+                    }
+                }), promotionExecutor));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                notStarted = new RepositoryDriverException(
+                        "Cannot start the promotion of %s. Reason: %s",
+                        e,
+                        sourceTargetPaths,
+                        e.getMessage());
+                break;
+            }
+        }
+        if (notStarted != null) {
+            failed.set(true);
+        }
+
+        Throwable failure = notStarted;
+        for (CompletableFuture<Void> promotion : promotions) {
+            try {
+                promotion.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof RepositoryDriverException) {
+            throw (RepositoryDriverException) failure;
+        } else if (failure instanceof PromotionValidationException) {
+            throw (PromotionValidationException) failure;
+        } else if (failure != null) {
+            throw new RepositoryDriverException("Unexpected promotion failure: %s", failure, failure.getMessage());
         }
     }
 
+    @FunctionalInterface
+    private interface PairPromotion {
+        void promote(SourceTargetPaths sourceTargetPaths)
+                throws RepositoryDriverException, PromotionValidationException;
+    }
+
     /**
-     * Promotes a set of artifact paths (or everything, if the path-set is missing) from a particular Indy artifact
-     * store to another, and handle the various error conditions that may arise. If the promote call fails, attempt to
-     * rollback before throwing an exception.
+     * Promotes the paths from the source to the target store in chunks of {@link Configuration#getPromotionChunkSize()}
+     * paths, so a single promotion request does not hit the client timeout. If a chunk fails, the already promoted
+     * chunks are rolled back before throwing an exception, the promotion of the paths is either complete or none.
+     * The chunks and pairs recorded in the checkpoint by a previous run are skipped, they can't be rolled back.
      *
-     * @param req The promotion request to process, which contains source and target store keys, and (optionally) the
-     *        set of paths to promote
-     * @param setTargetRO flag telling if the target repo should be set to readOnly
-     * @param setSourceRO flag telling if the source repo should be set to readOnly
+     * @param keepSource flag telling if the paths must not be purged from the source repo
+     * @param setSourceRO flag telling if the source repo should be set to readOnly, after all the chunks are promoted
+     * @param setTargetRO flag telling if the target repo should be set to readOnly, after all the chunks are promoted
+     * @param checkpoint the progress of the promotion
      * @throws RepositoryDriverException when the client API throws an exception due to something unexpected in
      *         transport
      * @throws PromotionValidationException when the promotion process results in an error due to validation failure
      */
-    private void doPromoteByPath(PathsPromoteRequest req, boolean setSourceRO, boolean setTargetRO)
-            throws RepositoryDriverException, PromotionValidationException {
-        IndyPromoteClientModule promoter;
+    private void promoteInChunks(
+            SourceTargetPaths sourceTargetPaths,
+            boolean keepSource,
+            boolean setSourceRO,
+            boolean setTargetRO,
+            PromotionCheckpoint checkpoint) throws RepositoryDriverException, PromotionValidationException {
+        if (checkpoint.isPairCompleted(sourceTargetPaths)) {
+            logger.info(
+                    "Skipping promotion from {} to {}, completed before restart.",
+                    sourceTargetPaths.getSource(),
+                    sourceTargetPaths.getTarget());
+            return;
+        }
+        List<String> paths = new ArrayList<>(sourceTargetPaths.getPaths());
+        Collections.sort(paths);
+        int chunkSize = configuration.getPromotionChunkSize();
+        List<PathsPromoteResult> promoted = new ArrayList<>();
+        List<Integer> promotedChunks = new ArrayList<>();
+        // a resumed promotion has to promote the rolled back chunks again
+        IntConsumer beforeRollback = i -> checkpoint
+                .chunkRolledBack(sourceTargetPaths, chunkSize, promotedChunks.get(i));
+        for (int from = 0; from < paths.size(); from += chunkSize) {
+            int chunkIndex = from / chunkSize;
+            if (checkpoint.isChunkPromoted(sourceTargetPaths, chunkSize, chunkIndex)) {
+                continue;
+            }
+            Set<String> chunk = new HashSet<>(paths.subList(from, Math.min(from + chunkSize, paths.size())));
+            PathsPromoteRequest req = new PathsPromoteRequest(
+                    sourceTargetPaths.getSource(),
+                    sourceTargetPaths.getTarget(),
+                    chunk);
+            if (keepSource) {
+                req.setPurgeSource(false);
+            }
+
+            PathsPromoteResult result;
+            try {
+                result = IndyAsyncClient.join(indyClient.promoteByPath(req));
+            } catch (IndyClientException e) {
+                throw withRollbackFailure(
+                        new RepositoryDriverException("Failed to promote: %s. Reason: %s", e, req, e.getMessage()),
+                        rollbackPathPromotes(promoted, beforeRollback));
+            }
+            if (!result.succeeded()) {
+                String error = getValidationError(result);
+                throw withRollbackFailure(
+                        new PromotionValidationException("Failed to promote: %s. Reason given was: %s", req, error),
+                        rollbackPathPromotes(promoted, beforeRollback));
+            }
+            promoted.add(result);
+            promotedChunks.add(chunkIndex);
+            checkpoint.chunkPromoted(sourceTargetPaths, chunkSize, chunkIndex);
+        }
+        logger.debug(
+                "Promoted {} paths from {} to {} in {} chunks.",
+                paths.size(),
+                sourceTargetPaths.getSource(),
+                sourceTargetPaths.getTarget(),
+                promoted.size());
+
         try {
-            promoter = indy.module(IndyPromoteClientModule.class);
+            if (setSourceRO) {
+                setHostedReadOnly(sourceTargetPaths.getSource(), promoted, beforeRollback);
+            }
+            if (setTargetRO) {
+                setHostedReadOnly(sourceTargetPaths.getTarget(), promoted, beforeRollback);
+            }
         } catch (IndyClientException e) {
             throw new RepositoryDriverException(
-                    "Failed to retrieve Indy promote client module. Reason: %s",
+                    "Failed to promote: %s. Reason: %s",
                     e,
+                    sourceTargetPaths.getSource(),
                     e.getMessage());
         }
+        checkpoint.pairCompleted(sourceTargetPaths);
+    }
 
-        try {
-            PathsPromoteResult result = promoter.promoteByPath(req);
-            if (result.succeeded()) {
-                if (setSourceRO) {
-                    setHostedReadOnly(req.getSource(), promoter, result);
-                }
-                if (setTargetRO) {
-                    setHostedReadOnly(req.getTarget(), promoter, result);
+    /**
+     * Rolls back the promotions in the reverse order.
+     *
+     * @param beforeRollback called with the index of each result before it is rolled back
+     * @return the first rollback failure, null if all the promotions were rolled back
+     */
+    private IndyClientException rollbackPathPromotes(List<PathsPromoteResult> results, IntConsumer beforeRollback) {
+        IndyClientException failure = null;
+        for (int i = results.size() - 1; i >= 0; i--) {
+            PathsPromoteResult result = results.get(i);
+            beforeRollback.accept(i);
+            try {
+                IndyAsyncClient.join(indyClient.rollbackPathPromote(result));
+            } catch (IndyClientException e) {
+                logger.error(
+                        "Failed to rollback the promotion of paths from {} to {}. Reason given was: {}.",
+                        result.getRequest().getSource(),
+                        result.getRequest().getTarget(),
+                        e.getMessage(),
+                        e);
+                if (failure == null) {
+                    failure = e;
                 }
-            } else {
-                String error = getValidationError(result);
-                throw new PromotionValidationException("Failed to promote: %s. Reason given was: %s", req, error);
             }
-        } catch (IndyClientException e) {
-            throw new RepositoryDriverException("Failed to promote: %s. Reason: %s", e, req, e.getMessage());
         }
+        return failure;
+    }
+
+    /**
+     * Adds the failure of the rollback to the exception, the paths promoted before the failure are left in the target.
+     */
+    private static <T extends Exception> T withRollbackFailure(T exception, IndyClientException rollbackFailure) {
+        if (rollbackFailure != null) {
+            exception.addSuppressed(rollbackFailure);
+        }
+        return exception;
     }
 
     /**
@@ -589,39 +903,26 @@ public class Driver {
      * RepositoryManagerException.
      *
      * @param key the hosted repo key to be set readonly
-     * @param promoter promote client module used for potential rollback
-     * @param result the promotion result used for potential rollback
+     * @param results the promotion results (chunks) used for potential rollback
+     * @param beforeRollback called with the index of each result before it is rolled back
      * @throws IndyClientException in case the repo data cannot be loaded
      * @throws RepositoryDriverException in case the repo update fails
      */
-    private void setHostedReadOnly(StoreKey key, IndyPromoteClientModule promoter, PathsPromoteResult result)
+    private void setHostedReadOnly(StoreKey key, List<PathsPromoteResult> results, IntConsumer beforeRollback)
             throws IndyClientException, RepositoryDriverException {
-        HostedRepository hosted = indy.stores().load(key, HostedRepository.class);
+        HostedRepository hosted = IndyAsyncClient.join(indyClient.load(key, HostedRepository.class));
         hosted.setReadonly(true);
         try {
-            indy.stores().update(hosted, "Setting readonly after successful build and promotion.");
+            IndyAsyncClient
+                    .join(indyClient.update(hosted, "Setting readonly after successful build and promotion."));
         } catch (IndyClientException ex) {
-            try {
-                promoter.rollbackPathPromote(result);
-            } catch (IndyClientException ex2) {
-                logger.error(
-                        "Failed to set readonly flag on repo: {}. Reason given was: {}.",
-                        key,
-                        ex.getMessage(),
-                        ex);
-                throw new RepositoryDriverException(
-                        "Subsequently also failed to rollback the promotion of paths from %s to %s. Reason "
-                                + "given was: %s",
-                        ex2,
-                        result.getRequest().getSource(),
-                        result.getRequest().getTarget(),
-                        ex2.getMessage());
-            }
-            throw new RepositoryDriverException(
-                    "Failed to set readonly flag on repo: %s. Reason given was: %s",
-                    ex,
-                    key,
-                    ex.getMessage());
+            throw withRollbackFailure(
+                    new RepositoryDriverException(
+                            "Failed to set readonly flag on repo: %s. Reason given was: %s",
+                            ex,
+                            key,
+                            ex.getMessage()),
+                    rollbackPathPromotes(results, beforeRollback));
         }
     }
 
@@ -670,55 +971,20 @@ public class Driver {
      * fails, to leave the group for debugging a build. All the groups are deleted by a cleaner(not part of this driver)
      * after 7 days.
      */
-    private void deleteBuildGroup(RepositoryType repositoryType, String buildContentId)
-            throws RepositoryDriverException {
-        try {
-            String packageType = TypeConverters.getIndyPackageTypeKey(repositoryType);
-            StoreKey key = new StoreKey(packageType, StoreType.group, buildContentId);
-            indy.stores().delete(key, "[Post-Build] Removing build aggregation group: " + buildContentId);
-        } catch (IndyClientException e) {
-            throw new RepositoryDriverException("Failed to retrieve Indy stores module. Reason: %s", e, e.getMessage());
-        }
-    }
-
-    private Runnable heartBeatSender(Request heartBeat) {
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(heartBeat.getUri())
-                .method(heartBeat.getMethod().name(), HttpRequest.BodyPublishers.noBody())
-                .timeout(Duration.ofSeconds(configuration.getHttpClientRequestTimeout()));
-        heartBeat.getHeaders().stream().forEach(h -> builder.header(h.getName(), h.getValue()));
-        HttpRequest request = builder.build();
-        return () -> {
-            CompletableFuture<HttpResponse<String>> response = httpClient
-                    .sendAsync(request, HttpResponse.BodyHandlers.ofString());
-            response.handleAsync((r, t) -> {
-                if (t != null) {
-                    logger.warn("Failed to send heartbeat.", t);
-                } else {
-                    logger.debug("Heartbeat sent. Response status: {}", r.statusCode());
-                }
-                return null;
-            }, executor);
-        };
+    private CompletionStage<Void> deleteBuildGroup(RepositoryType repositoryType, String buildContentId) {
+        String packageType = TypeConverters.getIndyPackageTypeKey(repositoryType);
+        StoreKey key = new StoreKey(packageType, StoreType.group, buildContentId);
+        return indyClient.delete(key, "[Post-Build] Removing build aggregation group: " + buildContentId, false);
     }
 
     public void sealTrackingReport(String buildContentId) throws RepositoryDriverException {
-        IndyFoloAdminClientModule foloAdmin;
-        try {
-            foloAdmin = indy.module(IndyFoloAdminClientModule.class);
-        } catch (IndyClientException e) {
-            throw new RepositoryDriverException(
-                    "Failed to retrieve Indy client module for the artifact tracker: %s",
-                    e,
-                    e.getMessage());
-        }
-
         try {
             userLog.info("Sealing tracking record");
-            boolean sealed = foloAdmin.sealTrackingRecord(buildContentId);
+            boolean sealed = IndyAsyncClient.join(indyClient.sealTrackingRecord(buildContentId));
             if (!sealed) {
                 throw new RepositoryDriverException("Failed to seal content-tracking record for: %s.", buildContentId);
             }
+            trackingReportCache.sealed(buildContentId);
         } catch (IndyClientException e) {
             throw new RepositoryDriverException(
                     "Failed to seal tracking report for: %s. Reason: %s",
@@ -728,10 +994,24 @@ public class Driver {
         }
     }
 
-    private TrackedContentDTO retrieveTrackingReport(String buildContentId) throws RepositoryDriverException {
-        IndyFoloAdminClientModule foloAdmin;
+    /**
+     * Passes all the tracking report entries to the visitor. In the streaming mode the entries are parsed as the report
+     * is being read, otherwise the whole report is retrieved first.
+     */
+    private void visitTrackingReport(String buildContentId, TrackedContentVisitor visitor)
+            throws RepositoryDriverException {
+        if (configuration.isTrackingReportStreaming()) {
+            streamTrackingReport(buildContentId, visitor);
+        } else {
+            visitor.visitReport(retrieveTrackingReport(buildContentId));
+        }
+    }
+
+    private void streamTrackingReport(String buildContentId, TrackedContentVisitor visitor)
+            throws RepositoryDriverException {
+        IndyFoloReportClientModule foloReport;
         try {
-            foloAdmin = indy.module(IndyFoloAdminClientModule.class);
+            foloReport = indy.module(IndyFoloReportClientModule.class);
         } catch (IndyClientException e) {
             throw new RepositoryDriverException(
                     "Failed to retrieve Indy client module for the artifact tracker: %s",
@@ -739,10 +1019,26 @@ public class Driver {
                     e.getMessage());
         }
 
+        userLog.info("Streaming tracking report");
+        try (InputStream stream = foloReport.openTrackingReport(buildContentId)) {
+            if (stream == null) {
+                throw new RepositoryDriverException("Failed to retrieve tracking report for: %s.", buildContentId);
+            }
+            trackingReportReader.read(stream, visitor);
+        } catch (IndyClientException | IOException e) {
+            throw new RepositoryDriverException(
+                    "Failed to retrieve tracking report for: %s. Reason: %s",
+                    e,
+                    buildContentId,
+                    e.getMessage());
+        }
+    }
+
+    private TrackedContentDTO retrieveTrackingReport(String buildContentId) throws RepositoryDriverException {
         TrackedContentDTO report;
         try {
             userLog.info("Getting tracking report");
-            report = foloAdmin.getTrackingReport(buildContentId);
+            report = IndyAsyncClient.join(indyClient.getTrackingReport(buildContentId));
         } catch (IndyClientException e) {
             throw new RepositoryDriverException(
                     "Failed to retrieve tracking report for: %s. Reason: %s",
@@ -755,14 +1051,4 @@ public class Driver {
         }
         return report;
     }
-
-    private Function<HttpResponse<String>, HttpResponse<String>> validateResponse() {
-        return response -> {
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                return response;
-            } else {
-                throw new FailedResponseException("Response status code: " + response.statusCode());
-            }
-        };
-    }
 }
@@ -0,0 +1,218 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Named, independently sized pools of the workloads, so one workload can't starve another. Each pool has a bounded
+ * queue and publishes its active threads, queue depth and task timings as the executor metrics tagged by the pool
+ * name.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class ExecutorPools {
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Blocking Indy calls of the REST endpoints, so a burst of requests queues up here instead of exhausting the worker
+     * threads.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.INDY)
+    ExecutorService createIndyExecutor() {
+        return createPool(Pool.INDY, configuration.getIndyPoolSize(), configuration.getIndyPoolQueueSize());
+    }
+
+    /**
+     * Calls of the {@link IndyAsyncClient}.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.INDY_CLIENT)
+    ExecutorService createIndyClientExecutor() {
+        return createPool(
+                Pool.INDY_CLIENT,
+                configuration.getIndyClientPoolSize(),
+                configuration.getIndyClientPoolQueueSize());
+    }
+
+    /**
+     * Admitted promotions, the tracking report processing.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.PROCESSING)
+    ExecutorService createProcessingExecutor() {
+        return createPool(
+                Pool.PROCESSING,
+                configuration.getProcessingPoolSize(),
+                configuration.getProcessingPoolQueueSize());
+    }
+
+    /**
+     * Collection of the large tracking reports split into chunks, it doesn't share the common pool with the parallel
+     * streams of the libraries. Not proxied, the final methods of the pool have to run on the pool itself.
+     */
+    @Produces
+    @Singleton
+    @Pool(Pool.COLLECTION)
+    ForkJoinPool createCollectionPool() {
+        int size = configuration.getCollectionPoolSize();
+        ForkJoinPool pool = new ForkJoinPool(
+                size > 0 ? size : Runtime.getRuntime().availableProcessors(),
+                forkJoinThreadFactory(Pool.COLLECTION),
+                null,
+                false);
+        new ExecutorServiceMetrics(pool, Pool.COLLECTION, Tags.empty()).bindTo(meterRegistry);
+        return pool;
+    }
+
+    /**
+     * Promotions of the source-target pairs, they wait for the chunks promoted by the {@link IndyAsyncClient}.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.PROMOTION)
+    ExecutorService createPromotionExecutor() {
+        return createPool(
+                Pool.PROMOTION,
+                configuration.getPromotionPoolSize(),
+                configuration.getPromotionPoolQueueSize());
+    }
+
+    /**
+     * Accepted archivals, the tracking report processing and the submission of the pages.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.ARCHIVE)
+    ExecutorService createArchiveExecutor() {
+        return createPool(Pool.ARCHIVE, configuration.getArchivePoolSize(), configuration.getArchivePoolQueueSize());
+    }
+
+    /**
+     * Requests of the archive service and their retries, its HTTP client. The archivals wait for them on the
+     * {@link Pool#ARCHIVE} pool.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.ARCHIVE_SUBMISSION)
+    ExecutorService createArchiveSubmissionExecutor() {
+        return createPool(
+                Pool.ARCHIVE_SUBMISSION,
+                configuration.getArchiveSubmissionPoolSize(),
+                configuration.getArchiveSubmissionPoolQueueSize());
+    }
+
+    /**
+     * Callbacks and their retries, their HTTP client.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.CALLBACK)
+    ExecutorService createCallbackExecutor() {
+        return createPool(Pool.CALLBACK, configuration.getCallbackPoolSize(), configuration.getCallbackPoolQueueSize());
+    }
+
+    /**
+     * Heartbeats, their HTTP client. A backlog of callbacks or archive requests doesn't delay them.
+     */
+    @Produces
+    @ApplicationScoped
+    @Pool(Pool.HEARTBEAT)
+    ExecutorService createHeartbeatExecutor() {
+        return createPool(
+                Pool.HEARTBEAT,
+                configuration.getHeartbeatPoolSize(),
+                configuration.getHeartbeatPoolQueueSize());
+    }
+
+    void shutdownIndyExecutor(@Disposes @Pool(Pool.INDY) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownIndyClientExecutor(@Disposes @Pool(Pool.INDY_CLIENT) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownProcessingExecutor(@Disposes @Pool(Pool.PROCESSING) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownCollectionPool(@Disposes @Pool(Pool.COLLECTION) ForkJoinPool pool) {
+        pool.shutdown();
+    }
+
+    void shutdownPromotionExecutor(@Disposes @Pool(Pool.PROMOTION) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownArchiveExecutor(@Disposes @Pool(Pool.ARCHIVE) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownArchiveSubmissionExecutor(@Disposes @Pool(Pool.ARCHIVE_SUBMISSION) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownCallbackExecutor(@Disposes @Pool(Pool.CALLBACK) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    void shutdownHeartbeatExecutor(@Disposes @Pool(Pool.HEARTBEAT) ExecutorService executor) {
+        executor.shutdown();
+    }
+
+    private ExecutorService createPool(String name, int size, int queueSize) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                size,
+                size,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize),
+                threadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, pool, name);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "repository-driver-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinThreadFactory(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("repository-driver-" + name + "-" + threads.incrementAndGet());
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.jboss.pnc.api.dto.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the heartbeats of the active promotions at the fixed {@link Configuration#getHeartbeatInterval()}. The
+ * promotions with the same heartbeat endpoint share one schedule and a heartbeat is not sent while the previous one to
+ * the same endpoint is still in flight.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class HeartbeatScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatScheduler.class);
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    @Pool(Pool.HEARTBEAT)
+    HttpClient httpClient;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-driver-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Starts sending the heartbeats until the returned heartbeat is closed.
+     *
+     * @param heartBeat the heartbeat request, when null no heartbeat is sent
+     */
+    public Heartbeat start(Request heartBeat) {
+        if (heartBeat == null) {
+            return () -> {};
+        }
+        String key = heartBeat.getMethod() + " " + heartBeat.getUri();
+        endpoints.compute(key, (k, endpoint) -> {
+            if (endpoint == null) {
+                endpoint = new Endpoint(toHttpRequest(heartBeat));
+                long interval = configuration.getHeartbeatInterval().toMillis();
+                endpoint.schedule = scheduler
+                        .scheduleAtFixedRate(endpoint::send, 0, interval, TimeUnit.MILLISECONDS);
+            }
+            endpoint.promotions++;
+            return endpoint;
+        });
+        AtomicBoolean stopped = new AtomicBoolean();
+        return () -> {
+            if (stopped.compareAndSet(false, true)) {
+                stop(key);
+            }
+        };
+    }
+
+    private void stop(String key) {
+        endpoints.computeIfPresent(key, (k, endpoint) -> {
+            endpoint.promotions--;
+            if (endpoint.promotions > 0) {
+                return endpoint;
+            }
+            endpoint.schedule.cancel(false);
+            return null;
+        });
+    }
+
+    private HttpRequest toHttpRequest(Request heartBeat) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(heartBeat.getUri())
+                .method(heartBeat.getMethod().name(), HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(configuration.getHttpClientRequestTimeout()));
+        heartBeat.getHeaders().forEach(h -> builder.header(h.getName(), h.getValue()));
+        return builder.build();
+    }
+
+    /**
+     * Heartbeat of a promotion, closing it stops the heartbeat.
+     */
+    @FunctionalInterface
+    public interface Heartbeat extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private class Endpoint {
+
+        private final HttpRequest request;
+
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+
+        /** Number of the promotions sharing the endpoint, guarded by the endpoints map. */
+        private int promotions;
+
+        private ScheduledFuture<?> schedule;
+
+        Endpoint(HttpRequest request) {
+            this.request = request;
+        }
+
+        void send() {
+            if (!inFlight.compareAndSet(false, true)) {
+                logger.debug("Previous heartbeat to {} is still in flight.", request.uri());
+                return;
+            }
+            try {
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+                    inFlight.set(false);
+                    if (e != null) {
+                        logger.warn("Failed to send heartbeat.", e);
+                    } else {
+                        logger.debug("Heartbeat sent. Response status: {}", response.statusCode());
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.set(false);
+                logger.warn("Failed to send heartbeat.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.commonjava.indy.client.core.Indy;
+import org.commonjava.indy.client.core.IndyClientException;
+import org.commonjava.indy.client.core.module.IndyStoresClientModule;
+import org.commonjava.indy.folo.client.IndyFoloAdminClientModule;
+import org.commonjava.indy.folo.dto.TrackedContentDTO;
+import org.commonjava.indy.model.core.ArtifactStore;
+import org.commonjava.indy.model.core.StoreKey;
+import org.commonjava.indy.promote.client.IndyPromoteClientModule;
+import org.commonjava.indy.promote.model.PathsPromoteRequest;
+import org.commonjava.indy.promote.model.PathsPromoteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous facade of the Indy stores, promote and folo admin modules. Each call runs on the dedicated
+ * {@link Pool#INDY_CLIENT} executor with the MDC of the caller and fails with {@link IndyClientException} or with
+ * {@link TimeoutException} when it doesn't complete within the timeout of its module.
+ * The timeout only releases the caller, the blocking request is not aborted. It goes on in the background, holding its
+ * pool thread and connection, until Indy responds or the client request timeout expires. A stores timeout longer than
+ * the request timeout is reported at the startup, see {@link Configuration#getIndyStoresTimeout()}. The promote calls
+ * have no timeout of their own, so their failure is always the failure of the request.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class IndyAsyncClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndyAsyncClient.class);
+
+    @Inject
+    Indy indy;
+
+    @Inject
+    @Pool(Pool.INDY_CLIENT)
+    Executor executor;
+
+    @Inject
+    Configuration configuration;
+
+    @PostConstruct
+    void init() {
+        Duration requestTimeout = Duration.ofSeconds(configuration.getIndyClientRequestTimeout());
+        Duration storesTimeout = configuration.getIndyStoresTimeout();
+        if (storesTimeout.compareTo(requestTimeout) > 0) {
+            logger.warn(
+                    "The stores timeout {} is longer than the Indy client request timeout {}, the calls fail after {}.",
+                    storesTimeout,
+                    requestTimeout,
+                    requestTimeout);
+        }
+    }
+
+    /**
+     * @return the blocking stores module, for the callers that have to list the stores
+     */
+    public IndyStoresClientModule stores() throws IndyClientException {
+        return indy.stores();
+    }
+
+    public CompletionStage<Boolean> exists(StoreKey key) {
+        return call(configuration.getIndyStoresTimeout(), () -> indy.stores().exists(key));
+    }
+
+    public <T extends ArtifactStore> CompletionStage<T> load(StoreKey key, Class<T> type) {
+        return call(configuration.getIndyStoresTimeout(), () -> indy.stores().load(key, type));
+    }
+
+    public <T extends ArtifactStore> CompletionStage<T> create(T store, String changelog, Class<T> type) {
+        return call(configuration.getIndyStoresTimeout(), () -> indy.stores().create(store, changelog, type));
+    }
+
+    public <T extends ArtifactStore> CompletionStage<Boolean> update(T store, String changelog) {
+        return call(configuration.getIndyStoresTimeout(), () -> indy.stores().update(store, changelog));
+    }
+
+    public CompletionStage<Void> delete(StoreKey key, String changelog, boolean deleteContent) {
+        return call(configuration.getIndyStoresTimeout(), () -> {
+            indy.stores().delete(key, changelog, deleteContent);
+            return null;
+        });
+    }
+
+    /**
+     * Completes only with the response or with the failure of the request. A timeout of the future alone would leave
+     * the request running, and a chunk promoted after it would be missing in the rollback.
+     */
+    public CompletionStage<PathsPromoteResult> promoteByPath(PathsPromoteRequest request) {
+        return call(() -> indy.module(IndyPromoteClientModule.class).promoteByPath(request));
+    }
+
+    /**
+     * Completes only with the response or with the failure of the request, see {@link #promoteByPath}.
+     */
+    public CompletionStage<PathsPromoteResult> rollbackPathPromote(PathsPromoteResult result) {
+        return call(() -> indy.module(IndyPromoteClientModule.class).rollbackPathPromote(result));
+    }
+
+    /**
+     * Clears the tracking record and initializes an empty one.
+     */
+    public CompletionStage<Void> initTrackingRecord(String trackingId) {
+        return call(configuration.getIndyTrackingTimeout(), () -> {
+            IndyFoloAdminClientModule foloAdmin = indy.module(IndyFoloAdminClientModule.class);
+            foloAdmin.clearTrackingRecord(trackingId);
+            foloAdmin.initReport(trackingId);
+            return null;
+        });
+    }
+
+    public CompletionStage<Boolean> sealTrackingRecord(String trackingId) {
+        return call(
+                configuration.getIndyTrackingTimeout(),
+                () -> indy.module(IndyFoloAdminClientModule.class).sealTrackingRecord(trackingId));
+    }
+
+    public CompletionStage<TrackedContentDTO> getTrackingReport(String trackingId) {
+        return call(
+                configuration.getIndyTrackingTimeout(),
+                () -> indy.module(IndyFoloAdminClientModule.class).getTrackingReport(trackingId));
+    }
+
+    /**
+     * Waits for the Indy operation(s) to complete.
+     *
+     * @throws IndyClientException if the operation failed or timed out
+     */
+    public static <T> T join(CompletionStage<T> operation) throws IndyClientException {
+        try {
+            return operation.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IndyClientException) {
+                throw (IndyClientException) cause;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new IndyClientException("Indy operation timed out.", cause);
+            }
+            throw e;
+        }
+    }
+
+    private <T> CompletionStage<T> call(Duration timeout, IndyCall<T> call) {
+        return call(call).toCompletableFuture().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> CompletionStage<T> call(IndyCall<T> call) {
+        Executor withMdc = task -> executor.execute(MdcUtils.withCurrentMdc(task));
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (IndyClientException e) {
+                throw new CompletionException(e);
+            }
+        }, withMdc);
+    }
+
+    @FunctionalInterface
+    private interface IndyCall<T> {
+        T call() throws IndyClientException;
+    }
+}
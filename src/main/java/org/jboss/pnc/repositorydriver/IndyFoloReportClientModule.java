@@ -0,0 +1,60 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.commonjava.indy.client.core.IndyClientException;
+import org.commonjava.indy.client.core.IndyClientModule;
+import org.commonjava.indy.client.core.helper.HttpResources;
+
+/**
+ * Gives access to the raw folo tracking report, so it can be parsed as a stream instead of being deserialized into a
+ * TrackedContentDTO as IndyFoloAdminClientModule#getTrackingReport does.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class IndyFoloReportClientModule extends IndyClientModule {
+
+    private static final String FOLO_ADMIN_PATH = "folo/admin";
+
+    /**
+     * Opens the sealed tracking report. The returned stream has to be closed to release the connection.
+     *
+     * @param trackingId tracking id of the build
+     * @return the stream of JSON report or null if there is no such report
+     * @throws IndyClientException when the request fails
+     */
+    public InputStream openTrackingReport(String trackingId) throws IndyClientException {
+        HttpResources resources = http.getRaw(FOLO_ADMIN_PATH + "/" + trackingId + "/report");
+        try {
+            if (resources.getStatusCode() != 200) {
+                int status = resources.getStatusCode();
+                resources.close();
+                if (status == 404) {
+                    return null;
+                }
+                throw new IndyClientException(
+                        "Failed to retrieve tracking report for: %s. Status: %s",
+                        trackingId,
+                        status);
+            }
+            return new FilterInputStream(resources.getResponseStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        resources.close();
+                    }
+                }
+            };
+        } catch (IOException e) {
+            throw new IndyClientException(
+                    "Failed to read tracking report for: %s. Reason: %s",
+                    e,
+                    trackingId,
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteRequest;
+
+/**
+ * Line of the {@link PromotionJournal}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JournalEntry {
+
+    public enum Type {
+        /** The promotion was accepted, the entry holds the request. */
+        STARTED,
+        /** A chunk of paths of a source-target pair was promoted. */
+        CHUNK,
+        /** A promoted chunk is being rolled back, it has to be promoted again. */
+        ROLLBACK,
+        /** All the chunks of a source-target pair were promoted and the repositories were set read-only. */
+        PAIR,
+        /** The promotion finished, successfully or not. */
+        COMPLETED
+    }
+
+    private Type type;
+
+    private String buildContentId;
+
+    private RepositoryPromoteRequest request;
+
+    private Map<String, String> mdc;
+
+    private String source;
+
+    private String target;
+
+    private Integer chunkSize;
+
+    private Integer chunk;
+
+    static JournalEntry started(RepositoryPromoteRequest request, Map<String, String> mdc) {
+        JournalEntry entry = of(Type.STARTED, request.getBuildContentId());
+        entry.request = request;
+        entry.mdc = mdc;
+        return entry;
+    }
+
+    static JournalEntry chunk(String buildContentId, SourceTargetPaths pair, int chunkSize, int chunk) {
+        JournalEntry entry = pair(buildContentId, pair);
+        entry.type = Type.CHUNK;
+        entry.chunkSize = chunkSize;
+        entry.chunk = chunk;
+        return entry;
+    }
+
+    static JournalEntry rollback(String buildContentId, SourceTargetPaths pair, int chunkSize, int chunk) {
+        JournalEntry entry = chunk(buildContentId, pair, chunkSize, chunk);
+        entry.type = Type.ROLLBACK;
+        return entry;
+    }
+
+    static JournalEntry pair(String buildContentId, SourceTargetPaths pair) {
+        JournalEntry entry = of(Type.PAIR, buildContentId);
+        entry.source = pair.getSource().toString();
+        entry.target = pair.getTarget().toString();
+        return entry;
+    }
+
+    static JournalEntry completed(String buildContentId) {
+        return of(Type.COMPLETED, buildContentId);
+    }
+
+    private static JournalEntry of(Type type, String buildContentId) {
+        JournalEntry entry = new JournalEntry();
+        entry.type = type;
+        entry.buildContentId = buildContentId;
+        return entry;
+    }
+}
@@ -11,6 +11,9 @@ import org.slf4j.MDC;
  */
 public class MdcUtils {
 
+    private static final MDCHeaderKeys[] HEADER_KEYS = { MDCHeaderKeys.PROCESS_CONTEXT, MDCHeaderKeys.TMP,
+            MDCHeaderKeys.EXP, MDCHeaderKeys.USER_ID };
+
     public static void putMdcToResultMap(
             Map<String, String> result,
             Map<String, String> mdcMap,
@@ -34,4 +37,48 @@ public class MdcUtils {
         putMdcToResultMap(result, mdcMap, MDCHeaderKeys.USER_ID);
         return result;
     }
+
+    /**
+     * @return the MDC values of the current thread that are present, keyed by their header names
+     */
+    public static Map<String, String> mdcToHeaders() {
+        Map<String, String> result = new HashMap<>();
+        for (MDCHeaderKeys mdcHeaderKeys : HEADER_KEYS) {
+            String value = MDC.get(mdcHeaderKeys.getMdcKey());
+            if (value != null) {
+                result.put(mdcHeaderKeys.getHeaderName(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wraps the task to run with the MDC of the calling thread.
+     */
+    public static Runnable withCurrentMdc(Runnable task) {
+        return withMdc(MDC.getCopyOfContextMap(), task);
+    }
+
+    /**
+     * Wraps the task to run with the given MDC.
+     */
+    public static Runnable withMdc(Map<String, String> mdcMap, Runnable task) {
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContextMap(mdcMap);
+            try {
+                task.run();
+            } finally {
+                setContextMap(previous);
+            }
+        };
+    }
+
+    private static void setContextMap(Map<String, String> mdcMap) {
+        if (mdcMap == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(mdcMap);
+        }
+    }
 }
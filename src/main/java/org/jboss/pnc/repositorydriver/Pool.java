@@ -0,0 +1,52 @@
+package org.jboss.pnc.repositorydriver;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.inject.Qualifier;
+
+/**
+ * Qualifies a dedicated executor, or the HTTP client running on it, by the name of its pool.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@Qualifier
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD, PARAMETER, TYPE })
+public @interface Pool {
+
+    /** Bounded pool running the blocking Indy calls of the REST endpoints. */
+    String INDY = "indy";
+
+    /** Bounded pool of the {@link IndyAsyncClient} calls. */
+    String INDY_CLIENT = "indy-client";
+
+    /** Pool of the admitted promotions, processing the tracking reports. */
+    String PROCESSING = "processing";
+
+    /** Fork-join pool collecting the artifacts and the promotion paths of the large tracking reports. */
+    String COLLECTION = "collection";
+
+    /** Pool of the source-target pair promotions. */
+    String PROMOTION = "promotion";
+
+    /** Pool of the accepted archivals, processing the tracking reports. */
+    String ARCHIVE = "archive";
+
+    /** Pool of the archive service requests, their retries and the HTTP client sending them. */
+    String ARCHIVE_SUBMISSION = "archive-submission";
+
+    /** Pool of the callbacks, their retries and the HTTP client sending them. */
+    String CALLBACK = "callback";
+
+    /** Pool of the heartbeats and the HTTP client sending them. */
+    String HEARTBEAT = "heartbeat";
+
+    String value();
+}
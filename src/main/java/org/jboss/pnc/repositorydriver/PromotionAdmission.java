@@ -0,0 +1,273 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jboss.pnc.api.constants.MDCHeaderKeys;
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.repositorydriver.PromotionQueue.QueuedPromotion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Admission control of the promotions. At most {@link Configuration#getPromotionMaxActive()} promotions run at the
+ * same time, up to {@link Configuration#getPromotionMaxQueued()} wait for a free slot and the tracking report entries
+ * held by all of them must fit into {@link Configuration#getPromotionMaxEntries()}. A promotion that doesn't fit is
+ * rejected with {@link PromotionRejectedException}, a single report over the budget is admitted only when there is no
+ * other promotion. The waiting promotions are scheduled by the {@link PromotionQueue}.
+ * <p>
+ * A promotion streaming its report is admitted before the report is read, it charges the entries to the budget while
+ * reading them, see {@link #charging(EntryBudget, TrackedContentVisitor)}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class PromotionAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionAdmission.class);
+
+    /** Entries charged at once by {@link #charging(EntryBudget, TrackedContentVisitor)}. */
+    static final int CHARGED_ENTRIES = 1000;
+
+    @Inject
+    @Pool(Pool.PROCESSING)
+    ExecutorService executor;
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final PromotionQueue waiting = new PromotionQueue();
+
+    private final Map<String, Integer> activeByOwner = new HashMap<>();
+
+    private int active;
+
+    private long entries;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("repository-driver.promotions.active", this, PromotionAdmission::getActive);
+        meterRegistry.gauge("repository-driver.promotions.queued", this, PromotionAdmission::getQueued);
+        meterRegistry.gauge("repository-driver.promotions.entries", this, PromotionAdmission::getEntries);
+    }
+
+    /**
+     * Cheap check before the tracking report is retrieved, so the report of a promotion that can't be queued is not
+     * read at all.
+     *
+     * @throws PromotionRejectedException when the wait queue is full
+     */
+    public synchronized void checkCapacity(String buildContentId) {
+        if (isQueueFull()) {
+            throw reject("No capacity to promote %s, %d promotions are queued.", buildContentId, waiting.size());
+        }
+    }
+
+    /**
+     * Runs the promotion once a slot is free. The promotion is owned by the user or the process context of the calling
+     * thread's MDC.
+     *
+     * @param reportEntries number of the tracking report entries held by the promotion until it completes
+     * @throws PromotionRejectedException when the wait queue is full or the entries don't fit into the budget
+     */
+    public void submit(
+            String buildContentId,
+            boolean tempBuild,
+            BuildCategory buildCategory,
+            int reportEntries,
+            Runnable promotion) {
+        submit(buildContentId, tempBuild, buildCategory, reportEntries, budget -> promotion.run());
+    }
+
+    /**
+     * Runs the promotion once a slot is free, the promotion charges the entries it reads to the given budget.
+     *
+     * @param reportEntries number of the tracking report entries known before the promotion is admitted
+     * @throws PromotionRejectedException when the wait queue is full or the entries don't fit into the budget
+     */
+    public synchronized void submit(
+            String buildContentId,
+            boolean tempBuild,
+            BuildCategory buildCategory,
+            int reportEntries,
+            Consumer<EntryBudget> promotion) {
+        if (isQueueFull()) {
+            throw reject("No capacity to promote %s, %d promotions are queued.", buildContentId, waiting.size());
+        }
+        if (entries > 0 && entries + reportEntries > configuration.getPromotionMaxEntries()) {
+            throw reject(
+                    "No capacity to promote %s with %d entries, the promotions hold %d entries.",
+                    buildContentId,
+                    reportEntries,
+                    entries);
+        }
+        Charge charge = new Charge();
+        QueuedPromotion queued = new QueuedPromotion(
+                buildContentId,
+                currentOwner(),
+                PromotionQueue.priority(tempBuild, buildCategory),
+                reportEntries,
+                () -> promotion.accept(charge));
+        charge.promotion = queued;
+        entries += reportEntries;
+        if (active < configuration.getPromotionMaxActive()) {
+            try {
+                start(queued);
+            } catch (RuntimeException e) {
+                entries -= reportEntries;
+                throw e;
+            }
+        } else {
+            logger.info("Promotion of {} is queued, {} promotions are active.", buildContentId, active);
+            waiting.add(queued);
+        }
+    }
+
+    /**
+     * Wraps the visitor to charge the entries to the budget before they are visited, in batches of
+     * {@link #CHARGED_ENTRIES}. The entries of the last batch are charged in advance, they are released with the rest
+     * once the promotion completes.
+     */
+    static TrackedContentVisitor charging(EntryBudget budget, TrackedContentVisitor visitor) {
+        return new TrackedContentVisitor() {
+
+            private int uncharged;
+
+            @Override
+            public void visitDownload(TrackedContentEntryDTO download) {
+                charge();
+                visitor.visitDownload(download);
+            }
+
+            @Override
+            public void visitUpload(TrackedContentEntryDTO upload) {
+                charge();
+                visitor.visitUpload(upload);
+            }
+
+            private void charge() {
+                if (uncharged == 0) {
+                    budget.charge(CHARGED_ENTRIES);
+                    uncharged = CHARGED_ENTRIES;
+                }
+                uncharged--;
+            }
+        };
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    public synchronized long getEntries() {
+        return entries;
+    }
+
+    private synchronized void charge(QueuedPromotion promotion, int count) {
+        if (entries > promotion.getEntries() && entries + count > configuration.getPromotionMaxEntries()) {
+            throw reject(
+                    "No capacity to collect %s, it holds %d entries and the promotions hold %d entries.",
+                    promotion.getBuildContentId(),
+                    promotion.getEntries(),
+                    entries);
+        }
+        entries += count;
+        promotion.addEntries(count);
+    }
+
+    private synchronized void completed(QueuedPromotion promotion) {
+        active--;
+        entries -= promotion.getEntries();
+        activeByOwner.computeIfPresent(promotion.getOwner(), (owner, count) -> count > 1 ? count - 1 : null);
+        QueuedPromotion next = waiting.poll(
+                activeByOwner,
+                configuration.isPromotionShortestFirst(),
+                configuration.getPromotionAging().toNanos());
+        if (next != null) {
+            try {
+                start(next);
+            } catch (RuntimeException e) {
+                entries -= next.getEntries();
+                logger.error("Failed to start the queued promotion of {}.", next.getBuildContentId(), e);
+            }
+        }
+    }
+
+    private void start(QueuedPromotion promotion) {
+        Runnable task = () -> {
+            try {
+                promotion.getTask().run();
+            } finally {
+                completed(promotion);
+            }
+        };
+        active++;
+        activeByOwner.merge(promotion.getOwner(), 1, Integer::sum);
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            active--;
+            activeByOwner.computeIfPresent(promotion.getOwner(), (owner, count) -> count > 1 ? count - 1 : null);
+            throw e;
+        }
+    }
+
+    private boolean isQueueFull() {
+        return active >= configuration.getPromotionMaxActive()
+                && waiting.size() >= configuration.getPromotionMaxQueued();
+    }
+
+    private PromotionRejectedException reject(String format, Object... params) {
+        return new PromotionRejectedException(String.format(format, params), configuration.getPromotionRetryAfter());
+    }
+
+    private static String currentOwner() {
+        String userId = MDC.get(MDCHeaderKeys.USER_ID.getMdcKey());
+        if (userId != null && !userId.isEmpty()) {
+            return userId;
+        }
+        String processContext = MDC.get(MDCHeaderKeys.PROCESS_CONTEXT.getMdcKey());
+        return processContext == null ? "" : processContext;
+    }
+
+    /**
+     * Entries of the tracking report held by a running promotion.
+     */
+    @FunctionalInterface
+    public interface EntryBudget {
+
+        /**
+         * Adds the entries to the ones held by the promotion. A promotion over the budget is let to continue only when
+         * no other promotion holds any entries.
+         *
+         * @throws PromotionRejectedException when the entries don't fit into the budget
+         */
+        void charge(int count);
+    }
+
+    private class Charge implements EntryBudget {
+
+        private QueuedPromotion promotion;
+
+        @Override
+        public void charge(int count) {
+            PromotionAdmission.this.charge(promotion, count);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteRequest;
+
+/**
+ * Progress of a promotion recorded in the {@link PromotionJournal}: the promoted chunks and the completed
+ * source-target pairs. A resumed promotion skips them. A chunk is recorded as rolled back before its rollback starts,
+ * so a promotion resumed after a crash in the middle of a rollback promotes the chunk again rather than skipping it.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class PromotionCheckpoint {
+
+    private final PromotionJournal journal;
+
+    private final RepositoryPromoteRequest request;
+
+    private final Map<String, String> mdc;
+
+    private final Set<String> promotedChunks = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> completedPairs = ConcurrentHashMap.newKeySet();
+
+    private final Queue<JournalEntry> progress = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param journal the journal to record the progress to, null if the progress is not recorded
+     */
+    PromotionCheckpoint(PromotionJournal journal, RepositoryPromoteRequest request, Map<String, String> mdc) {
+        this.journal = journal;
+        this.request = request;
+        this.mdc = mdc == null ? Collections.emptyMap() : mdc;
+    }
+
+    public RepositoryPromoteRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the MDC of the promote request
+     */
+    public Map<String, String> getMdc() {
+        return mdc;
+    }
+
+    public boolean isPairCompleted(SourceTargetPaths pair) {
+        return completedPairs.contains(pairKey(pair.getSource().toString(), pair.getTarget().toString()));
+    }
+
+    public void pairCompleted(SourceTargetPaths pair) {
+        record(JournalEntry.pair(request.getBuildContentId(), pair));
+    }
+
+    /**
+     * The chunks are identified by their index within the sorted paths of the pair and by the chunk size.
+     */
+    public boolean isChunkPromoted(SourceTargetPaths pair, int chunkSize, int chunk) {
+        return promotedChunks.contains(
+                chunkKey(pair.getSource().toString(), pair.getTarget().toString(), chunkSize, chunk));
+    }
+
+    public void chunkPromoted(SourceTargetPaths pair, int chunkSize, int chunk) {
+        record(JournalEntry.chunk(request.getBuildContentId(), pair, chunkSize, chunk));
+    }
+
+    /**
+     * To be called before the chunk is rolled back.
+     */
+    public void chunkRolledBack(SourceTargetPaths pair, int chunkSize, int chunk) {
+        record(JournalEntry.rollback(request.getBuildContentId(), pair, chunkSize, chunk));
+    }
+
+    /**
+     * Marks the promotion as finished, it is not resumed any more.
+     */
+    public void completed() {
+        if (journal != null) {
+            journal.completed(this);
+        }
+    }
+
+    private void record(JournalEntry entry) {
+        replay(entry);
+        if (journal != null) {
+            journal.append(entry);
+        }
+    }
+
+    void replay(JournalEntry entry) {
+        switch (entry.getType()) {
+            case CHUNK:
+                promotedChunks.add(chunkKey(entry));
+                progress.add(entry);
+                break;
+            case ROLLBACK:
+                String rolledBack = chunkKey(entry);
+                promotedChunks.remove(rolledBack);
+                // the compacted journal doesn't need the entries that cancel each other
+                progress.removeIf(e -> e.getType() == JournalEntry.Type.CHUNK && chunkKey(e).equals(rolledBack));
+                break;
+            case PAIR:
+                completedPairs.add(pairKey(entry.getSource(), entry.getTarget()));
+                progress.add(entry);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the journal entries to rebuild this checkpoint from
+     */
+    List<JournalEntry> toEntries() {
+        List<JournalEntry> entries = new ArrayList<>();
+        entries.add(JournalEntry.started(request, mdc));
+        entries.addAll(progress);
+        return entries;
+    }
+
+    private static String pairKey(String source, String target) {
+        return source + "->" + target;
+    }
+
+    private static String chunkKey(JournalEntry entry) {
+        return chunkKey(entry.getSource(), entry.getTarget(), entry.getChunkSize(), entry.getChunk());
+    }
+
+    private static String chunkKey(String source, String target, int chunkSize, int chunk) {
+        return pairKey(source, target) + "#" + chunkSize + ":" + chunk;
+    }
+}
@@ -0,0 +1,219 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Append-only journal of the promotions in progress. Each promotion records its request when it starts, the promoted
+ * chunks and source-target pairs as it goes, and its completion. On startup the unfinished promotions are recovered so
+ * they can be resumed from their last checkpoint instead of being drained on shutdown.
+ *
+ * When the journal is disabled the checkpoints are kept in memory only.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class PromotionJournal {
+
+    static final String JOURNAL_FILE = "promotions.journal";
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionJournal.class);
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    ObjectMapper jsonMapper;
+
+    private final Map<String, PromotionCheckpoint> active = new LinkedHashMap<>();
+
+    private final List<PromotionCheckpoint> recovered = new ArrayList<>();
+
+    private Path journalFile;
+
+    private FileChannel channel;
+
+    @PostConstruct
+    void init() {
+        if (!configuration.isJournalEnabled()) {
+            return;
+        }
+        try {
+            Path dir = Paths.get(configuration.getJournalDir());
+            Files.createDirectories(dir);
+            journalFile = dir.resolve(JOURNAL_FILE);
+            recover();
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the promotion journal in " + configuration.getJournalDir(), e);
+        }
+    }
+
+    @PreDestroy
+    synchronized void destroy() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Cannot close the promotion journal.", e);
+            }
+            channel = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return journalFile != null;
+    }
+
+    /**
+     * Records the start of the promotion, with the MDC of the calling thread.
+     *
+     * @return the checkpoint to record the progress of the promotion to
+     */
+    public PromotionCheckpoint started(RepositoryPromoteRequest request) {
+        if (!isEnabled()) {
+            return new PromotionCheckpoint(null, request, MDC.getCopyOfContextMap());
+        }
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        PromotionCheckpoint checkpoint = new PromotionCheckpoint(this, request, mdc);
+        synchronized (this) {
+            append(JournalEntry.started(request, mdc));
+            active.put(request.getBuildContentId(), checkpoint);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return the promotions that were not completed before the last shutdown, each of them is removed from the list
+     *         and has to be resumed or completed by the caller
+     */
+    public synchronized List<PromotionCheckpoint> takeRecovered() {
+        List<PromotionCheckpoint> result = new ArrayList<>(recovered);
+        recovered.clear();
+        return result;
+    }
+
+    synchronized void completed(PromotionCheckpoint checkpoint) {
+        String buildContentId = checkpoint.getRequest().getBuildContentId();
+        if (active.remove(buildContentId, checkpoint)) {
+            append(JournalEntry.completed(buildContentId));
+            if (active.isEmpty()) {
+                truncate();
+            }
+        }
+    }
+
+    synchronized void append(JournalEntry entry) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            write(channel, entry);
+            channel.force(false);
+        } catch (IOException e) {
+            // the promotion goes on, it is just not resumable from this point
+            logger.error("Cannot write to the promotion journal.", e);
+        }
+    }
+
+    /**
+     * Reads the journal, keeps the unfinished promotions and rewrites the journal with them only.
+     */
+    private void recover() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        Map<String, PromotionCheckpoint> unfinished = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalEntry entry;
+                try {
+                    entry = jsonMapper.readValue(line, JournalEntry.class);
+                } catch (JsonProcessingException e) {
+                    // most likely a line torn by a crash
+                    logger.warn("Skipping unreadable promotion journal line.", e);
+                    continue;
+                }
+                if (entry.getType() == JournalEntry.Type.STARTED) {
+                    unfinished.put(
+                            entry.getBuildContentId(),
+                            new PromotionCheckpoint(this, entry.getRequest(), entry.getMdc()));
+                } else if (entry.getType() == JournalEntry.Type.COMPLETED) {
+                    unfinished.remove(entry.getBuildContentId());
+                } else {
+                    PromotionCheckpoint checkpoint = unfinished.get(entry.getBuildContentId());
+                    if (checkpoint != null) {
+                        checkpoint.replay(entry);
+                    }
+                }
+            }
+        }
+        compact(unfinished.values());
+        active.putAll(unfinished);
+        recovered.addAll(unfinished.values());
+        logger.info("Recovered {} unfinished promotions from the journal.", unfinished.size());
+    }
+
+    private void compact(Collection<PromotionCheckpoint> unfinished) throws IOException {
+        Path tmp = journalFile.resolveSibling(JOURNAL_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(
+                tmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (PromotionCheckpoint checkpoint : unfinished) {
+                for (JournalEntry entry : checkpoint.toEntries()) {
+                    write(out, entry);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(tmp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void truncate() {
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            logger.warn("Cannot truncate the promotion journal.", e);
+        }
+    }
+
+    private void write(FileChannel out, JournalEntry entry) throws IOException {
+        byte[] line = (jsonMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -1,37 +1,42 @@
 package org.jboss.pnc.repositorydriver;
 
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.commonjava.indy.model.core.StoreKey;
 
 /**
+ * Paths to promote grouped by the source and target store. Paths can be added concurrently.
+ *
  * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
  */
 public class PromotionPaths {
 
-    private Set<SourceTargetPaths> sourceTargetsPaths = new HashSet<>();
+    /**
+     * Source store -> target store -> paths.
+     */
+    private final Map<StoreKey, Map<StoreKey, SourceTargetPaths>> sourceTargetsPaths = new ConcurrentHashMap<>();
 
     public void add(StoreKey source, StoreKey target, String path) {
         SourceTargetPaths sourceTargetPaths = getSourceTarget(source, target);
         sourceTargetPaths.addPath(path);
     }
 
-    private synchronized SourceTargetPaths getSourceTarget(StoreKey source, StoreKey target) {
-        Optional<SourceTargetPaths> sourceTargetPaths = sourceTargetsPaths.stream()
-                .filter(e -> e.getSource().equals(source) && e.getTarget().equals(target))
-                .findAny();
-        if (sourceTargetPaths.isPresent()) {
-            return sourceTargetPaths.get();
-        } else {
-            SourceTargetPaths newSTP = new SourceTargetPaths(source, target);
-            sourceTargetsPaths.add(newSTP);
-            return newSTP;
-        }
+    private SourceTargetPaths getSourceTarget(StoreKey source, StoreKey target) {
+        return sourceTargetsPaths.computeIfAbsent(source, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(target, t -> new SourceTargetPaths(source, target));
     }
 
+    /**
+     * @return a snapshot of the source-target pairs, the paths of the pairs are not copied
+     */
     public Set<SourceTargetPaths> getSourceTargetsPaths() {
-        return sourceTargetsPaths;
+        Set<SourceTargetPaths> result = new HashSet<>();
+        for (Map<StoreKey, SourceTargetPaths> targets : sourceTargetsPaths.values()) {
+            result.addAll(targets.values());
+        }
+        return result;
     }
 }
@@ -0,0 +1,108 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import org.jboss.pnc.api.enums.BuildCategory;
+
+/**
+ * Queue of the promotions waiting for a free slot. The next promotion is picked by priority: persistent standard
+ * builds first, then persistent builds of other categories and temporary builds last. Within a priority the owner
+ * (user or process context) with the fewest active promotions goes first, so a single owner can't take all the slots.
+ * Optionally the smaller reports go first to cut the mean completion time. A promotion waiting longer than the aging
+ * time gets the top priority, so the temporary builds are not starved.
+ * <p>
+ * The queue is small (bounded by {@link Configuration#getPromotionMaxQueued()}), the next promotion is found by a
+ * linear scan. The queue is not thread-safe, the {@link PromotionAdmission} guards it.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+class PromotionQueue {
+
+    private final List<QueuedPromotion> waiting = new ArrayList<>();
+
+    private long sequence;
+
+    void add(QueuedPromotion promotion) {
+        promotion.sequence = sequence++;
+        waiting.add(promotion);
+    }
+
+    int size() {
+        return waiting.size();
+    }
+
+    /**
+     * @param activeByOwner number of the active promotions of each owner
+     * @param shortestFirst prefer the promotions with less report entries
+     * @param agingNanos time after which the waiting promotion gets the top priority
+     * @return the next promotion to run, null if the queue is empty
+     */
+    QueuedPromotion poll(Map<String, Integer> activeByOwner, boolean shortestFirst, long agingNanos) {
+        long now = System.nanoTime();
+        Comparator<QueuedPromotion> order = Comparator
+                .<QueuedPromotion> comparingInt(promotion -> effectivePriority(promotion, now, agingNanos))
+                .thenComparingInt(promotion -> activeByOwner.getOrDefault(promotion.owner, 0))
+                .thenComparingLong(promotion -> shortestFirst ? promotion.entries : 0)
+                .thenComparingLong(promotion -> promotion.sequence);
+
+        QueuedPromotion next = null;
+        for (QueuedPromotion promotion : waiting) {
+            if (next == null || order.compare(promotion, next) < 0) {
+                next = promotion;
+            }
+        }
+        if (next != null) {
+            waiting.remove(next);
+        }
+        return next;
+    }
+
+    private static int effectivePriority(QueuedPromotion promotion, long now, long agingNanos) {
+        if (now - promotion.queuedAt > agingNanos) {
+            return -1;
+        }
+        return promotion.priority;
+    }
+
+    static int priority(boolean tempBuild, BuildCategory buildCategory) {
+        if (tempBuild) {
+            return 2;
+        }
+        return buildCategory == null || buildCategory == BuildCategory.STANDARD ? 0 : 1;
+    }
+
+    @Getter
+    static class QueuedPromotion {
+
+        private final String buildContentId;
+
+        private final String owner;
+
+        private final int priority;
+
+        /** Grows while a streaming promotion charges the entries it reads. */
+        private long entries;
+
+        private final Runnable task;
+
+        private final long queuedAt = System.nanoTime();
+
+        private long sequence;
+
+        QueuedPromotion(String buildContentId, String owner, int priority, int entries, Runnable task) {
+            this.buildContentId = buildContentId;
+            this.owner = owner;
+            this.priority = priority;
+            this.entries = entries;
+            this.task = task;
+        }
+
+        void addEntries(int count) {
+            entries += count;
+        }
+    }
+}
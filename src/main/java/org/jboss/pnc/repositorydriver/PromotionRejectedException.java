@@ -0,0 +1,23 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the promotion is not admitted because the driver is saturated, the invoker should retry after the given
+ * time, possibly on another replica.
+ */
+public class PromotionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public PromotionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,255 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.commonjava.indy.client.core.IndyClientException;
+import org.commonjava.indy.client.core.module.IndyStoresClientModule;
+import org.commonjava.indy.model.core.RemoteRepository;
+import org.commonjava.indy.model.core.StoreKey;
+import org.commonjava.indy.model.core.StoreType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application wide index of the Indy remote repositories by their normalized URL, one per package type. The index is
+ * loaded on the first use, when it gets older than the refresh interval it is refreshed in the background while the
+ * current one is still used. Remote repositories created by the driver are added to the index immediately.
+ * As the index can miss the repositories created or removed by others since it was loaded, a found repository and a
+ * reserved name are confirmed with a single {@code exists()} call. A URL not found is resolved against the index as it
+ * is, the miss only triggers the background refresh once the index is older than the miss refresh interval, so the
+ * concurrent misses share a single listing.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class RemoteRepositoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteRepositoryIndex.class);
+
+    @Inject
+    @Pool(Pool.INDY_CLIENT)
+    ExecutorService executor;
+
+    @Inject
+    Configuration configuration;
+
+    private final Map<String, PackageIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * @return the key of a remote repository with the same URL, null if there is none
+     */
+    public StoreKey findByUrl(IndyStoresClientModule stores, String packageType, String url)
+            throws IndyClientException {
+        PackageIndex index = getIndex(stores, packageType);
+        StoreKey remoteKey = index.findByUrl(url);
+        if (remoteKey == null) {
+            // the repository could have been created since the index was loaded, it is found once refreshed
+            if (index.isStale(configuration.getRemoteIndexMissRefreshInterval().toNanos())) {
+                refreshInBackground(stores, packageType, index);
+            }
+            return null;
+        }
+        if (!stores.exists(remoteKey)) {
+            logger.debug("Indexed remote repository {} does not exist anymore.", remoteKey);
+            index.remove(remoteKey);
+            return null;
+        }
+        return remoteKey;
+    }
+
+    /**
+     * Reserves a free name for a new remote repository. The name is the given one or the first one not used with a
+     * numeric suffix -2, -3, ... Once the repository is created call {@link #added(RemoteRepository)}, if the creation
+     * fails call {@link #release(StoreKey)}.
+     */
+    public StoreKey reserveName(IndyStoresClientModule stores, String packageType, String name)
+            throws IndyClientException {
+        PackageIndex index = getIndex(stores, packageType);
+        StoreKey remoteKey = index.reserve(packageType, name);
+        while (stores.exists(remoteKey)) {
+            // created by someone else since the index was loaded
+            index.taken(remoteKey.getName());
+            remoteKey = index.reserve(packageType, name);
+        }
+        return remoteKey;
+    }
+
+    public void added(RemoteRepository remoteRepository) {
+        PackageIndex index = indexes.get(remoteRepository.getPackageType());
+        if (index != null) {
+            index.add(remoteRepository);
+        }
+    }
+
+    /**
+     * Releases the reserved name, the names reserved by the other creations in progress stay reserved.
+     */
+    public void release(StoreKey remoteKey) {
+        PackageIndex index = indexes.get(remoteKey.getPackageType());
+        if (index != null) {
+            index.release(remoteKey.getName());
+        }
+    }
+
+    private PackageIndex getIndex(IndyStoresClientModule stores, String packageType) throws IndyClientException {
+        PackageIndex index = indexes.get(packageType);
+        if (index == null) {
+            synchronized (this) {
+                index = indexes.get(packageType);
+                if (index == null) {
+                    index = new PackageIndex();
+                    load(stores, packageType, index);
+                    indexes.put(packageType, index);
+                }
+            }
+        } else if (index.isStale(configuration.getRemoteIndexRefreshInterval().toNanos())) {
+            refreshInBackground(stores, packageType, index);
+        }
+        return index;
+    }
+
+    /**
+     * Reloads the index unless it is already being reloaded.
+     */
+    private void refreshInBackground(IndyStoresClientModule stores, String packageType, PackageIndex index) {
+        if (!index.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    load(stores, packageType, index);
+                } catch (Throwable e) {
+                    logger.warn("Failed to refresh the index of {} remote repositories.", packageType, e);
+                } finally {
+                    index.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            index.refreshing.set(false);
+            logger.warn("Failed to schedule the refresh of the index of {} remote repositories.", packageType, e);
+        }
+    }
+
+    private void load(IndyStoresClientModule stores, String packageType, PackageIndex index)
+            throws IndyClientException {
+        long startedAt = System.nanoTime();
+        Iterable<RemoteRepository> remotes = stores.listRemoteRepositories(packageType);
+        index.load(remotes, startedAt);
+        logger.debug("Loaded index of {} remote repositories.", packageType);
+    }
+
+    /**
+     * Normalizes the URL for comparison, the scheme and the host are lower-cased, whitespaces and trailing slashes are
+     * removed.
+     */
+    static String normalizeUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        String normalized = url.trim();
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '/') {
+            end--;
+        }
+        normalized = normalized.substring(0, end);
+
+        int schemeEnd = normalized.indexOf("://");
+        if (schemeEnd < 0) {
+            return normalized;
+        }
+        int authorityEnd = normalized.indexOf('/', schemeEnd + 3);
+        if (authorityEnd < 0) {
+            authorityEnd = normalized.length();
+        }
+        return normalized.substring(0, authorityEnd).toLowerCase(Locale.ROOT) + normalized.substring(authorityEnd);
+    }
+
+    private static class PackageIndex {
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile Map<String, StoreKey> byUrl = new ConcurrentHashMap<>();
+
+        private Set<String> names = new HashSet<>();
+
+        private final Set<String> reserved = new HashSet<>();
+
+        /**
+         * Repositories added by the driver, re-applied when a listing started before they were added is loaded.
+         */
+        private final Map<RemoteRepository, Long> additions = new ConcurrentHashMap<>();
+
+        private volatile long loadedAt;
+
+        StoreKey findByUrl(String url) {
+            return byUrl.get(normalizeUrl(url));
+        }
+
+        boolean isStale(long refreshIntervalNanos) {
+            return System.nanoTime() - loadedAt > refreshIntervalNanos;
+        }
+
+        synchronized void load(Iterable<RemoteRepository> remotes, long startedAt) {
+            Map<String, StoreKey> newByUrl = new ConcurrentHashMap<>();
+            Set<String> newNames = new HashSet<>();
+            for (RemoteRepository remote : remotes) {
+                // keep the first one as the listing was searched from the start
+                String url = normalizeUrl(remote.getUrl());
+                if (url != null) {
+                    newByUrl.putIfAbsent(url, remote.getKey());
+                }
+                newNames.add(remote.getName());
+            }
+            additions.entrySet().removeIf(addition -> addition.getValue() < startedAt);
+            for (RemoteRepository remote : additions.keySet()) {
+                newByUrl.putIfAbsent(normalizeUrl(remote.getUrl()), remote.getKey());
+                newNames.add(remote.getName());
+            }
+            byUrl = newByUrl;
+            names = newNames;
+            loadedAt = System.nanoTime();
+        }
+
+        synchronized StoreKey reserve(String packageType, String name) {
+            String freeName = name;
+            int i = 2;
+            while (names.contains(freeName) || reserved.contains(freeName)) {
+                freeName = name + "-" + i++;
+            }
+            reserved.add(freeName);
+            return new StoreKey(packageType, StoreType.remote, freeName);
+        }
+
+        synchronized void taken(String name) {
+            names.add(name);
+            reserved.remove(name);
+        }
+
+        synchronized void release(String name) {
+            reserved.remove(name);
+        }
+
+        synchronized void remove(StoreKey remoteKey) {
+            byUrl.values().remove(remoteKey);
+            additions.keySet().removeIf(remote -> remote.getKey().equals(remoteKey));
+        }
+
+        synchronized void add(RemoteRepository remote) {
+            additions.put(remote, System.nanoTime());
+            byUrl.putIfAbsent(normalizeUrl(remote.getUrl()), remote.getKey());
+            names.add(remote.getName());
+            reserved.remove(remote.getName());
+        }
+    }
+}
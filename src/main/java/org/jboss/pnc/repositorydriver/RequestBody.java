@@ -0,0 +1,68 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * JSON request body serialized once, the same bytes are sent on every retry.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestBody {
+
+    public static final String GZIP = "gzip";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private byte[] bytes;
+
+    /** Null when the body is not encoded. */
+    private String contentEncoding;
+
+    /**
+     * Writes the value straight from the JSON generator to the (compressed) bytes, without an intermediate String.
+     */
+    public static RequestBody json(ObjectMapper jsonMapper, Object value, boolean gzip) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (gzip) {
+            try (OutputStream out = new GZIPOutputStream(buffer)) {
+                jsonMapper.writeValue(out, value);
+            }
+            return new RequestBody(buffer.toByteArray(), GZIP);
+        } else {
+            jsonMapper.writeValue(buffer, value);
+            return new RequestBody(buffer.toByteArray(), null);
+        }
+    }
+
+    public static RequestBody empty() {
+        return new RequestBody(new byte[0], null);
+    }
+
+    public HttpRequest.BodyPublisher publisher() {
+        return HttpRequest.BodyPublishers.ofByteArray(bytes);
+    }
+
+    /**
+     * Adds the Content-Encoding header when the body is encoded.
+     */
+    public HttpRequest.Builder encodingHeader(HttpRequest.Builder builder) {
+        if (contentEncoding != null) {
+            builder.header(CONTENT_ENCODING, contentEncoding);
+        }
+        return builder;
+    }
+}
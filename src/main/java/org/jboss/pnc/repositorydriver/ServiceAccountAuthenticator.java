@@ -0,0 +1,66 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.commonjava.indy.client.core.auth.IndyClientAuthenticator;
+
+import static org.jboss.pnc.api.constants.HttpHeaders.AUTHORIZATION_STRING;
+
+/**
+ * Authenticator of the Indy client shared by all the requests. Every request gets a fresh service account token and
+ * the MDC values of the calling thread as headers. The requests are timed and the ones being executed are counted, as
+ * {@code indy-client.requests.executing}. The connection pool is not exposed by the client, so there are no pool
+ * statistics, only the configured limit is published as {@code indy-client.config.max-connections}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class ServiceAccountAuthenticator extends IndyClientAuthenticator {
+
+    private final Supplier<String> accessToken;
+    private final Timer requests;
+    private final AtomicInteger activeRequests;
+
+    public ServiceAccountAuthenticator(Supplier<String> accessToken, MeterRegistry meterRegistry, int maxConnections) {
+        this.accessToken = accessToken;
+        this.requests = meterRegistry.timer("indy-client.requests");
+        this.activeRequests = meterRegistry.gauge("indy-client.requests.executing", new AtomicInteger());
+        // a gauge of a boxed number would be held only weakly and report NaN once it is collected
+        Gauge.builder("indy-client.config.max-connections", () -> maxConnections).register(meterRegistry);
+    }
+
+    @Override
+    public HttpClientBuilder decorateClientBuilder(HttpClientBuilder builder) {
+        builder.addInterceptorFirst((HttpRequestInterceptor) (request, context) -> {
+            request.setHeader(AUTHORIZATION_STRING, "Bearer " + accessToken.get());
+            MdcUtils.mdcToHeaders().forEach(request::setHeader);
+        });
+        builder.setRequestExecutor(new HttpRequestExecutor() {
+            @Override
+            public HttpResponse execute(HttpRequest request, HttpClientConnection connection, HttpContext context)
+                    throws IOException, HttpException {
+                activeRequests.incrementAndGet();
+                Timer.Sample sample = Timer.start();
+                try {
+                    return super.execute(request, connection, context);
+                } finally {
+                    sample.stop(requests);
+                    activeRequests.decrementAndGet();
+                }
+            }
+        });
+        return builder;
+    }
+}
@@ -0,0 +1,65 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.quarkus.oidc.client.OidcClient;
+import io.quarkus.oidc.client.Tokens;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service account tokens usable outside of a request scope, the access token is refreshed shortly before it expires.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class ServiceAccountTokens {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceAccountTokens.class);
+
+    /** Refresh the token this long before it expires, so it doesn't expire on the way. */
+    private static final Duration EXPIRATION_MARGIN = Duration.ofSeconds(30);
+
+    @Inject
+    OidcClient oidcClient;
+
+    @Inject
+    Configuration configuration;
+
+    private volatile Tokens tokens;
+
+    public String getAccessToken() {
+        Tokens current = tokens;
+        if (current == null || isExpiring(current)) {
+            synchronized (this) {
+                current = tokens;
+                if (current == null || isExpiring(current)) {
+                    current = obtainTokens(current);
+                    tokens = current;
+                }
+            }
+        }
+        return current.getAccessToken();
+    }
+
+    private Tokens obtainTokens(Tokens current) {
+        Duration timeout = configuration.getKeyCloakRequestTimeout();
+        if (current != null && current.getRefreshToken() != null) {
+            try {
+                return oidcClient.refreshTokens(current.getRefreshToken()).await().atMost(timeout);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to refresh the service account token, requesting a new one.", e);
+            }
+        }
+        return oidcClient.getTokens().await().atMost(timeout);
+    }
+
+    private boolean isExpiring(Tokens tokens) {
+        Long expiresAt = tokens.getAccessTokenExpiresAt();
+        return expiresAt != null && Instant.now().plus(EXPIRATION_MARGIN).getEpochSecond() >= expiresAt;
+    }
+}
@@ -1,11 +1,13 @@
 package org.jboss.pnc.repositorydriver;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.commonjava.indy.model.core.StoreKey;
 
 /**
+ * Paths to promote from the source to the target store, paths can be added concurrently.
+ *
  * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
  */
 public class SourceTargetPaths {
@@ -17,7 +19,7 @@ public class SourceTargetPaths {
     public SourceTargetPaths(StoreKey source, StoreKey target) {
         this.source = source;
         this.target = target;
-        this.paths = new HashSet<>();
+        this.paths = ConcurrentHashMap.newKeySet();
     }
 
     public StoreKey getSource() {
@@ -0,0 +1,195 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.jboss.pnc.api.repositorydriver.dto.TargetRepository;
+
+/**
+ * Read-only list of artifacts kept in a memory-mapped file instead of the heap. The artifacts are decoded on each
+ * access, so iterating the list, e.g. when the result is serialized, doesn't rebuild the whole object graph. Only the
+ * record offsets and the few distinct target repositories stay on the heap.
+ *
+ * The file is removed as soon as it is written, the mapping is released when the list is garbage collected.
+ *
+ * Record format: identifier, purl, md5, sha1, sha256, deployPath, filename and originUrl as an int length (-1 for
+ * null) followed by the UTF-8 bytes, size as long, importDate as long seconds and int nanos, buildCategory ordinal as
+ * byte and the target repository index as int, with {@link #NULL} for the null values.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class SpilledArtifacts extends AbstractList<RepositoryArtifact> implements RandomAccess {
+
+    private static final int NULL = -1;
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final int INITIAL_RECORD_SIZE = 512;
+
+    private final MappedByteBuffer buffer;
+
+    private final int[] offsets;
+
+    private final List<TargetRepository> targetRepositories;
+
+    private SpilledArtifacts(MappedByteBuffer buffer, int[] offsets, List<TargetRepository> targetRepositories) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.targetRepositories = targetRepositories;
+    }
+
+    /**
+     * Writes the artifacts to a new file in the directory, keeping their order.
+     *
+     * @throws IOException if the file can't be written or the artifacts don't fit into 2GB
+     */
+    public static SpilledArtifacts spill(List<RepositoryArtifact> artifacts, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "artifacts-", ".spill");
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE)) {
+            Writer writer = new Writer(channel, Math.max(4096L, (long) artifacts.size() * INITIAL_RECORD_SIZE));
+            int[] offsets = new int[artifacts.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = writer.write(artifacts.get(i));
+            }
+            // the mapping stays valid after the channel is closed and the file removed
+            return new SpilledArtifacts(writer.buffer, offsets, writer.targetRepositories);
+        }
+    }
+
+    @Override
+    public RepositoryArtifact get(int index) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offsets[index]);
+        RepositoryArtifact.Builder builder = RepositoryArtifact.builder()
+                .identifier(readString(record))
+                .purl(readString(record))
+                .md5(readString(record))
+                .sha1(readString(record))
+                .sha256(readString(record))
+                .deployPath(readString(record))
+                .filename(readString(record))
+                .originUrl(readString(record));
+        long size = record.getLong();
+        builder.size(size == NULL_LONG ? null : size);
+        long seconds = record.getLong();
+        int nanos = record.getInt();
+        builder.importDate(seconds == NULL_LONG ? null : Instant.ofEpochSecond(seconds, nanos));
+        byte category = record.get();
+        builder.buildCategory(category == NULL ? null : BuildCategory.values()[category]);
+        int targetRepository = record.getInt();
+        builder.targetRepository(targetRepository == NULL ? null : targetRepositories.get(targetRepository));
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return offsets.length;
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length == NULL) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Writer {
+
+        private final FileChannel channel;
+
+        private final Map<TargetRepository, Integer> repositoryIndexes = new IdentityHashMap<>();
+
+        private final List<TargetRepository> targetRepositories = new ArrayList<>();
+
+        private MappedByteBuffer buffer;
+
+        private Writer(FileChannel channel, long capacity) throws IOException {
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(capacity, Integer.MAX_VALUE));
+        }
+
+        /**
+         * @return the offset of the record
+         */
+        private int write(RepositoryArtifact artifact) throws IOException {
+            byte[][] strings = { bytes(artifact.getIdentifier()), bytes(artifact.getPurl()), bytes(artifact.getMd5()),
+                    bytes(artifact.getSha1()), bytes(artifact.getSha256()), bytes(artifact.getDeployPath()),
+                    bytes(artifact.getFilename()), bytes(artifact.getOriginUrl()) };
+            int recordSize = Long.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES;
+            for (byte[] string : strings) {
+                recordSize += Integer.BYTES + (string == null ? 0 : string.length);
+            }
+            ensureCapacity(recordSize);
+
+            int offset = buffer.position();
+            for (byte[] string : strings) {
+                if (string == null) {
+                    buffer.putInt(NULL);
+                } else {
+                    buffer.putInt(string.length);
+                    buffer.put(string);
+                }
+            }
+            buffer.putLong(artifact.getSize() == null ? NULL_LONG : artifact.getSize());
+            Instant importDate = artifact.getImportDate();
+            buffer.putLong(importDate == null ? NULL_LONG : importDate.getEpochSecond());
+            buffer.putInt(importDate == null ? 0 : importDate.getNano());
+            BuildCategory category = artifact.getBuildCategory();
+            buffer.put(category == null ? (byte) NULL : (byte) category.ordinal());
+            buffer.putInt(repositoryIndex(artifact.getTargetRepository()));
+            return offset;
+        }
+
+        private int repositoryIndex(TargetRepository targetRepository) {
+            if (targetRepository == null) {
+                return NULL;
+            }
+            // the target repositories are shared by the artifacts of a build
+            return repositoryIndexes.computeIfAbsent(targetRepository, repository -> {
+                targetRepositories.add(repository);
+                return targetRepositories.size() - 1;
+            });
+        }
+
+        private void ensureCapacity(int recordSize) throws IOException {
+            if (buffer.remaining() >= recordSize) {
+                return;
+            }
+            long required = (long) buffer.position() + recordSize;
+            if (required > Integer.MAX_VALUE) {
+                throw new IOException("Artifacts don't fit into a single mapped file.");
+            }
+            long capacity = Math.min(Math.max(required, (long) buffer.capacity() * 2), Integer.MAX_VALUE);
+            int position = buffer.position();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.position(position);
+        }
+
+        private static byte[] bytes(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
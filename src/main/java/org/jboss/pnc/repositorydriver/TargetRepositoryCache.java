@@ -0,0 +1,38 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.commonjava.indy.model.core.StoreKey;
+import org.jboss.pnc.api.enums.RepositoryType;
+import org.jboss.pnc.api.repositorydriver.dto.TargetRepository;
+
+/**
+ * Target repositories resolved while processing one tracking report. A report has thousands of entries but only a few
+ * distinct stores, the target repository of a download depends only on its store key and the target repository of an
+ * upload on its repository type. The resolved instances are shared by all the artifacts of the report.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+class TargetRepositoryCache {
+
+    private final Map<StoreKey, TargetRepository> downloads = new ConcurrentHashMap<>();
+
+    private final Map<RepositoryType, TargetRepository> uploads = new ConcurrentHashMap<>();
+
+    TargetRepository getForDownload(StoreKey source) {
+        return downloads.get(source);
+    }
+
+    void putForDownload(StoreKey source, TargetRepository targetRepository) {
+        downloads.put(source, targetRepository);
+    }
+
+    TargetRepository getForUpload(RepositoryType repositoryType) {
+        return uploads.get(repositoryType);
+    }
+
+    void putForUpload(RepositoryType repositoryType, TargetRepository targetRepository) {
+        uploads.put(repositoryType, targetRepository);
+    }
+}
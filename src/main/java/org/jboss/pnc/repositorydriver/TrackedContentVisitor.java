@@ -0,0 +1,33 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.Set;
+
+import org.commonjava.indy.folo.dto.TrackedContentDTO;
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+
+/**
+ * Receives the entries of a tracking report one by one, either from a materialized {@link TrackedContentDTO} or from a
+ * streamed report.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public interface TrackedContentVisitor {
+
+    void visitDownload(TrackedContentEntryDTO download);
+
+    void visitUpload(TrackedContentEntryDTO upload);
+
+    /**
+     * Visits all the downloads and uploads of an already retrieved report.
+     */
+    default void visitReport(TrackedContentDTO report) {
+        Set<TrackedContentEntryDTO> downloads = report.getDownloads();
+        if (downloads != null) {
+            downloads.forEach(this::visitDownload);
+        }
+        Set<TrackedContentEntryDTO> uploads = report.getUploads();
+        if (uploads != null) {
+            uploads.forEach(this::visitUpload);
+        }
+    }
+}
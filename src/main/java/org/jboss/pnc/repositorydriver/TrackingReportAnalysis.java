@@ -0,0 +1,85 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.List;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+
+/**
+ * Artifacts collected from a sealed tracking report, shared by the promotion, the archival and the repository manager
+ * result of the build. The uploaded artifacts depend on the build type and category they were collected for, they are
+ * null when only the downloads were collected.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class TrackingReportAnalysis {
+
+    /** Rough heap size of a collected artifact with its strings. */
+    static final int ARTIFACT_BYTES = 1024;
+
+    /** Heap size of a spilled artifact, its record offset. */
+    static final int SPILLED_ARTIFACT_BYTES = Integer.BYTES;
+
+    private final List<RepositoryArtifact> downloadedArtifacts;
+
+    private final List<RepositoryArtifact> uploadedArtifacts;
+
+    private final boolean tempBuild;
+
+    private final BuildCategory buildCategory;
+
+    public TrackingReportAnalysis(
+            List<RepositoryArtifact> downloadedArtifacts,
+            List<RepositoryArtifact> uploadedArtifacts,
+            boolean tempBuild,
+            BuildCategory buildCategory) {
+        this.downloadedArtifacts = downloadedArtifacts;
+        this.uploadedArtifacts = uploadedArtifacts;
+        this.tempBuild = tempBuild;
+        this.buildCategory = buildCategory;
+    }
+
+    public static TrackingReportAnalysis downloads(List<RepositoryArtifact> downloadedArtifacts) {
+        return new TrackingReportAnalysis(downloadedArtifacts, null, false, null);
+    }
+
+    /**
+     * @return downloaded artifacts sorted by identifier
+     */
+    public List<RepositoryArtifact> getDownloadedArtifacts() {
+        return downloadedArtifacts;
+    }
+
+    /**
+     * @return uploaded artifacts, null if they were not collected
+     */
+    public List<RepositoryArtifact> getUploadedArtifacts() {
+        return uploadedArtifacts;
+    }
+
+    public boolean hasUploadedArtifacts() {
+        return uploadedArtifacts != null;
+    }
+
+    /**
+     * @return true if the uploaded artifacts were collected for the build type and category
+     */
+    public boolean hasUploadedArtifacts(boolean tempBuild, BuildCategory buildCategory) {
+        return uploadedArtifacts != null && this.tempBuild == tempBuild && this.buildCategory == buildCategory;
+    }
+
+    /**
+     * Estimate of the heap held by the artifacts, the spilled ones are counted by their offsets only.
+     */
+    long estimatedBytes() {
+        return estimatedBytes(downloadedArtifacts) + estimatedBytes(uploadedArtifacts);
+    }
+
+    private static long estimatedBytes(List<RepositoryArtifact> artifacts) {
+        if (artifacts == null) {
+            return 0;
+        }
+        int artifactBytes = artifacts instanceof SpilledArtifacts ? SPILLED_ARTIFACT_BYTES : ARTIFACT_BYTES;
+        return (long) artifacts.size() * artifactBytes;
+    }
+}
@@ -0,0 +1,105 @@
+package org.jboss.pnc.repositorydriver;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of the analyses of the sealed tracking reports by buildContentId. A sealed report never changes, so the
+ * artifacts collected by the promotion are reused by the archival and the repository manager result of the same build,
+ * whether the report was streamed or retrieved whole. Only the analyses of the records sealed by this driver are
+ * cached, {@link #sealed(String)}.
+ * The cache is bounded by the estimated heap size of the artifacts,
+ * {@link Configuration#getTrackingReportCacheMaxMb()}, the spilled artifacts take only a few bytes each, so the
+ * analyses of the large builds fit. The hit and eviction statistics are exposed as cache metrics named
+ * {@value #CACHE_NAME}.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class TrackingReportCache {
+
+    public static final String CACHE_NAME = "tracking-reports";
+
+    /** Sealed records remembered until the build is created again. */
+    private static final int MAX_SEALED = 10000;
+
+    @Inject
+    Configuration configuration;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Cache<String, TrackingReportAnalysis> cache;
+
+    private Cache<String, Boolean> sealed;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getTrackingReportCacheMaxMb() * 1024L)
+                .weigher((String buildContentId, TrackingReportAnalysis analysis) -> weightKb(analysis))
+                .recordStats()
+                .build();
+        sealed = Caffeine.newBuilder().maximumSize(MAX_SEALED).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Marks the tracking record as sealed, its analyses can be cached from now on.
+     */
+    public void sealed(String buildContentId) {
+        sealed.put(buildContentId, Boolean.TRUE);
+    }
+
+    /**
+     * @return the analysis of the sealed report or null if it is not in the cache
+     */
+    public TrackingReportAnalysis get(String buildContentId) {
+        return cache.getIfPresent(buildContentId);
+    }
+
+    public boolean contains(String buildContentId) {
+        return cache.asMap().containsKey(buildContentId);
+    }
+
+    /**
+     * Caches the analysis if the record is sealed. An analysis with the uploaded artifacts is not replaced by one
+     * without them.
+     */
+    public void put(String buildContentId, TrackingReportAnalysis analysis) {
+        if (sealed.getIfPresent(buildContentId) == null) {
+            return;
+        }
+        cache.asMap()
+                .merge(
+                        buildContentId,
+                        analysis,
+                        (cached, collected) -> cached.hasUploadedArtifacts() && !collected.hasUploadedArtifacts()
+                                ? cached
+                                : collected);
+    }
+
+    /**
+     * Removes the analysis and the sealed mark of a build whose tracking record is cleared.
+     */
+    public void invalidate(String buildContentId) {
+        sealed.invalidate(buildContentId);
+        cache.invalidate(buildContentId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static int weightKb(TrackingReportAnalysis analysis) {
+        long kb = 1L + analysis.estimatedBytes() / 1024;
+        return (int) Math.min(kb, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,220 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.commonjava.indy.folo.dto.TrackedContentDTO;
+
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.commonjava.indy.model.core.StoreKey;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.RepositoryType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+
+/**
+ * Collects the artifacts, the promotion paths and the archival entries entry by entry, so the tracking report doesn't
+ * have to be kept in memory while the promotion is running. Each entry is visited exactly once and its path is parsed
+ * only once. Use the factory methods of {@link TrackingReportProcessor} to create an
+ * instance.
+ *
+ * The first failure of artifact collection is kept and re-thrown when the artifacts are requested, the promotion paths
+ * are collected regardless when the entries are visited one by one. A large report collected in parallel stops at the
+ * failure, its promotion paths are incomplete then, they are not promoted anyway.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class TrackingReportCollector implements TrackedContentVisitor {
+
+    private final TrackingReportProcessor processor;
+    private final boolean tempBuild;
+    private final BuildCategory buildCategory;
+    private final RepositoryType repositoryType;
+    private final String buildContentId;
+    private final boolean collectUploads;
+
+    private List<RepositoryArtifact> downloadedArtifacts = new ArtifactBatch();
+    private List<RepositoryArtifact> uploadedArtifacts = new ArtifactBatch();
+    private final PromotionPaths downloadsPromotions = new PromotionPaths();
+    private final PromotionPaths uploadsPromotions = new PromotionPaths();
+    private final Map<String, StoreKey> promotionTargetsCache = new ConcurrentHashMap<>();
+    private final TargetRepositoryCache targetRepositories = new TargetRepositoryCache();
+
+    private RepositoryDriverException failure;
+    private boolean downloadsSorted;
+    private boolean spilled;
+    private int entriesCount;
+
+    /**
+     * @param repositoryType the repository type of the build, when null the promotion paths are not collected
+     * @param collectUploads when false, the uploads are ignored
+     */
+    TrackingReportCollector(
+            TrackingReportProcessor processor,
+            boolean tempBuild,
+            BuildCategory buildCategory,
+            RepositoryType repositoryType,
+            String buildContentId,
+            boolean collectUploads) {
+        this.processor = processor;
+        this.tempBuild = tempBuild;
+        this.buildCategory = buildCategory;
+        this.repositoryType = repositoryType;
+        this.buildContentId = buildContentId;
+        this.collectUploads = collectUploads;
+    }
+
+    @Override
+    public void visitDownload(TrackedContentEntryDTO download) {
+        entriesCount++;
+        if (failure == null) {
+            try {
+                processor.collectDownloadedArtifact(download, targetRepositories, downloadedArtifacts);
+            } catch (RepositoryDriverException e) {
+                fail(e);
+            }
+        }
+        if (collectsPromotions()) {
+            collectDownloadPromotion(download);
+        }
+    }
+
+    @Override
+    public void visitUpload(TrackedContentEntryDTO upload) {
+        entriesCount++;
+        if (!collectUploads) {
+            return;
+        }
+        if (failure == null) {
+            try {
+                processor.collectUploadedArtifact(
+                        upload,
+                        tempBuild,
+                        buildCategory,
+                        targetRepositories,
+                        uploadedArtifacts);
+            } catch (RepositoryDriverException e) {
+                fail(e);
+            }
+        }
+        if (collectsPromotions()) {
+            processor.collectUploadPromotion(upload, tempBuild, repositoryType, buildContentId, uploadsPromotions);
+        }
+    }
+
+    /**
+     * Collects a large report in parallel, the artifacts and the promotion paths of each entry are collected in the
+     * same pass.
+     */
+    @Override
+    public void visitReport(TrackedContentDTO report) {
+        if (!processor.isParallel(report) || failure != null || !downloadedArtifacts.isEmpty()
+                || !uploadedArtifacts.isEmpty()) {
+            TrackedContentVisitor.super.visitReport(report);
+            return;
+        }
+        entriesCount += report.getDownloads() == null ? 0 : report.getDownloads().size();
+        entriesCount += report.getUploads() == null ? 0 : report.getUploads().size();
+        try {
+            downloadedArtifacts.addAll(
+                    processor.collectDownloads(
+                            report.getDownloads(),
+                            targetRepositories,
+                            collectsPromotions() ? downloadsPromotions : null,
+                            promotionTargetsCache));
+            downloadsSorted = true;
+            if (collectUploads) {
+                uploadedArtifacts.addAll(
+                        processor.collectUploads(
+                                report.getUploads(),
+                                tempBuild,
+                                buildCategory,
+                                repositoryType,
+                                buildContentId,
+                                targetRepositories,
+                                collectsPromotions() ? uploadsPromotions : null));
+            }
+        } catch (RepositoryDriverException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @return number of the visited tracking report entries
+     */
+    public int getEntriesCount() {
+        return entriesCount;
+    }
+
+    /**
+     * Once the artifacts are requested, the collection is finished and large lists of artifacts are spilled, see
+     * {@link TrackingReportProcessor#spill(List)}. Until then they are kept in the heap.
+     *
+     * @return downloaded artifacts sorted by identifier
+     * @throws RepositoryDriverException if collecting of any artifact failed
+     */
+    public List<RepositoryArtifact> getDownloadedArtifacts() throws RepositoryDriverException {
+        verify();
+        finish();
+        return downloadedArtifacts;
+    }
+
+    /**
+     * @return uploaded artifacts in the order they were visited
+     * @throws RepositoryDriverException if collecting of any artifact failed
+     */
+    public List<RepositoryArtifact> getUploadedArtifacts() throws RepositoryDriverException {
+        verify();
+        finish();
+        return uploadedArtifacts;
+    }
+
+    /**
+     * @return the downloaded artifacts to archive sorted by the store key
+     * @throws RepositoryDriverException if collecting of any artifact failed
+     */
+    public List<ArchiveDownloadEntry> getArchivalArtifacts() throws RepositoryDriverException {
+        return processor.collectArchivalArtifacts(getDownloadedArtifacts());
+    }
+
+    public PromotionPaths getDownloadsPromotions() {
+        return downloadsPromotions;
+    }
+
+    public PromotionPaths getUploadsPromotions() {
+        return uploadsPromotions;
+    }
+
+    private void verify() throws RepositoryDriverException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void finish() {
+        if (!downloadsSorted) {
+            downloadedArtifacts.sort(TrackingReportProcessor.IDENTIFIER_ORDER);
+            downloadsSorted = true;
+        }
+        if (!spilled) {
+            downloadedArtifacts = processor.spill(downloadedArtifacts);
+            uploadedArtifacts = processor.spill(uploadedArtifacts);
+            spilled = true;
+        }
+    }
+
+    private void fail(RepositoryDriverException e) {
+        failure = e;
+        // the result is not going to be used, release the memory
+        downloadedArtifacts.clear();
+        uploadedArtifacts.clear();
+    }
+
+    private void collectDownloadPromotion(TrackedContentEntryDTO download) {
+        processor.collectDownloadPromotion(download, downloadsPromotions, promotionTargetsCache);
+    }
+
+    private boolean collectsPromotions() {
+        return repositoryType != null;
+    }
+}
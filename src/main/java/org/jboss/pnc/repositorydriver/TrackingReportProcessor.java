@@ -1,6 +1,8 @@
 package org.jboss.pnc.repositorydriver;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -9,11 +11,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.validation.ConstraintViolation;
-import javax.validation.Validator;
 
 import org.apache.commons.lang.StringUtils;
 import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
@@ -53,11 +54,16 @@ public class TrackingReportProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(TrackingReportProcessor.class);
 
+    static final Comparator<RepositoryArtifact> IDENTIFIER_ORDER = Comparator
+            .comparing(RepositoryArtifact::getIdentifier);
+
+    private static final int MIN_PARALLEL_CHUNK_SIZE = 256;
+
     @Inject
     ArtifactFilter artifactFilter;
 
     @Inject
-    Validator validator;
+    ArtifactValidator artifactValidator;
 
     @Inject
     Configuration configuration;
@@ -65,6 +71,13 @@ public class TrackingReportProcessor {
     @Inject
     IndyContentClientModule indyContentModule;
 
+    @Inject
+    ArtifactCoordinatesCache coordinatesCache;
+
+    @Inject
+    @Pool(Pool.COLLECTION)
+    ForkJoinPool collectionPool;
+
     public List<RepositoryArtifact> collectDownloadedArtifacts(TrackedContentDTO report)
             throws RepositoryDriverException {
         Set<TrackedContentEntryDTO> downloads = report.getDownloads();
@@ -72,42 +85,52 @@ public class TrackingReportProcessor {
             return Collections.emptyList();
         }
 
-        List<RepositoryArtifact> deps = new ArrayList<>(downloads.size());
-        for (TrackedContentEntryDTO download : downloads) {
-            if (artifactFilter.acceptsForData(download)) {
-                String path = download.getPath();
-                String identifier = computeIdentifier(download);
-                String purl = computePurl(download);
+        TargetRepositoryCache targetRepositories = new TargetRepositoryCache();
+        return collectArtifacts(
+                downloads,
+                (download, deps) -> collectDownloadedArtifact(download, targetRepositories, deps),
+                IDENTIFIER_ORDER);
+    }
 
-                logger.info("Recording download: {}", identifier);
+    /**
+     * Adds the download to the dependencies if it is accepted by the artifact filter. The list is not sorted.
+     */
+    void collectDownloadedArtifact(
+            TrackedContentEntryDTO download,
+            TargetRepositoryCache targetRepositories,
+            List<RepositoryArtifact> deps) throws RepositoryDriverException {
+        if (artifactFilter.acceptsForData(download)) {
+            String path = download.getPath();
+            ArtifactCoordinates coordinates = computeCoordinates(download);
+            String identifier = coordinates.getIdentifier();
+            String purl = coordinates.getPurl();
 
-                String originUrl = download.getOriginUrl();
-                if (originUrl == null) {
-                    // this is from a hosted repository, either shared-imports or a build, or something like that.
-                    originUrl = download.getLocalUrl();
-                }
+            logger.info("Recording download: {}", identifier);
 
-                TargetRepository targetRepository = getDownloadsTargetRepository(download);
-
-                RepositoryArtifact.Builder artifactBuilder = RepositoryArtifact.builder()
-                        .md5(download.getMd5())
-                        .sha1(download.getSha1())
-                        .sha256(download.getSha256())
-                        .size(download.getSize())
-                        .deployPath(path)
-                        .originUrl(originUrl)
-                        .importDate(Instant.now())
-                        .filename(new File(path).getName())
-                        .identifier(identifier)
-                        .purl(purl)
-                        .targetRepository(targetRepository);
-
-                RepositoryArtifact artifact = validateArtifact(artifactBuilder.build());
-                deps.add(artifact);
+            String originUrl = download.getOriginUrl();
+            if (originUrl == null) {
+                // this is from a hosted repository, either shared-imports or a build, or something like that.
+                originUrl = download.getLocalUrl();
             }
+
+            TargetRepository targetRepository = getDownloadsTargetRepository(download, targetRepositories);
+
+            RepositoryArtifact.Builder artifactBuilder = RepositoryArtifact.builder()
+                    .md5(download.getMd5())
+                    .sha1(download.getSha1())
+                    .sha256(download.getSha256())
+                    .size(download.getSize())
+                    .deployPath(path)
+                    .originUrl(originUrl)
+                    .importDate(Instant.now())
+                    .filename(new File(path).getName())
+                    .identifier(identifier)
+                    .purl(purl)
+                    .targetRepository(targetRepository);
+
+            RepositoryArtifact artifact = artifactValidator.validate(artifactBuilder.build());
+            deps.add(artifact);
         }
-        deps.sort(Comparator.comparing(RepositoryArtifact::getIdentifier));
-        return deps;
     }
 
     /**
@@ -126,36 +149,157 @@ public class TrackingReportProcessor {
         if (uploads == null) {
             return Collections.emptyList();
         }
-        List<RepositoryArtifact> artifacts = new ArrayList<>(uploads.size());
-        for (TrackedContentEntryDTO upload : uploads) {
-            String path = upload.getPath();
-            StoreKey storeKey = upload.getStoreKey();
-
-            if (artifactFilter.acceptsForData(upload)) {
-                String identifier = computeIdentifier(upload);
-                String purl = computePurl(upload);
-
-                logger.info("Recording upload: {}", identifier);
-                RepositoryType repoType = TypeConverters.toRepoType(storeKey.getPackageType());
-                TargetRepository targetRepository = getUploadsTargetRepository(repoType, tempBuild);
-
-                RepositoryArtifact artifact = RepositoryArtifact.builder()
-                        .md5(upload.getMd5())
-                        .sha1(upload.getSha1())
-                        .sha256(upload.getSha256())
-                        .size(upload.getSize())
-                        .deployPath(upload.getPath())
-                        .filename(new File(path).getName())
-                        .identifier(identifier)
-                        .purl(purl)
-                        .targetRepository(targetRepository)
-                        .buildCategory(buildCategory)
-                        .build();
-
-                artifacts.add(validateArtifact(artifact));
+        TargetRepositoryCache targetRepositories = new TargetRepositoryCache();
+        return collectArtifacts(
+                uploads,
+                (upload, artifacts) -> collectUploadedArtifact(
+                        upload,
+                        tempBuild,
+                        buildCategory,
+                        targetRepositories,
+                        artifacts),
+                null);
+    }
+
+    /**
+     * @return true if the report is large enough to collect its artifacts in parallel
+     */
+    boolean isParallel(TrackedContentDTO report) {
+        return size(report.getDownloads()) >= configuration.getTrackingReportParallelThreshold()
+                || size(report.getUploads()) >= configuration.getTrackingReportParallelThreshold();
+    }
+
+    /**
+     * Collects the artifacts of the entries, in parallel when there are at least parallel-threshold entries. The
+     * result is the same in both cases, see {@link ArtifactCollectionTask}.
+     *
+     * @param order the order of the result, null to keep the entries order
+     */
+    private List<RepositoryArtifact> collectArtifacts(
+            Set<TrackedContentEntryDTO> entries,
+            ArtifactCollectionTask.EntryCollector entryCollector,
+            Comparator<RepositoryArtifact> order) throws RepositoryDriverException {
+        if (entries.size() < configuration.getTrackingReportParallelThreshold()) {
+            List<RepositoryArtifact> artifacts = new ArrayList<>(entries.size());
+            for (TrackedContentEntryDTO entry : entries) {
+                entryCollector.collect(entry, artifacts);
             }
+            if (order != null) {
+                artifacts.sort(order);
+            }
+            return artifacts;
+        }
+
+        TrackedContentEntryDTO[] entriesArray = entries.toArray(new TrackedContentEntryDTO[0]);
+        int chunkSize = Math.max(
+                MIN_PARALLEL_CHUNK_SIZE,
+                entriesArray.length / (collectionPool.getParallelism() * 4));
+        logger.debug("Collecting {} artifacts in parallel, chunk size {}.", entriesArray.length, chunkSize);
+        return collectionPool
+                .invoke(
+                        new ArtifactCollectionTask(
+                                entriesArray,
+                                0,
+                                entriesArray.length,
+                                chunkSize,
+                                entryCollector,
+                                order))
+                .get();
+    }
+
+    /**
+     * Collects the downloaded artifacts together with their promotion paths in a single pass over the downloads, in
+     * parallel when there are at least parallel-threshold downloads.
+     *
+     * @param promotionPaths the promotion paths to add to, null to collect the artifacts only
+     * @return downloaded artifacts sorted by identifier
+     */
+    List<RepositoryArtifact> collectDownloads(
+            Set<TrackedContentEntryDTO> downloads,
+            TargetRepositoryCache targetRepositories,
+            PromotionPaths promotionPaths,
+            Map<String, StoreKey> promotionTargetsCache) throws RepositoryDriverException {
+        if (downloads == null) {
+            return Collections.emptyList();
+        }
+        return collectArtifacts(downloads, (download, artifacts) -> {
+            if (promotionPaths != null) {
+                collectDownloadPromotion(download, promotionPaths, promotionTargetsCache);
+            }
+            collectDownloadedArtifact(download, targetRepositories, artifacts);
+        }, IDENTIFIER_ORDER);
+    }
+
+    /**
+     * Collects the uploaded artifacts together with their promotion paths in a single pass over the uploads, in
+     * parallel when there are at least parallel-threshold uploads.
+     *
+     * @param promotionPaths the promotion paths to add to, null to collect the artifacts only
+     * @return uploaded artifacts in the order of the uploads
+     */
+    List<RepositoryArtifact> collectUploads(
+            Set<TrackedContentEntryDTO> uploads,
+            boolean tempBuild,
+            BuildCategory buildCategory,
+            RepositoryType repositoryType,
+            String buildContentId,
+            TargetRepositoryCache targetRepositories,
+            PromotionPaths promotionPaths) throws RepositoryDriverException {
+        if (uploads == null) {
+            return Collections.emptyList();
+        }
+        return collectArtifacts(uploads, (upload, artifacts) -> {
+            if (promotionPaths != null) {
+                collectUploadPromotion(upload, tempBuild, repositoryType, buildContentId, promotionPaths);
+            }
+            collectUploadedArtifact(upload, tempBuild, buildCategory, targetRepositories, artifacts);
+        }, null);
+    }
+
+    private int size(Set<TrackedContentEntryDTO> entries) {
+        return entries == null ? 0 : entries.size();
+    }
+
+    /**
+     * Adds the upload to the built artifacts if it is accepted by the artifact filter.
+     */
+    void collectUploadedArtifact(
+            TrackedContentEntryDTO upload,
+            boolean tempBuild,
+            BuildCategory buildCategory,
+            TargetRepositoryCache targetRepositories,
+            List<RepositoryArtifact> artifacts) throws RepositoryDriverException {
+        String path = upload.getPath();
+        StoreKey storeKey = upload.getStoreKey();
+
+        if (artifactFilter.acceptsForData(upload)) {
+            ArtifactCoordinates coordinates = computeCoordinates(upload);
+            String identifier = coordinates.getIdentifier();
+            String purl = coordinates.getPurl();
+
+            logger.info("Recording upload: {}", identifier);
+            RepositoryType repoType = TypeConverters.toRepoType(storeKey.getPackageType());
+            TargetRepository targetRepository = targetRepositories.getForUpload(repoType);
+            if (targetRepository == null) {
+                targetRepository = getUploadsTargetRepository(repoType, tempBuild);
+                targetRepositories.putForUpload(repoType, targetRepository);
+            }
+
+            RepositoryArtifact artifact = RepositoryArtifact.builder()
+                    .md5(upload.getMd5())
+                    .sha1(upload.getSha1())
+                    .sha256(upload.getSha256())
+                    .size(upload.getSize())
+                    .deployPath(upload.getPath())
+                    .filename(new File(path).getName())
+                    .identifier(identifier)
+                    .purl(purl)
+                    .targetRepository(targetRepository)
+                    .buildCategory(buildCategory)
+                    .build();
+
+            artifacts.add(artifactValidator.validate(artifact));
         }
-        return artifacts;
     }
 
     public PromotionPaths collectDownloadsPromotions(TrackedContentDTO report) {
@@ -166,43 +310,56 @@ public class TrackingReportProcessor {
         }
         Map<String, StoreKey> promotionTargetsCache = new HashMap<>();
         for (TrackedContentEntryDTO download : downloads) {
-            String path = download.getPath();
-            StoreKey source = download.getStoreKey();
-            String packageType = source.getPackageType();
-            if (artifactFilter.acceptsForPromotion(download, true)) {
-                StoreKey target;
-                // this has not been captured, so promote it.
-                switch (packageType) {
-                    case MAVEN_PKG_KEY:
-                    case NPM_PKG_KEY:
-                        target = getSharedImportsPromotionTarget(packageType, promotionTargetsCache);
-                        promotionPaths.add(source, target, path);
-                        if (MAVEN_PKG_KEY.equals(packageType) && isNotChecksum(path)) {
-                            // add the standard checksums to ensure, they are promoted (Maven usually uses only one, so
-                            // the other would be missing) but avoid adding checksums of checksums.
-                            promotionPaths.add(source, target, path + ".md5");
-                            promotionPaths.add(source, target, path + ".sha1");
-                        }
-                        break;
-
-                    case GENERIC_PKG_KEY:
-                        String remoteName = source.getName();
-                        String hostedName = getGenericHostedRepoName(remoteName);
-                        target = new StoreKey(packageType, StoreType.hosted, hostedName);
-                        break;
-
-                    default:
-                        // do not promote anything else anywhere
-                        break;
-                }
-            }
+            collectDownloadPromotion(download, promotionPaths, promotionTargetsCache);
         }
         return promotionPaths;
     }
 
+    void collectDownloadPromotion(
+            TrackedContentEntryDTO download,
+            PromotionPaths promotionPaths,
+            Map<String, StoreKey> promotionTargetsCache) {
+        String path = download.getPath();
+        StoreKey source = download.getStoreKey();
+        String packageType = source.getPackageType();
+        if (artifactFilter.acceptsForPromotion(download, true)) {
+            StoreKey target;
+            // this has not been captured, so promote it.
+            switch (packageType) {
+                case MAVEN_PKG_KEY:
+                case NPM_PKG_KEY:
+                    target = getSharedImportsPromotionTarget(packageType, promotionTargetsCache);
+                    promotionPaths.add(source, target, path);
+                    if (MAVEN_PKG_KEY.equals(packageType) && isNotChecksum(path)) {
+                        // add the standard checksums to ensure, they are promoted (Maven usually uses only one, so
+                        // the other would be missing) but avoid adding checksums of checksums.
+                        promotionPaths.add(source, target, path + ".md5");
+                        promotionPaths.add(source, target, path + ".sha1");
+                    }
+                    break;
+
+                case GENERIC_PKG_KEY:
+                    String remoteName = source.getName();
+                    String hostedName = getGenericHostedRepoName(remoteName);
+                    target = new StoreKey(packageType, StoreType.hosted, hostedName);
+                    break;
+
+                default:
+                    // do not promote anything else anywhere
+                    break;
+            }
+        }
+    }
+
     public List<ArchiveDownloadEntry> collectArchivalArtifacts(TrackedContentDTO report)
             throws RepositoryDriverException {
-        List<RepositoryArtifact> downloads = collectDownloadedArtifacts(report);
+        return collectArchivalArtifacts(collectDownloadedArtifacts(report));
+    }
+
+    /**
+     * Converts already collected (and sorted) downloads to the archival entries.
+     */
+    public List<ArchiveDownloadEntry> collectArchivalArtifacts(List<RepositoryArtifact> downloads) {
         if (downloads == null) {
             return Collections.emptyList();
         }
@@ -210,8 +367,8 @@ public class TrackingReportProcessor {
         List<ArchiveDownloadEntry> deps = new ArrayList<>(downloads.size());
         for (RepositoryArtifact download : downloads) {
             if (download.getTargetRepository().getRepositoryType() == RepositoryType.GENERIC_PROXY) {
-                // Don't archive GENERIC_PROXY artifacts
-                break;
+                // Don't archive GENERIC_PROXY artifacts, the downloads sorted after them still are
+                continue;
             }
 
             ArchiveDownloadEntry entry = fromTrackedContentEntry(download);
@@ -233,52 +390,108 @@ public class TrackingReportProcessor {
             return promotionPaths;
         }
         for (TrackedContentEntryDTO upload : uploads) {
-            String path = upload.getPath();
-            StoreKey storeKey = upload.getStoreKey();
-            if (artifactFilter.acceptsForPromotion(upload, false)) {
-                String packageType = TypeConverters.getIndyPackageTypeKey(repositoryType);
-                StoreKey source = new StoreKey(packageType, StoreType.hosted, buildContentId);
-                StoreKey target = new StoreKey(packageType, StoreType.hosted, getBuildPromotionTarget(tempBuild));
-                promotionPaths.add(source, target, path);
-                if (MAVEN_PKG_KEY.equals(storeKey.getPackageType()) && isNotChecksum(path)) {
-                    // add the standard checksums to ensure, they are promoted (Maven usually uses only one, so
-                    // the other would be missing) but avoid adding checksums of checksums.
-                    promotionPaths.add(source, target, path + ".md5");
-                    promotionPaths.add(source, target, path + ".sha1");
-                }
-            }
+            collectUploadPromotion(upload, tempBuild, repositoryType, buildContentId, promotionPaths);
         }
         return promotionPaths;
     }
 
+    void collectUploadPromotion(
+            TrackedContentEntryDTO upload,
+            boolean tempBuild,
+            RepositoryType repositoryType,
+            String buildContentId,
+            PromotionPaths promotionPaths) {
+        String path = upload.getPath();
+        StoreKey storeKey = upload.getStoreKey();
+        if (artifactFilter.acceptsForPromotion(upload, false)) {
+            String packageType = TypeConverters.getIndyPackageTypeKey(repositoryType);
+            StoreKey source = new StoreKey(packageType, StoreType.hosted, buildContentId);
+            StoreKey target = new StoreKey(packageType, StoreType.hosted, getBuildPromotionTarget(tempBuild));
+            promotionPaths.add(source, target, path);
+            if (MAVEN_PKG_KEY.equals(storeKey.getPackageType()) && isNotChecksum(path)) {
+                // add the standard checksums to ensure, they are promoted (Maven usually uses only one, so
+                // the other would be missing) but avoid adding checksums of checksums.
+                promotionPaths.add(source, target, path + ".md5");
+                promotionPaths.add(source, target, path + ".sha1");
+            }
+        }
+    }
+
+    /**
+     * Moves the artifacts to a memory-mapped file if there are at least {@link Configuration#getSpillThreshold()} of
+     * them. If the spilling fails, the artifacts are kept in memory.
+     *
+     * The artifacts are spilled once they are all collected, so this reduces the heap held by the collected artifacts
+     * for the rest of the promotion, in the cache and the results, not the peak during the collection. The downloads
+     * have to be sorted before they are written and the parallel collection builds the whole list, incremental spilling
+     * of the collection is out of scope.
+     *
+     * @return the spilled artifacts or the same list
+     */
+    List<RepositoryArtifact> spill(List<RepositoryArtifact> artifacts) {
+        int threshold = configuration.getSpillThreshold();
+        if (threshold <= 0 || artifacts.size() < threshold) {
+            return artifacts;
+        }
+        try {
+            return SpilledArtifacts.spill(artifacts, Paths.get(configuration.getSpillDir()));
+        } catch (IOException e) {
+            logger.warn("Cannot spill {} artifacts, keeping them in memory.", artifacts.size(), e);
+            return artifacts;
+        }
+    }
+
+    /**
+     * Creates a collector of the tracking report entries for a promotion. Collected are downloaded and uploaded
+     * artifacts and the paths to promote.
+     */
+    public TrackingReportCollector newPromotionCollector(
+            boolean tempBuild,
+            BuildCategory buildCategory,
+            RepositoryType repositoryType,
+            String buildContentId) {
+        return new TrackingReportCollector(this, tempBuild, buildCategory, repositoryType, buildContentId, true);
+    }
+
+    /**
+     * Creates a collector of the tracking report entries collecting only downloaded and uploaded artifacts.
+     */
+    public TrackingReportCollector newResultCollector(boolean tempBuild, BuildCategory buildCategory) {
+        return new TrackingReportCollector(this, tempBuild, buildCategory, null, null, true);
+    }
+
+    /**
+     * Creates a collector of the tracking report entries collecting only downloaded artifacts.
+     */
+    public TrackingReportCollector newDownloadsCollector() {
+        return new TrackingReportCollector(this, false, null, null, null, false);
+    }
+
     /**
-     * Computes identifier string for an artifact. If the download path is valid for a package-type specific artifact it
-     * creates the identifier accordingly.
+     * Computes identifier and purl strings for an artifact, the path is parsed only once for both and the parsed
+     * package-type specific coordinates are cached. If the path is valid for a package-type specific artifact it
+     * creates the identifier and purl accordingly, otherwise generic ones are created.
      *
-     * @param transfer the download or upload that we want to generate identifier for
-     * @return generated identifier
+     * @param transfer the download or upload that we want to generate identifier and purl for
+     * @return generated identifier and purl, the purl is null if it cannot be calculated
      */
-    private String computeIdentifier(final TrackedContentEntryDTO transfer) {
+    ArtifactCoordinates computeCoordinates(final TrackedContentEntryDTO transfer) {
         String identifier = null;
+        String purl = null;
+        boolean purlMalformed = false;
 
-        switch (transfer.getStoreKey().getPackageType()) {
+        String packageType = transfer.getStoreKey().getPackageType();
+        switch (packageType) {
             case MAVEN_PKG_KEY:
-                ArtifactPathInfo pathInfo = ArtifactPathInfo.parse(transfer.getPath());
-                if (pathInfo != null) {
-                    ArtifactRef aref = new SimpleArtifactRef(
-                            pathInfo.getProjectId(),
-                            pathInfo.getType(),
-                            pathInfo.getClassifier());
-                    identifier = aref.toString();
-                }
-                break;
-
             case NPM_PKG_KEY:
-                NpmPackagePathInfo npmPathInfo = NpmPackagePathInfo.parse(transfer.getPath());
-                if (npmPathInfo != null) {
-                    NpmPackageRef packageRef = new NpmPackageRef(npmPathInfo.getName(), npmPathInfo.getVersion());
-                    identifier = packageRef.toString();
+                ArtifactCoordinates coordinates = coordinatesCache.get(packageType, transfer.getPath());
+                if (coordinates == null) {
+                    coordinates = computePackageCoordinates(packageType, transfer.getPath());
+                    coordinatesCache.put(packageType, transfer.getPath(), coordinates);
                 }
+                identifier = coordinates.getIdentifier();
+                purl = coordinates.getPurl();
+                purlMalformed = coordinates.isPurlMalformed();
                 break;
 
             case GENERIC_PKG_KEY:
@@ -287,12 +500,28 @@ public class TrackingReportProcessor {
 
             default:
                 // do not do anything by default
-                logger.warn(
-                        "Package type {} is not handled by Indy repository session.",
-                        transfer.getStoreKey().getPackageType());
+                logger.warn("Package type {} is not handled by Indy repository session.", packageType);
                 break;
         }
 
+        try {
+            // a package-type specific artifact with a malformed purl is left without purl
+            if (purl == null && !purlMalformed) {
+                purl = computeGenericPurl(
+                        transfer.getPath(),
+                        transfer.getOriginUrl(),
+                        transfer.getLocalUrl(),
+                        transfer.getSha256());
+            }
+
+        } catch (MalformedPackageURLException ex) {
+            logger.error(
+                    "Cannot calculate purl for path {}. Reason given was: {}.",
+                    transfer.getPath(),
+                    ex.getMessage(),
+                    ex);
+        }
+
         if (identifier == null) {
             identifier = computeGenericIdentifier(
                     transfer.getOriginUrl(),
@@ -300,96 +529,89 @@ public class TrackingReportProcessor {
                     transfer.getSha256());
         }
 
-        return identifier;
+        return new ArtifactCoordinates(identifier, purl);
     }
 
     /**
-     * Computes purl string for an artifact.
+     * The identifier is computed first, it is kept also when the purl cannot be built.
      *
-     * @param transfer the download or upload that we want to generate identifier for
-     * @return generated purl
+     * @return the maven or npm coordinates, {@link ArtifactCoordinatesCache#NOT_PARSABLE} if the path is not valid for
+     *         the package type
      */
-    private String computePurl(final TrackedContentEntryDTO transfer) {
-        String purl = null;
-
+    private ArtifactCoordinates computePackageCoordinates(String packageType, String path) {
+        String identifier = null;
         try {
-            switch (transfer.getStoreKey().getPackageType()) {
-                case MAVEN_PKG_KEY:
-
-                    ArtifactPathInfo pathInfo = ArtifactPathInfo.parse(transfer.getPath());
-                    if (pathInfo != null) {
-                        // See https://github.com/package-url/purl-spec/blob/master/PURL-TYPES.rst#maven
-                        PackageURLBuilder purlBuilder = PackageURLBuilder.aPackageURL()
-                                .withType(PackageURL.StandardTypes.MAVEN)
-                                .withNamespace(pathInfo.getProjectId().getGroupId())
-                                .withName(pathInfo.getProjectId().getArtifactId())
-                                .withVersion(pathInfo.getVersion())
-                                .withQualifier(
-                                        "type",
-                                        StringUtils.isEmpty(pathInfo.getType()) ? "jar" : pathInfo.getType());
-
-                        if (!StringUtils.isEmpty(pathInfo.getClassifier())) {
-                            purlBuilder.withQualifier("classifier", pathInfo.getClassifier());
-                        }
-                        purl = purlBuilder.build().toString();
-                    }
-                    break;
-
-                case NPM_PKG_KEY:
+            if (MAVEN_PKG_KEY.equals(packageType)) {
+                ArtifactPathInfo pathInfo = ArtifactPathInfo.parse(path);
+                if (pathInfo == null) {
+                    return ArtifactCoordinatesCache.NOT_PARSABLE;
+                }
+                identifier = computeMavenIdentifier(pathInfo);
+                return new ArtifactCoordinates(identifier, computeMavenPurl(pathInfo));
+            } else {
+                NpmPackagePathInfo npmPathInfo = NpmPackagePathInfo.parse(path);
+                if (npmPathInfo == null) {
+                    return ArtifactCoordinatesCache.NOT_PARSABLE;
+                }
+                identifier = computeNpmIdentifier(npmPathInfo);
+                return new ArtifactCoordinates(identifier, computeNpmPurl(npmPathInfo));
+            }
+        } catch (MalformedPackageURLException ex) {
+            logger.error("Cannot calculate purl for path {}. Reason given was: {}.", path, ex.getMessage(), ex);
+            return ArtifactCoordinates.withMalformedPurl(identifier);
+        }
+    }
 
-                    NpmPackagePathInfo npmPathInfo = NpmPackagePathInfo.parse(transfer.getPath());
-                    if (npmPathInfo != null) {
-                        // See https://github.com/package-url/purl-spec/blob/master/PURL-TYPES.rst#npm
-                        PackageURLBuilder purlBuilder = PackageURLBuilder.aPackageURL()
-                                .withType(PackageURL.StandardTypes.NPM)
-                                .withVersion(npmPathInfo.getVersion().toString());
-
-                        String[] scopeAndName = npmPathInfo.getName().split("/");
-                        if (scopeAndName != null && scopeAndName.length > 0) {
-                            if (scopeAndName.length == 1) {
-                                // No scope
-                                purlBuilder.withName(scopeAndName[0]);
-
-                                purl = purlBuilder.build().toString();
-                            } else if (scopeAndName.length == 2) {
-                                // Scoped package
-                                purlBuilder.withNamespace(scopeAndName[0]);
-                                purlBuilder.withName(scopeAndName[1]);
-
-                                purl = purlBuilder.build().toString();
-                            }
-                        }
-                    }
-                    break;
+    private String computeMavenIdentifier(ArtifactPathInfo pathInfo) {
+        ArtifactRef aref = new SimpleArtifactRef(pathInfo.getProjectId(), pathInfo.getType(), pathInfo.getClassifier());
+        return aref.toString();
+    }
 
-                case GENERIC_PKG_KEY:
-                    // handle generic downloads along with other invalid download paths for other package types
-                    break;
+    String computeMavenPurl(ArtifactPathInfo pathInfo) throws MalformedPackageURLException {
+        // See https://github.com/package-url/purl-spec/blob/master/PURL-TYPES.rst#maven
+        PackageURLBuilder purlBuilder = PackageURLBuilder.aPackageURL()
+                .withType(PackageURL.StandardTypes.MAVEN)
+                .withNamespace(pathInfo.getProjectId().getGroupId())
+                .withName(pathInfo.getProjectId().getArtifactId())
+                .withVersion(pathInfo.getVersion())
+                .withQualifier("type", StringUtils.isEmpty(pathInfo.getType()) ? "jar" : pathInfo.getType());
+
+        if (!StringUtils.isEmpty(pathInfo.getClassifier())) {
+            purlBuilder.withQualifier("classifier", pathInfo.getClassifier());
+        }
+        return purlBuilder.build().toString();
+    }
 
-                default:
-                    // do not do anything by default
-                    logger.warn(
-                            "Package type {} is not handled by Indy repository session.",
-                            transfer.getStoreKey().getPackageType());
-                    break;
-            }
+    private String computeNpmIdentifier(NpmPackagePathInfo npmPathInfo) {
+        NpmPackageRef packageRef = new NpmPackageRef(npmPathInfo.getName(), npmPathInfo.getVersion());
+        return packageRef.toString();
+    }
 
-            if (purl == null) {
-                purl = computeGenericPurl(
-                        transfer.getPath(),
-                        transfer.getOriginUrl(),
-                        transfer.getLocalUrl(),
-                        transfer.getSha256());
+    /**
+     * @return the purl or null if the package name is not valid
+     */
+    private String computeNpmPurl(NpmPackagePathInfo npmPathInfo) throws MalformedPackageURLException {
+        // See https://github.com/package-url/purl-spec/blob/master/PURL-TYPES.rst#npm
+        PackageURLBuilder purlBuilder = PackageURLBuilder.aPackageURL()
+                .withType(PackageURL.StandardTypes.NPM)
+                .withVersion(npmPathInfo.getVersion().toString());
+
+        String[] scopeAndName = npmPathInfo.getName().split("/");
+        if (scopeAndName != null && scopeAndName.length > 0) {
+            if (scopeAndName.length == 1) {
+                // No scope
+                purlBuilder.withName(scopeAndName[0]);
+
+                return purlBuilder.build().toString();
+            } else if (scopeAndName.length == 2) {
+                // Scoped package
+                purlBuilder.withNamespace(scopeAndName[0]);
+                purlBuilder.withName(scopeAndName[1]);
+
+                return purlBuilder.build().toString();
             }
-
-        } catch (MalformedPackageURLException ex) {
-            logger.error(
-                    "Cannot calculate purl for path {}. Reason given was: {}.",
-                    transfer.getPath(),
-                    ex.getMessage(),
-                    ex);
         }
-        return purl;
+        return null;
     }
 
     /**
@@ -438,6 +660,17 @@ public class TrackingReportProcessor {
         return purlBuilder.build().toString();
     }
 
+    private TargetRepository getDownloadsTargetRepository(
+            TrackedContentEntryDTO download,
+            TargetRepositoryCache targetRepositories) throws RepositoryDriverException {
+        TargetRepository targetRepository = targetRepositories.getForDownload(download.getStoreKey());
+        if (targetRepository == null) {
+            targetRepository = getDownloadsTargetRepository(download);
+            targetRepositories.putForDownload(download.getStoreKey(), targetRepository);
+        }
+        return targetRepository;
+    }
+
     private TargetRepository getDownloadsTargetRepository(TrackedContentEntryDTO download)
             throws RepositoryDriverException {
         String identifier;
@@ -502,25 +735,6 @@ public class TrackingReportProcessor {
         return hostedName;
     }
 
-    /**
-     * Check artifact for any validation errors. If there are constraint violations, then a RepositoryManagerException
-     * is thrown. Otherwise the artifact is returned.
-     *
-     * @param artifact to validate
-     * @return the same artifact
-     * @throws RepositoryDriverException if there are constraint violations
-     */
-    private RepositoryArtifact validateArtifact(RepositoryArtifact artifact) throws RepositoryDriverException {
-        Set<ConstraintViolation<RepositoryArtifact>> violations = validator.validate(artifact);
-        if (!violations.isEmpty()) {
-            throw new RepositoryDriverException(
-                    "Repository manager returned invalid artifact: " + artifact.toString()
-                            + " Constraint Violations: %s",
-                    violations);
-        }
-        return artifact;
-    }
-
     private TargetRepository getUploadsTargetRepository(RepositoryType repoType, boolean tempBuild)
             throws RepositoryDriverException {
 
@@ -555,11 +769,8 @@ public class TrackingReportProcessor {
     }
 
     private StoreKey getSharedImportsPromotionTarget(String packageType, Map<String, StoreKey> promotionTargetsCache) {
-        if (!promotionTargetsCache.containsKey(packageType)) {
-            StoreKey storeKey = new StoreKey(packageType, StoreType.hosted, SHARED_IMPORTS_ID);
-            promotionTargetsCache.put(packageType, storeKey);
-        }
-        return promotionTargetsCache.get(packageType);
+        return promotionTargetsCache
+                .computeIfAbsent(packageType, type -> new StoreKey(type, StoreType.hosted, SHARED_IMPORTS_ID));
     }
 
     private String getBuildPromotionTarget(boolean tempBuild) {
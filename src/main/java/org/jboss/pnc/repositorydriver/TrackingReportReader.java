@@ -0,0 +1,72 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.commonjava.indy.model.core.io.IndyObjectMapper;
+
+/**
+ * Reads a tracking report (the JSON representation of TrackedContentDTO) as a token stream and passes the entries to a
+ * {@link TrackedContentVisitor} as soon as they are parsed. Only a single entry is held in memory at a time.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@ApplicationScoped
+public class TrackingReportReader {
+
+    private static final String DOWNLOADS = "downloads";
+    private static final String UPLOADS = "uploads";
+
+    private final ObjectMapper mapper = new IndyObjectMapper(true);
+
+    /**
+     * Parses the report and closes the stream.
+     *
+     * @param stream stream of the JSON tracking report
+     * @param visitor receiver of the parsed entries
+     * @throws IOException when the stream cannot be read or it does not contain a tracking report
+     */
+    public void read(InputStream stream, TrackedContentVisitor visitor) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Tracking report is expected to be a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case DOWNLOADS:
+                        readEntries(parser, visitor::visitDownload);
+                        break;
+                    case UPLOADS:
+                        readEntries(parser, visitor::visitUpload);
+                        break;
+                    default:
+                        // tracking key and any other field
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+    }
+
+    private void readEntries(JsonParser parser, Consumer<TrackedContentEntryDTO> consumer) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Tracked entries are expected to be a JSON array.");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(mapper.readValue(parser, TrackedContentEntryDTO.class));
+        }
+    }
+}
@@ -18,9 +18,14 @@
 
 package org.jboss.pnc.repositorydriver.endpoints;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -29,14 +34,17 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
 import io.quarkus.security.Authenticated;
+import io.smallrye.mutiny.Uni;
 import org.jboss.pnc.api.repositorydriver.dto.ArchiveRequest;
 import org.jboss.pnc.api.repositorydriver.dto.RepositoryCollectRequest;
 import org.jboss.pnc.api.repositorydriver.dto.RepositoryCreateRequest;
 import org.jboss.pnc.api.repositorydriver.dto.RepositoryCreateResponse;
 import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteRequest;
 import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteResult;
+import org.jboss.pnc.repositorydriver.ArchiveStatus;
 import org.jboss.pnc.repositorydriver.Driver;
-import org.jboss.pnc.repositorydriver.RepositoryDriverException;
+import org.jboss.pnc.repositorydriver.MdcUtils;
+import org.jboss.pnc.repositorydriver.Pool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +62,10 @@ public class Public {
     @Inject
     Driver driver;
 
+    @Inject
+    @Pool(Pool.INDY)
+    ExecutorService indyExecutor;
+
     /**
      * Create a new repository for the build. If Indy responds with en error an error response is returned to the
      * invoker.
@@ -61,10 +73,9 @@ public class Public {
     @Authenticated
     @POST
     @Path("/create")
-    public RepositoryCreateResponse create(RepositoryCreateRequest repositoryCreateRequest)
-            throws RepositoryDriverException {
+    public Uni<RepositoryCreateResponse> create(RepositoryCreateRequest repositoryCreateRequest) {
         logger.info("Requested new repository: {}", repositoryCreateRequest.getBuildContentId());
-        return driver.create(repositoryCreateRequest);
+        return onIndyPool(() -> driver.create(repositoryCreateRequest));
     }
 
     /**
@@ -75,9 +86,12 @@ public class Public {
     @Authenticated
     @PUT
     @Path("/seal")
-    public void seal(String buildContentId) throws RepositoryDriverException {
+    public Uni<Void> seal(String buildContentId) {
         logger.info("Sealing: {}", buildContentId);
-        driver.sealTrackingReport(buildContentId);
+        return onIndyPool(() -> {
+            driver.sealTrackingReport(buildContentId);
+            return null;
+        });
     }
 
     /**
@@ -88,17 +102,36 @@ public class Public {
     @Authenticated
     @PUT
     @Path("/promote")
-    public void promote(RepositoryPromoteRequest promoteRequest) throws RepositoryDriverException {
+    public Uni<Void> promote(RepositoryPromoteRequest promoteRequest) {
         logger.info("Requested promotion: {}", promoteRequest.getBuildContentId());
-        driver.promote(promoteRequest);
+        return onIndyPool(() -> {
+            driver.promote(promoteRequest);
+            return null;
+        });
     }
 
+    /**
+     * Accepts the archival, the downloads are submitted to the archive service asynchronously.
+     */
     @Authenticated
     @POST
     @Path("/archive")
-    public void archive(ArchiveRequest archiveRequest) throws RepositoryDriverException {
+    public Uni<Void> archive(ArchiveRequest archiveRequest) {
         logger.info("Requested archival: {}", archiveRequest.getBuildContentId());
-        driver.archive(archiveRequest);
+        return onIndyPool(() -> {
+            driver.archive(archiveRequest);
+            return null;
+        });
+    }
+
+    @GET
+    @Path("/archive/{id}")
+    public ArchiveStatus getArchiveStatus(@PathParam("id") String buildContentId) {
+        ArchiveStatus status = driver.getArchiveStatus(buildContentId);
+        if (status == null) {
+            throw new NotFoundException("No archival of " + buildContentId + ".");
+        }
+        return status;
     }
 
     /**
@@ -107,14 +140,30 @@ public class Public {
      */
     @GET
     @Path("/{id}/repository-manager-result")
-    public RepositoryPromoteResult collectRepoManagerResult(
+    public Uni<RepositoryPromoteResult> collectRepoManagerResult(
             @PathParam("id") String buildContentId,
-            RepositoryCollectRequest collectRequest) throws RepositoryDriverException {
+            RepositoryCollectRequest collectRequest) {
         logger.info("Getting repository manager result for build record id {}.", buildContentId);
-        return driver.collectRepoManagerResult(
-                buildContentId,
-                collectRequest.isTempBuild(),
-                collectRequest.getBuildCategory());
+        return onIndyPool(
+                () -> driver.collectRepoManagerResult(
+                        buildContentId,
+                        collectRequest.isTempBuild(),
+                        collectRequest.getBuildCategory()));
+    }
+
+    /**
+     * Runs the blocking call on the bounded Indy pool with the MDC of the request, the worker thread is released
+     * meanwhile. A failure of the call is passed as is to the exception mappers.
+     */
+    private <T> Uni<T> onIndyPool(Callable<T> call) {
+        Executor executor = task -> indyExecutor.execute(MdcUtils.withCurrentMdc(task));
+        return Uni.createFrom().<T> emitter(emitter -> {
+            try {
+                emitter.complete(call.call());
+            } catch (Exception e) {
+                emitter.fail(e);
+            }
+        }).runSubscriptionOn(executor);
     }
 
 }
@@ -25,10 +25,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.pnc.repositorydriver.PromotionJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +42,9 @@ public class ApplicationLifecycle {
 
     private static final Logger logger = LoggerFactory.getLogger(ApplicationLifecycle.class);
 
+    @Inject
+    PromotionJournal promotionJournal;
+
     private AtomicInteger activePromotions = new AtomicInteger();
     private boolean shuttingDown;
 
@@ -48,6 +53,10 @@ public class ApplicationLifecycle {
 
     void onStop(@Observes ShutdownEvent event) {
         shuttingDown = true;
+        if (promotionJournal.isEnabled()) {
+            logger.info("Not waiting for {} promotions, they are resumed on the next start.", activePromotions.get());
+            return;
+        }
         Duration shutdownTimeout = ConfigProvider.getConfig().getValue("quarkus.shutdown.timeout", Duration.class);
         Instant shutdownStarted = Instant.now();
         while (activePromotions.get() > 0) {
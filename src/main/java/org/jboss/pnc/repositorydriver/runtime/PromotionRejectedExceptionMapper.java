@@ -0,0 +1,27 @@
+package org.jboss.pnc.repositorydriver.runtime;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.jboss.pnc.repositorydriver.PromotionRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@Provider
+public class PromotionRejectedExceptionMapper implements ExceptionMapper<PromotionRejectedException> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionRejectedExceptionMapper.class);
+
+    @Override
+    public Response toResponse(PromotionRejectedException e) {
+        logger.warn("Promotion rejected: {}", e.getMessage());
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Math.max(1, e.getRetryAfter().getSeconds()))
+                .build();
+    }
+}
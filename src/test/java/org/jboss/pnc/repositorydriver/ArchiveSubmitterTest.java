@@ -0,0 +1,166 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class ArchiveSubmitterTest {
+
+    private ArchiveSubmitter submitter;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void beforeEach() {
+        executor = Executors.newFixedThreadPool(2);
+        submitter = new ArchiveSubmitter();
+        submitter.configuration = new Configuration();
+        submitter.configuration.setArchiveEndpoint("http://archive/archival");
+        submitter.configuration.setArchivePageSize(0);
+        submitter.configuration.setArchiveParallelism(2);
+        submitter.configuration.setArchiveRetryDuration(Duration.ofSeconds(1));
+        submitter.configuration.setArchiveRetryDelay(Duration.ofMillis(50));
+        submitter.configuration.setArchiveRetryMaxDelay(Duration.ofMillis(100));
+        submitter.configuration.setArchiveStatusRetention(Duration.ofMinutes(1));
+        submitter.configuration.setHttpClientRequestTimeout(5);
+        submitter.httpClient = Mockito.mock(HttpClient.class);
+        submitter.jsonMapper = Mockito.spy(new ObjectMapper());
+        submitter.serviceTokens = Mockito.mock(ServiceAccountTokens.class);
+        submitter.submissionExecutor = executor;
+        submitter.init();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldSubmitAllDownloadsInSingleRequestByDefault() throws Exception {
+        // given
+        respondWith(200);
+        ArchiveStatus status = submitter.accepted("build-1");
+
+        // when
+        submitter.submit("1", downloads(5), status);
+
+        // then
+        List<ArchivePayload> payloads = submittedPayloads(1);
+        Assertions.assertEquals(5, payloads.get(0).getDownloads().size());
+        Assertions.assertNull(payloads.get(0).getPage());
+        Assertions.assertNull(payloads.get(0).getPages());
+        Assertions.assertEquals(ArchiveStatus.State.SUCCESS, status.getState());
+        Assertions.assertEquals(1, status.getSubmittedPages());
+    }
+
+    @Test
+    public void shouldSubmitPages() throws Exception {
+        // given
+        submitter.configuration.setArchivePageSize(2);
+        respondWith(200);
+        ArchiveStatus status = submitter.accepted("build-1");
+
+        // when
+        submitter.submit("1", downloads(5), status);
+
+        // then
+        List<ArchivePayload> payloads = submittedPayloads(3);
+        Assertions.assertEquals(
+                List.of(0, 1, 2),
+                payloads.stream().map(ArchivePayload::getPage).sorted().collect(Collectors.toList()));
+        payloads.forEach(payload -> Assertions.assertEquals(3, payload.getPages()));
+        Assertions.assertEquals(
+                List.of("/p0", "/p1", "/p2", "/p3", "/p4"),
+                payloads.stream()
+                        .flatMap(payload -> payload.getDownloads().stream())
+                        .map(ArchiveDownloadEntry::getPath)
+                        .sorted()
+                        .collect(Collectors.toList()));
+        Assertions.assertEquals(ArchiveStatus.State.SUCCESS, status.getState());
+        Assertions.assertEquals(3, status.getPages());
+        Assertions.assertEquals(3, status.getSubmittedPages());
+    }
+
+    @Test
+    public void shouldRetryFailedPage() throws Exception {
+        // given
+        HttpResponse<Object> unavailable = response(503);
+        HttpResponse<Object> ok = response(200);
+        Mockito.when(submitter.httpClient.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(unavailable))
+                .thenReturn(CompletableFuture.completedFuture(ok));
+        ArchiveStatus status = submitter.accepted("build-1");
+
+        // when
+        submitter.submit("1", downloads(1), status);
+
+        // then
+        Mockito.verify(submitter.httpClient, Mockito.times(2)).sendAsync(any(), any());
+        Assertions.assertEquals(ArchiveStatus.State.SUCCESS, status.getState());
+    }
+
+    @Test
+    public void shouldFailWhenRetriesAreExhausted() throws Exception {
+        // given
+        respondWith(500);
+        ArchiveStatus status = submitter.accepted("build-1");
+
+        // when
+        submitter.submit("1", downloads(1), status);
+
+        // then
+        Mockito.verify(submitter.httpClient, Mockito.atLeast(2)).sendAsync(any(), any());
+        Assertions.assertEquals(ArchiveStatus.State.FAILED, status.getState());
+        Assertions.assertEquals(0, status.getSubmittedPages());
+        Assertions.assertTrue(status.getMessage().contains("500"), status.getMessage());
+        Assertions.assertSame(status, submitter.getStatus("build-1"));
+    }
+
+    private void respondWith(int statusCode) {
+        HttpResponse<Object> response = response(statusCode);
+        Mockito.when(submitter.httpClient.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<Object> response(int statusCode) {
+        HttpResponse<Object> response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.statusCode()).thenReturn(statusCode);
+        return response;
+    }
+
+    private List<ArchivePayload> submittedPayloads(int count) throws Exception {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(submitter.jsonMapper, Mockito.times(count))
+                .writeValue(any(OutputStream.class), payloads.capture());
+        return payloads.getAllValues().stream().map(ArchivePayload.class::cast).collect(Collectors.toList());
+    }
+
+    private static List<ArchiveDownloadEntry> downloads(int count) {
+        List<ArchiveDownloadEntry> downloads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            downloads.add(ArchiveDownloadEntry.builder().path("/p" + i).md5("md5-" + i).size((long) i).build());
+        }
+        return downloads;
+    }
+}
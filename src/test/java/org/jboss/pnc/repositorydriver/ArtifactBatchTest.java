@@ -0,0 +1,144 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.RepositoryType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.jboss.pnc.api.repositorydriver.dto.TargetRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class ArtifactBatchTest {
+
+    private static final TargetRepository SHARED_IMPORTS = TargetRepository.builder()
+            .identifier("indy-maven")
+            .repositoryType(RepositoryType.MAVEN)
+            .repositoryPath("/api/content/maven/hosted/shared-imports/")
+            .temporaryRepo(false)
+            .build();
+
+    @Test
+    public void shouldReadTheSameArtifacts() {
+        // given
+        List<RepositoryArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            artifacts.add(artifact(i));
+        }
+        // values that don't fit the columns
+        artifacts.add(
+                RepositoryArtifact.builder()
+                        .identifier("org.jboss:irregular:jar:1.0")
+                        .md5("D41D8CD98F00B204E9800998ECF8427E")
+                        .sha1("not-a-checksum")
+                        .deployPath("irregular.jar")
+                        .filename("other.jar")
+                        .originUrl("irregular.jar")
+                        .build());
+        artifacts.add(RepositoryArtifact.builder().identifier("org.jboss:empty:jar:1.0").build());
+
+        // when
+        ArtifactBatch batch = new ArtifactBatch();
+        batch.addAll(artifacts);
+
+        // then
+        Assertions.assertEquals(describe(artifacts), describe(batch));
+        Assertions.assertSame(SHARED_IMPORTS, batch.get(1).getTargetRepository());
+    }
+
+    @Test
+    public void shouldSortByIdentifier() {
+        // given
+        List<RepositoryArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            artifacts.add(artifact((i * 37) % 100));
+        }
+        artifacts.add(RepositoryArtifact.builder().identifier("org.jboss:artifact-50:jar:1.0").md5("A").build());
+        ArtifactBatch batch = new ArtifactBatch();
+        batch.addAll(artifacts);
+
+        // when
+        artifacts.sort(TrackingReportProcessor.IDENTIFIER_ORDER);
+        batch.sort(TrackingReportProcessor.IDENTIFIER_ORDER);
+
+        // then
+        Assertions.assertEquals(describe(artifacts), describe(batch));
+    }
+
+    @Test
+    public void shouldTakeLessMemoryThanTheArtifacts() {
+        // given
+        List<RepositoryArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            artifacts.add(artifact(i));
+        }
+
+        // when
+        ArtifactBatch batch = new ArtifactBatch();
+        batch.addAll(artifacts);
+
+        // then
+        // identifiers and purls are kept as they are in both
+        List<String> kept = new ArrayList<>();
+        artifacts.forEach(a -> {
+            kept.add(a.getIdentifier());
+            kept.add(a.getPurl());
+        });
+        GraphLayout keptLayout = GraphLayout.parseInstance(kept);
+        long artifactsSize = GraphLayout.parseInstance(artifacts).subtract(keptLayout).totalSize();
+        long batchSize = GraphLayout.parseInstance(batch).subtract(keptLayout).totalSize();
+        Assertions.assertTrue(
+                batchSize * 2 < artifactsSize,
+                "The batch takes " + batchSize + " bytes, the artifacts " + artifactsSize + " bytes.");
+    }
+
+    private static RepositoryArtifact artifact(int i) {
+        // a jar and a pom in each directory
+        int gav = i / 2;
+        String name = "artifact-" + (gav % 500);
+        String version = "1." + (gav / 500);
+        String filename = name + "-" + version + (i % 2 == 0 ? ".jar" : ".pom");
+        String path = "/org/jboss/" + name + "/" + version + "/" + filename;
+        return RepositoryArtifact.builder()
+                .identifier("org.jboss:" + name + ":jar:" + version)
+                .purl("pkg:maven/org.jboss/" + name + "@" + version + "?type=jar")
+                .md5(String.format("%032x", i))
+                .sha1(String.format("%040x", i))
+                .sha256(String.format("%064x", i))
+                .size((long) i)
+                .deployPath(path)
+                .filename(filename)
+                .originUrl(i % 4 < 2 ? null : "https://repo1.maven.org/maven2" + path)
+                .importDate(i % 3 == 0 ? null : Instant.ofEpochSecond(1_600_000_000L + i, i))
+                .buildCategory(i % 5 == 0 ? null : BuildCategory.STANDARD)
+                .targetRepository(SHARED_IMPORTS)
+                .build();
+    }
+
+    private static List<String> describe(List<RepositoryArtifact> artifacts) {
+        return artifacts.stream()
+                .map(
+                        a -> String.join(
+                                "|",
+                                a.getIdentifier(),
+                                String.valueOf(a.getPurl()),
+                                String.valueOf(a.getMd5()),
+                                String.valueOf(a.getSha1()),
+                                String.valueOf(a.getSha256()),
+                                String.valueOf(a.getSize()),
+                                String.valueOf(a.getDeployPath()),
+                                String.valueOf(a.getFilename()),
+                                String.valueOf(a.getOriginUrl()),
+                                String.valueOf(a.getImportDate()),
+                                String.valueOf(a.getBuildCategory()),
+                                String.valueOf(a.getTargetRepository())))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,132 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.commonjava.indy.model.core.AccessChannel;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class ArtifactCollectionTaskTest {
+
+    private static final Comparator<RepositoryArtifact> ORDER = Comparator.comparing(RepositoryArtifact::getIdentifier);
+
+    /**
+     * Identifiers repeat, so the result is the same only if the merge keeps the sort stable.
+     */
+    private final ArtifactCollectionTask.EntryCollector collector = (entry, artifacts) -> artifacts.add(
+            RepositoryArtifact.builder()
+                    .identifier("id-" + (entry.getPath().hashCode() & 0xff))
+                    .deployPath(entry.getPath())
+                    .build());
+
+    @Test
+    public void shouldCollectTheSameAsSequentialSortedCollection() throws RepositoryDriverException {
+        // given
+        TrackedContentEntryDTO[] entries = entries(10_000);
+
+        List<RepositoryArtifact> expected = new ArrayList<>();
+        for (TrackedContentEntryDTO entry : entries) {
+            collector.collect(entry, expected);
+        }
+        expected.sort(ORDER);
+
+        // when
+        List<RepositoryArtifact> collected = ForkJoinPool.commonPool()
+                .invoke(new ArtifactCollectionTask(entries, 0, entries.length, 100, collector, ORDER))
+                .get();
+
+        // then
+        Assertions.assertEquals(paths(expected), paths(collected));
+    }
+
+    @Test
+    public void shouldKeepEntriesOrderWithoutSorting() throws RepositoryDriverException {
+        // given
+        TrackedContentEntryDTO[] entries = entries(1_000);
+
+        // when
+        List<RepositoryArtifact> collected = ForkJoinPool.commonPool()
+                .invoke(new ArtifactCollectionTask(entries, 0, entries.length, 10, collector, null))
+                .get();
+
+        // then
+        Assertions.assertEquals(entries.length, collected.size());
+        for (int i = 0; i < entries.length; i++) {
+            Assertions.assertEquals(entries[i].getPath(), collected.get(i).getDeployPath());
+        }
+    }
+
+    @Test
+    public void shouldFailWithTheFirstFailingEntry() {
+        // given
+        TrackedContentEntryDTO[] entries = entries(1_000);
+        ArtifactCollectionTask.EntryCollector failing = (entry, artifacts) -> {
+            if (entry.getPath().endsWith("/7")) {
+                throw new RepositoryDriverException("Failed %s", entry.getPath());
+            }
+        };
+
+        // when
+        ArtifactCollectionTask.Result result = ForkJoinPool.commonPool()
+                .invoke(new ArtifactCollectionTask(entries, 0, entries.length, 10, failing, ORDER));
+
+        // then
+        RepositoryDriverException exception = Assertions.assertThrows(RepositoryDriverException.class, result::get);
+        Assertions.assertEquals("Failed /path/7", exception.getMessage());
+    }
+
+    @Test
+    public void shouldCollectChunksWithCallerMdc() throws RepositoryDriverException {
+        // given
+        TrackedContentEntryDTO[] entries = entries(1_000);
+        Set<String> processContexts = ConcurrentHashMap.newKeySet();
+        ArtifactCollectionTask.EntryCollector recording = (entry, artifacts) -> {
+            processContexts.add(String.valueOf(MDC.get("processContext")));
+            collector.collect(entry, artifacts);
+        };
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        // when
+        ArtifactCollectionTask task;
+        MDC.put("processContext", "build-1");
+        try {
+            task = new ArtifactCollectionTask(entries, 0, entries.length, 10, recording, ORDER);
+        } finally {
+            MDC.remove("processContext");
+        }
+        List<RepositoryArtifact> collected;
+        try {
+            collected = pool.invoke(task).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        // then
+        Assertions.assertEquals(entries.length, collected.size());
+        Assertions.assertEquals(Set.of("build-1"), processContexts);
+    }
+
+    private TrackedContentEntryDTO[] entries(int count) {
+        TrackedContentEntryDTO[] entries = new TrackedContentEntryDTO[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = new TrackedContentEntryDTO(TrackingReportMocks.centralKey, AccessChannel.NATIVE, "/path/" + i);
+        }
+        return entries;
+    }
+
+    private List<String> paths(List<RepositoryArtifact> artifacts) {
+        return artifacts.stream().map(RepositoryArtifact::getDeployPath).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.validation.Validator;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.RepositoryType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.jboss.pnc.api.repositorydriver.dto.TargetRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@QuarkusTest
+public class ArtifactValidatorTest {
+
+    @Inject
+    ArtifactValidator artifactValidator;
+
+    @Inject
+    Validator validator;
+
+    @Test
+    public void shouldAgreeWithBeanValidation() {
+        // given
+        List<RepositoryArtifact> artifacts = samples();
+
+        // when
+        // then
+        Assertions.assertTrue(artifactValidator.isFastPathAvailable());
+        for (RepositoryArtifact artifact : artifacts) {
+            Assertions.assertEquals(
+                    validator.validate(artifact).isEmpty(),
+                    artifactValidator.accepts(artifact),
+                    "Validators disagree on " + artifact);
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidArtifact() throws RepositoryDriverException {
+        // given
+        List<RepositoryArtifact> artifacts = samples();
+
+        // when
+        // then
+        for (RepositoryArtifact artifact : artifacts) {
+            if (validator.validate(artifact).isEmpty()) {
+                Assertions.assertSame(artifact, artifactValidator.validate(artifact));
+            } else {
+                Assertions.assertThrows(RepositoryDriverException.class, () -> artifactValidator.validate(artifact));
+            }
+        }
+    }
+
+    private static List<RepositoryArtifact> samples() {
+        TargetRepository targetRepository = TargetRepository.builder()
+                .identifier("indy-maven")
+                .repositoryType(RepositoryType.MAVEN)
+                .repositoryPath("/api/content/maven/hosted/shared-imports/")
+                .temporaryRepo(false)
+                .build();
+        List<RepositoryArtifact> samples = new ArrayList<>();
+        samples.add(artifact().targetRepository(targetRepository).build());
+        samples.add(artifact().build());
+        samples.add(artifact().targetRepository(targetRepository).identifier(null).build());
+        samples.add(artifact().targetRepository(targetRepository).identifier("").build());
+        samples.add(artifact().targetRepository(targetRepository).identifier(" ").build());
+        samples.add(artifact().targetRepository(targetRepository).purl(null).build());
+        samples.add(artifact().targetRepository(targetRepository).md5(null).build());
+        samples.add(artifact().targetRepository(targetRepository).sha1(null).build());
+        samples.add(artifact().targetRepository(targetRepository).sha256(null).build());
+        samples.add(artifact().targetRepository(targetRepository).size(null).build());
+        samples.add(artifact().targetRepository(targetRepository).size(-1L).build());
+        samples.add(artifact().targetRepository(targetRepository).deployPath(null).build());
+        samples.add(artifact().targetRepository(targetRepository).deployPath("").build());
+        samples.add(artifact().targetRepository(targetRepository).filename(null).build());
+        samples.add(artifact().targetRepository(targetRepository).originUrl(null).build());
+        samples.add(artifact().targetRepository(targetRepository).importDate(null).build());
+        samples.add(artifact().targetRepository(targetRepository).buildCategory(BuildCategory.STANDARD).build());
+        samples.add(
+                artifact().targetRepository(
+                        TargetRepository.builder()
+                                .identifier(null)
+                                .repositoryType(null)
+                                .repositoryPath(null)
+                                .temporaryRepo(false)
+                                .build())
+                        .build());
+        samples.add(RepositoryArtifact.builder().build());
+        return samples;
+    }
+
+    private static RepositoryArtifact.Builder artifact() {
+        return RepositoryArtifact.builder()
+                .identifier("org.jboss:artifact:jar:1.0")
+                .purl("pkg:maven/org.jboss/artifact@1.0?type=jar")
+                .md5("d41d8cd98f00b204e9800998ecf8427e")
+                .sha1("da39a3ee5e6b4b0d3255bfef95601890afd80709")
+                .sha256("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855")
+                .size(1024L)
+                .deployPath("/org/jboss/artifact/1.0/artifact-1.0.jar")
+                .filename("artifact-1.0.jar")
+                .originUrl("https://repo1.maven.org/maven2/org/jboss/artifact/1.0/artifact-1.0.jar")
+                .importDate(Instant.now());
+    }
+}
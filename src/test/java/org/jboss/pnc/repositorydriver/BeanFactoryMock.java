@@ -1,15 +1,15 @@
 package org.jboss.pnc.repositorydriver;
 
+import java.util.Collections;
+
 import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
 
 import io.quarkus.test.Mock;
 import org.commonjava.indy.client.core.Indy;
 import org.commonjava.indy.client.core.IndyClientException;
 import org.commonjava.indy.client.core.IndyClientModule;
-import org.commonjava.indy.client.core.auth.IndyClientAuthenticator;
-import org.commonjava.indy.client.core.auth.OAuth20BearerTokenAuthenticator;
 import org.commonjava.indy.model.core.io.IndyObjectMapper;
-import org.commonjava.indy.promote.client.IndyPromoteClientModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,22 +22,22 @@ public class BeanFactoryMock extends BeanFactory {
     private static final Logger logger = LoggerFactory.getLogger(BeanFactoryMock.class);
 
     @Produces
+    @Singleton
     Indy createIndyServiceAccountClient() {
         IndyClientModule[] indyModules = new IndyClientModule[] { new IndyMock.IndyFoloAdminClientModuleMock(),
-                new IndyMock.IndyFoloContentClientModuleMock(), new IndyMock.IndyPromoteClientModuleMock() };
+                new IndyMock.IndyFoloContentClientModuleMock(), new IndyMock.IndyFoloReportClientModuleMock(),
+                new IndyMock.IndyPromoteClientModuleMock() };
 
-        IndyClientAuthenticator authenticator = new OAuth20BearerTokenAuthenticator(serviceTokens.getAccessToken());
         try {
-            indy = new IndyMock(
+            return new IndyMock(
                     indySiteConfig,
-                    authenticator,
+                    createAuthenticator(),
                     new IndyObjectMapper(true),
-                    MdcUtils.mdcToMapWithHeaderKeys(),
+                    Collections.emptyMap(),
                     indyModules);
-            return indy;
-        } catch (RepositoryDriverException | IndyClientException e) {
+        } catch (IndyClientException e) {
             logger.error("Failed to create Indy client: " + e.getMessage(), e);
-            return null;
+            throw new IllegalStateException("Failed to create Indy client.", e);
         }
     }
 }
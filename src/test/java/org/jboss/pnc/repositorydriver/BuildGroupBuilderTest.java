@@ -1,7 +1,13 @@
 package org.jboss.pnc.repositorydriver;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 import org.commonjava.indy.client.core.Indy;
 import org.commonjava.indy.client.core.IndyClientException;
@@ -12,6 +18,7 @@ import org.commonjava.indy.model.core.StoreKey;
 import org.commonjava.indy.model.core.dto.StoreListingDTO;
 import org.commonjava.indy.pkg.maven.model.MavenPackageTypeDescriptor;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -23,6 +30,24 @@ import static org.mockito.ArgumentMatchers.anyString;
  */
 public class BuildGroupBuilderTest {
 
+    private RemoteRepositoryIndex remoteIndex;
+
+    private IndyAsyncClient indyClient;
+
+    @BeforeEach
+    public void beforeEach() {
+        remoteIndex = new RemoteRepositoryIndex();
+        remoteIndex.configuration = new Configuration();
+        remoteIndex.configuration.setRemoteIndexRefreshInterval(Duration.ofMinutes(5));
+        remoteIndex.configuration.setRemoteIndexMissRefreshInterval(Duration.ofMinutes(1));
+        remoteIndex.executor = Mockito.mock(ExecutorService.class);
+
+        indyClient = new IndyAsyncClient();
+        indyClient.configuration = remoteIndex.configuration;
+        indyClient.configuration.setIndyStoresTimeout(Duration.ofMinutes(1));
+        indyClient.executor = Runnable::run;
+    }
+
     @Test
     public void shouldAddExtraRepositoryToBuildGroup() throws IndyClientException {
 
@@ -34,11 +59,13 @@ public class BuildGroupBuilderTest {
 
         Indy indy = Mockito.mock(Indy.class);
         Mockito.when(indy.stores()).thenReturn(indyStore);
+        indyClient.indy = indy;
 
         List<String> repositories = new ArrayList<>();
         repositories.add("http://test.com/maven");
         repositories.add("invalid url"); // should not be added
-        Group buildGroup = BuildGroupBuilder.builder(indy, MavenPackageTypeDescriptor.MAVEN_PKG_KEY, "build-X")
+        Group buildGroup = BuildGroupBuilder
+                .builder(indyClient, remoteIndex, MavenPackageTypeDescriptor.MAVEN_PKG_KEY, "build-X")
                 .addExtraConstituents(repositories)
                 .build();
 
@@ -46,4 +73,130 @@ public class BuildGroupBuilderTest {
         StoreKey storeKey = buildGroup.getConstituents().stream().findAny().get();
         Assertions.assertEquals("i-test-com", storeKey.getName());
     }
+
+    @Test
+    public void shouldReuseIndexedRepositoryAndAvoidTakenNames() throws IndyClientException {
+        // given
+        String maven = MavenPackageTypeDescriptor.MAVEN_PKG_KEY;
+        List<RemoteRepository> remotes = new ArrayList<>();
+        remotes.add(new RemoteRepository(maven, "i-test-com", "http://test.com/other"));
+        remotes.add(new RemoteRepository(maven, "existing", "HTTP://Test.com/maven/"));
+        StoreListingDTO<RemoteRepository> storeListing = new StoreListingDTO<>(remotes);
+
+        IndyStoresClientModule indyStore = existingStores("i-test-com", "existing");
+        Mockito.when(indyStore.listRemoteRepositories(any())).thenReturn(storeListing);
+        Indy indy = Mockito.mock(Indy.class);
+        Mockito.when(indy.stores()).thenReturn(indyStore);
+        indyClient.indy = indy;
+
+        // when
+        Group existingGroup = BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-X")
+                .addExtraConstituents(Collections.singletonList("http://test.com/maven"))
+                .build();
+        Group newGroup = BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-Y")
+                .addExtraConstituents(Collections.singletonList("http://test.com/new"))
+                .build();
+        Group sameNewGroup = BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-Z")
+                .addExtraConstituents(Collections.singletonList("http://test.com/new/"))
+                .build();
+
+        // then
+        Assertions.assertEquals("existing", existingGroup.getConstituents().get(0).getName());
+        Assertions.assertEquals("i-test-com-2", newGroup.getConstituents().get(0).getName());
+        Assertions.assertEquals("i-test-com-2", sameNewGroup.getConstituents().get(0).getName());
+        // the new URL is resolved against the index without listing the repositories again
+        Mockito.verify(indyStore, Mockito.times(1)).listRemoteRepositories(any());
+        Mockito.verify(indyStore, Mockito.times(1)).create(any(), anyString(), any());
+    }
+
+    @Test
+    public void shouldSkipNameTakenSinceIndexWasLoaded() throws IndyClientException {
+        // given
+        String maven = MavenPackageTypeDescriptor.MAVEN_PKG_KEY;
+        IndyStoresClientModule indyStore = existingStores("i-test-com");
+        Mockito.when(indyStore.listRemoteRepositories(any())).thenReturn(new StoreListingDTO<>());
+        Indy indy = Mockito.mock(Indy.class);
+        Mockito.when(indy.stores()).thenReturn(indyStore);
+        indyClient.indy = indy;
+
+        // when
+        Group buildGroup = BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-X")
+                .addExtraConstituents(Collections.singletonList("http://test.com/maven"))
+                .build();
+
+        // then
+        Assertions.assertEquals("i-test-com-2", buildGroup.getConstituents().get(0).getName());
+        Mockito.verify(indyStore, Mockito.times(1)).create(any(), anyString(), any());
+    }
+
+    @Test
+    public void shouldNotReuseRemovedRepository() throws IndyClientException {
+        // given
+        String maven = MavenPackageTypeDescriptor.MAVEN_PKG_KEY;
+        List<RemoteRepository> remotes = new ArrayList<>();
+        remotes.add(new RemoteRepository(maven, "removed", "http://test.com/maven"));
+        IndyStoresClientModule indyStore = existingStores();
+        Mockito.when(indyStore.listRemoteRepositories(any())).thenReturn(new StoreListingDTO<>(remotes));
+        Indy indy = Mockito.mock(Indy.class);
+        Mockito.when(indy.stores()).thenReturn(indyStore);
+        indyClient.indy = indy;
+
+        // when
+        Group buildGroup = BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-X")
+                .addExtraConstituents(Collections.singletonList("http://test.com/maven"))
+                .build();
+
+        // then
+        Assertions.assertEquals("i-test-com", buildGroup.getConstituents().get(0).getName());
+        Mockito.verify(indyStore, Mockito.times(1)).create(any(), anyString(), any());
+    }
+
+    @Test
+    public void shouldFindRepositoryCreatedSinceIndexWasLoadedOnceRefreshedAfterMiss() throws IndyClientException {
+        // given
+        remoteIndex.configuration.setRemoteIndexMissRefreshInterval(Duration.ZERO);
+        Mockito.doAnswer(invocation -> {
+            invocation.<Runnable> getArgument(0).run();
+            return null;
+        }).when(remoteIndex.executor).execute(any());
+        String maven = MavenPackageTypeDescriptor.MAVEN_PKG_KEY;
+        List<RemoteRepository> remotes = new ArrayList<>();
+        remotes.add(new RemoteRepository(maven, "created", "http://other.com/maven"));
+        IndyStoresClientModule indyStore = existingStores("created");
+        Mockito.when(indyStore.listRemoteRepositories(any()))
+                .thenReturn(new StoreListingDTO<>())
+                .thenReturn(new StoreListingDTO<>(remotes));
+        Indy indy = Mockito.mock(Indy.class);
+        Mockito.when(indy.stores()).thenReturn(indyStore);
+        indyClient.indy = indy;
+
+        // when
+        BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-X")
+                .addExtraConstituents(Collections.singletonList("http://test.com/maven"))
+                .build();
+        Group buildGroup = BuildGroupBuilder.builder(indyClient, remoteIndex, maven, "build-Y")
+                .addExtraConstituents(Collections.singletonList("http://other.com/maven"))
+                .build();
+
+        // then
+        Assertions.assertEquals("created", buildGroup.getConstituents().get(0).getName());
+        Mockito.verify(indyStore, Mockito.times(2)).listRemoteRepositories(any());
+        Mockito.verify(indyStore, Mockito.times(1)).create(any(), anyString(), any());
+    }
+
+    /**
+     * Stores with the remote repositories of the names and the ones created through them.
+     */
+    private static IndyStoresClientModule existingStores(String... names) throws IndyClientException {
+        Set<String> existing = ConcurrentHashMap.newKeySet();
+        existing.addAll(Arrays.asList(names));
+        IndyStoresClientModule indyStore = Mockito.mock(IndyStoresClientModule.class);
+        Mockito.when(indyStore.exists(any()))
+                .thenAnswer(invocation -> existing.contains(invocation.<StoreKey> getArgument(0).getName()));
+        Mockito.when(indyStore.create(any(), anyString(), any())).thenAnswer(invocation -> {
+            existing.add(invocation.<RemoteRepository> getArgument(0).getName());
+            return null;
+        });
+        return indyStore;
+    }
 }
@@ -0,0 +1,159 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jboss.pnc.api.dto.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class CallbackOutboxTest {
+
+    private CallbackOutbox outbox;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        outbox = new CallbackOutbox();
+        outbox.configuration = new Configuration();
+        outbox.configuration.setCallbackMaxPerHost(2);
+        outbox.configuration.setCallbackRetryDuration(600);
+        outbox.configuration.setCallbackRetryDelayMsec(50);
+        outbox.configuration.setCallbackRetryMaxDelayMsec(100);
+        outbox.configuration.setHttpClientRequestTimeout(5);
+        outbox.httpClient = Mockito.mock(HttpClient.class);
+        outbox.jsonMapper = new ObjectMapper();
+        outbox.meterRegistry = meterRegistry;
+        outbox.init();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        outbox.destroy();
+    }
+
+    @Test
+    public void shouldLimitCallbacksInFlightPerHost() throws InterruptedException {
+        // given
+        Mockito.when(outbox.httpClient.sendAsync(any(), any())).thenReturn(new CompletableFuture<>());
+
+        // when
+        outbox.send(callback("http://invoker-a/callback"), body("1"));
+        outbox.send(callback("http://invoker-a/callback"), body("2"));
+        outbox.send(callback("http://invoker-a/callback"), body("3"));
+        outbox.send(callback("http://invoker-b/callback"), body("4"));
+        Thread.sleep(200);
+
+        // then
+        Mockito.verify(outbox.httpClient, Mockito.times(3)).sendAsync(any(), any());
+        Assertions.assertEquals(4, meterRegistry.get(CallbackOutbox.QUEUED_GAUGE).gauge().value());
+    }
+
+    @Test
+    public void shouldRetryAfterHostBackoff() throws Exception {
+        // given
+        HttpResponse<Object> ok = Mockito.mock(HttpResponse.class);
+        Mockito.when(ok.statusCode()).thenReturn(200);
+        HttpResponse<Object> unavailable = Mockito.mock(HttpResponse.class);
+        Mockito.when(unavailable.statusCode()).thenReturn(503);
+        Mockito.when(outbox.httpClient.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(unavailable))
+                .thenReturn(CompletableFuture.completedFuture(ok));
+
+        // when
+        CompletionStage<Void> first = outbox.send(callback("http://invoker-a/callback"), body("1"));
+        CompletionStage<Void> second = outbox.send(callback("http://invoker-a/callback"), body("2"));
+        first.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        second.toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // then
+        Mockito.verify(outbox.httpClient, Mockito.atLeast(3)).sendAsync(any(), any());
+        Assertions.assertEquals(0, meterRegistry.get(CallbackOutbox.QUEUED_GAUGE).gauge().value());
+        Assertions.assertEquals(2, meterRegistry.get(CallbackOutbox.LAG_TIMER).timer().count());
+    }
+
+    @Test
+    public void shouldNotHoldBackCallbacksBehindRejectedOne() throws Exception {
+        // given
+        HttpResponse<Object> ok = Mockito.mock(HttpResponse.class);
+        Mockito.when(ok.statusCode()).thenReturn(200);
+        HttpResponse<Object> badRequest = Mockito.mock(HttpResponse.class);
+        Mockito.when(badRequest.statusCode()).thenReturn(400);
+        Mockito.when(outbox.httpClient.sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(ok));
+        Mockito.when(outbox.httpClient.sendAsync(Mockito.argThat(req -> req.uri().getPath().equals("/bad")), any()))
+                .thenReturn(CompletableFuture.completedFuture(badRequest));
+
+        // when
+        CompletionStage<Void> bad = outbox.send(callback("http://invoker-a/bad"), body("1"));
+        List<CompletionStage<Void>> good = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            good.add(outbox.send(callback("http://invoker-a/good"), body("good-" + i)));
+        }
+
+        // then
+        for (CompletionStage<Void> callback : good) {
+            callback.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        }
+        ExecutionException rejected = Assertions
+                .assertThrows(ExecutionException.class, () -> bad.toCompletableFuture().get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(rejected.getCause() instanceof FailedResponseException);
+        // not retried
+        Mockito.verify(outbox.httpClient, Mockito.times(1))
+                .sendAsync(Mockito.argThat(req -> req.uri().getPath().equals("/bad")), any());
+        Assertions.assertEquals(0, meterRegistry.get(CallbackOutbox.QUEUED_GAUGE).gauge().value());
+    }
+
+    @Test
+    public void shouldRetryFailingCallbackBehindOthers() throws Exception {
+        // given
+        HttpResponse<Object> ok = Mockito.mock(HttpResponse.class);
+        Mockito.when(ok.statusCode()).thenReturn(200);
+        HttpResponse<Object> unavailable = Mockito.mock(HttpResponse.class);
+        Mockito.when(unavailable.statusCode()).thenReturn(503);
+        Mockito.when(outbox.httpClient.sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(ok));
+        Mockito.when(outbox.httpClient.sendAsync(Mockito.argThat(req -> req.uri().getPath().equals("/busy")), any()))
+                .thenReturn(CompletableFuture.completedFuture(unavailable));
+
+        // when
+        outbox.send(callback("http://invoker-a/busy"), body("1"));
+        List<CompletionStage<Void>> good = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            good.add(outbox.send(callback("http://invoker-a/good"), body("good-" + i)));
+        }
+
+        // then
+        for (CompletionStage<Void> callback : good) {
+            callback.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(1, meterRegistry.get(CallbackOutbox.QUEUED_GAUGE).gauge().value());
+    }
+
+    private static RequestBody body(String value) {
+        return new RequestBody(value.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    private static Request callback(String uri) {
+        return new Request(Request.Method.POST, URI.create(uri), Collections.emptyList());
+    }
+}
@@ -4,18 +4,23 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.MediaType;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.security.TestSecurity;
 import io.restassured.RestAssured;
+import org.commonjava.indy.promote.model.PathsPromoteRequest;
 import org.jboss.pnc.api.constants.HttpHeaders;
 import org.jboss.pnc.api.constants.MDCHeaderKeys;
 import org.jboss.pnc.api.dto.Request;
@@ -57,6 +62,12 @@ public class DriverTest {
     @Inject
     ObjectMapper mapper;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    TrackingReportCache trackingReportCache;
+
     private static HttpServer callbackServer;
 
     private static final BlockingQueue<Request> callbackRequests = new ArrayBlockingQueue<>(100);
@@ -107,12 +118,38 @@ public class DriverTest {
         Assertions.assertEquals(
                 "http://localhost/folo/track/build-X/maven/hosted/build-X/",
                 repositoryCreateResponse.getRepositoryDeployUrl());
+        Assertions.assertTrue(meterRegistry.get(Driver.CREATE_TIMER).timer().count() > 0);
+    }
+
+    @Test
+    public void shouldInvalidateCachedReportOnCreate() {
+        // given
+        trackingReportCache.sealed("build-cached");
+        trackingReportCache.put("build-cached", TrackingReportAnalysis.downloads(Collections.emptyList()));
+        RepositoryCreateRequest request = RepositoryCreateRequest.builder()
+                .buildContentId("build-cached")
+                .buildType(BuildType.MVN)
+                .tempBuild(false)
+                .build();
+
+        // when
+        given().contentType(MediaType.APPLICATION_JSON)
+                .headers(requestHeaders())
+                .body(request)
+                .when()
+                .post("/create")
+                .then()
+                .statusCode(200);
+
+        // then
+        Assertions.assertNull(trackingReportCache.get("build-cached"));
     }
 
     @Test
     @Timeout(15)
     public void shouldPromoteRepository() throws URISyntaxException, InterruptedException {
         // given
+        IndyMock.IndyPromoteClientModuleMock.reset();
         Request callbackRequest = new Request(
                 Request.Method.POST,
                 new URI("http://localhost:8082/" + CallbackHandler.class.getSimpleName()),
@@ -149,10 +186,62 @@ public class DriverTest {
                 .convertValue(callback.getAttachment(), RepositoryPromoteResult.class);
         logger.info("Promotion completed with status: {}", promoteResult.getStatus());
         Assertions.assertEquals(ResultStatus.SUCCESS, promoteResult.getStatus());
+        // paths are promoted in chunks of repository-driver.promotion.chunk-size
+        Assertions.assertFalse(IndyMock.IndyPromoteClientModuleMock.promotedChunkSizes.isEmpty());
+        IndyMock.IndyPromoteClientModuleMock.promotedChunkSizes.forEach(size -> Assertions.assertTrue(size <= 2));
     }
 
     @Test
-    public void testArchiveRequest() {
+    @Timeout(15)
+    public void shouldRollBackPromotedChunksInReverseOrder() throws URISyntaxException, InterruptedException {
+        // given
+        IndyMock.IndyPromoteClientModuleMock.reset();
+        // the downloads are promoted in three chunks of the sorted paths, the last one fails
+        IndyMock.IndyPromoteClientModuleMock.failingPaths.add(TrackingReportMocks.indyPom + ".sha1");
+        Request callbackRequest = new Request(
+                Request.Method.POST,
+                new URI("http://localhost:8082/" + CallbackHandler.class.getSimpleName()),
+                Collections.singletonList(
+                        new Request.Header(HttpHeaders.CONTENT_TYPE_STRING, MediaType.APPLICATION_JSON)));
+        RepositoryPromoteRequest request = RepositoryPromoteRequest.builder()
+                .buildContentId("build-X")
+                .buildType(BuildType.MVN)
+                .tempBuild(false)
+                .buildCategory(BuildCategory.STANDARD)
+                .callback(callbackRequest)
+                .build();
+
+        // when
+        try {
+            given().contentType(MediaType.APPLICATION_JSON)
+                    .headers(requestHeaders())
+                    .body(request)
+                    .when()
+                    .put("/promote")
+                    .then()
+                    .statusCode(204);
+            Request callback = callbackRequests.take();
+
+            // then
+            RepositoryPromoteResult promoteResult = mapper
+                    .convertValue(callback.getAttachment(), RepositoryPromoteResult.class);
+            Assertions.assertNotEquals(ResultStatus.SUCCESS, promoteResult.getStatus());
+            List<Set<String>> rolledBack = IndyMock.IndyPromoteClientModuleMock.rolledBackRequests.stream()
+                    .filter(req -> TrackingReportMocks.centralKey.equals(req.getSource()))
+                    .map(PathsPromoteRequest::getPaths)
+                    .collect(Collectors.toList());
+            Assertions.assertEquals(
+                    List.of(
+                            Set.of(TrackingReportMocks.indyJar + ".sha1", TrackingReportMocks.indyPom),
+                            Set.of(TrackingReportMocks.indyJar, TrackingReportMocks.indyJar + ".md5")),
+                    rolledBack);
+        } finally {
+            IndyMock.IndyPromoteClientModuleMock.reset();
+        }
+    }
+
+    @Test
+    public void testArchiveRequest() throws InterruptedException {
         given().contentType(MediaType.APPLICATION_JSON)
                 .headers(requestHeaders())
                 .body(ArchiveRequest.builder().buildConfigId("10").buildContentId("100").build())
@@ -161,6 +250,14 @@ public class DriverTest {
                 .then()
                 .statusCode(204);
 
+        // the archival is submitted asynchronously
+        String state = "IN_PROGRESS";
+        for (int i = 0; i < 100 && "IN_PROGRESS".equals(state); i++) {
+            Thread.sleep(100);
+            state = given().when().get("/archive/100").then().statusCode(200).extract().path("state");
+        }
+        Assertions.assertEquals("SUCCESS", state);
+
         verify(
                 1,
                 postRequestedFor(urlEqualTo("/archival"))
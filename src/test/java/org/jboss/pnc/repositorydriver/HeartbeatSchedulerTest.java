@@ -0,0 +1,75 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.jboss.pnc.api.dto.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class HeartbeatSchedulerTest {
+
+    private HeartbeatScheduler scheduler;
+
+    private CompletableFuture<HttpResponse<Object>> response;
+
+    @BeforeEach
+    public void beforeEach() {
+        response = new CompletableFuture<>();
+        scheduler = new HeartbeatScheduler();
+        scheduler.configuration = new Configuration();
+        scheduler.configuration.setHeartbeatInterval(Duration.ofMillis(50));
+        scheduler.configuration.setHttpClientRequestTimeout(5);
+        scheduler.httpClient = Mockito.mock(HttpClient.class);
+        Mockito.when(scheduler.httpClient.sendAsync(any(), any())).thenReturn(response);
+        scheduler.init();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        scheduler.destroy();
+    }
+
+    @Test
+    public void shouldCoalesceHeartbeatsToTheSameEndpoint() throws URISyntaxException, InterruptedException {
+        // given
+        Request heartBeat = new Request(
+                Request.Method.POST,
+                new URI("http://localhost/heartbeat"),
+                Collections.emptyList());
+
+        // when two promotions share the endpoint and the heartbeat is still in flight
+        HeartbeatScheduler.Heartbeat first = scheduler.start(heartBeat);
+        HeartbeatScheduler.Heartbeat second = scheduler.start(heartBeat);
+        Thread.sleep(300);
+
+        // then
+        Mockito.verify(scheduler.httpClient, Mockito.times(1)).sendAsync(any(), any());
+
+        // the heartbeats continue once the previous one completes
+        response.complete(Mockito.mock(HttpResponse.class));
+        first.close();
+        Thread.sleep(300);
+        Mockito.verify(scheduler.httpClient, Mockito.atLeast(2)).sendAsync(any(), any());
+
+        // and stop when the last promotion completes
+        second.close();
+        Thread.sleep(100);
+        Mockito.clearInvocations(scheduler.httpClient);
+        Thread.sleep(300);
+        Mockito.verify(scheduler.httpClient, Mockito.never()).sendAsync(any(), any());
+    }
+}
@@ -1,9 +1,14 @@
 package org.jboss.pnc.repositorydriver;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.commonjava.indy.client.core.Indy;
 import org.commonjava.indy.client.core.IndyClientException;
@@ -29,6 +34,8 @@ import org.commonjava.util.jhttpc.auth.PasswordManager;
 import org.commonjava.util.jhttpc.model.SiteConfig;
 import org.mockito.Mockito;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 
@@ -183,12 +190,64 @@ public class IndyMock extends Indy {
         }
     }
 
+    public static class IndyFoloReportClientModuleMock extends IndyFoloReportClientModule {
+        @Override
+        public InputStream openTrackingReport(String trackingId) throws IndyClientException {
+            TrackedContentDTO report = new IndyFoloAdminClientModuleMock().getTrackingReport(trackingId);
+            try {
+                return new ByteArrayInputStream(new IndyObjectMapper(true).writeValueAsBytes(report));
+            } catch (JsonProcessingException e) {
+                throw new IndyClientException("Cannot serialize tracking report.", e);
+            }
+        }
+    }
+
     public static class IndyPromoteClientModuleMock extends IndyPromoteClientModule {
+
+        /**
+         * Sizes of the path sets of all the promote requests.
+         */
+        public static final Queue<Integer> promotedChunkSizes = new ConcurrentLinkedQueue<>();
+
+        /**
+         * All the promote requests.
+         */
+        public static final Queue<PathsPromoteRequest> promoteRequests = new ConcurrentLinkedQueue<>();
+
+        /**
+         * The promote requests of the rolled back results.
+         */
+        public static final Queue<PathsPromoteRequest> rolledBackRequests = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Promote requests containing any of the paths fail.
+         */
+        public static final Set<String> failingPaths = ConcurrentHashMap.newKeySet();
+
+        public static void reset() {
+            promotedChunkSizes.clear();
+            promoteRequests.clear();
+            rolledBackRequests.clear();
+            failingPaths.clear();
+        }
+
         @Override
         public PathsPromoteResult promoteByPath(PathsPromoteRequest req) throws IndyClientException {
+            promotedChunkSizes.add(req.getPaths().size());
+            promoteRequests.add(req);
+            if (req.getPaths().stream().anyMatch(failingPaths::contains)) {
+                throw new IndyClientException("Failing promotion of %s.", req.getPaths());
+            }
             PathsPromoteResult pathsPromoteResult = Mockito.mock(PathsPromoteResult.class);
             Mockito.when(pathsPromoteResult.succeeded()).thenReturn(true);
+            Mockito.when(pathsPromoteResult.getRequest()).thenReturn(req);
             return pathsPromoteResult;
         }
+
+        @Override
+        public PathsPromoteResult rollbackPathPromote(PathsPromoteResult result) throws IndyClientException {
+            rolledBackRequests.add(result.getRequest());
+            return result;
+        }
     }
 }
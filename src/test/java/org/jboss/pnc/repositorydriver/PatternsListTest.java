@@ -0,0 +1,121 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jboss.pnc.repositorydriver.ArtifactFilterImpl.PatternsList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class PatternsListTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatternsListTest.class);
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            ".*/maven-metadata\\.xml$",
+            ".*\\.sha1$",
+            ".*\\.md5",
+            "^/org/jboss/.*",
+            ".*-SNAPSHOT.*",
+            "/exactly/this\\.pom",
+            "maven:.*:ignored",
+            "maven:.+:tobeigno.+",
+            ".*/(foo|bar)/.*\\.jar",
+            "(a)\\1.*",
+            ".*\\Q.asc\\E");
+
+    private static final List<String> STRINGS = Arrays.asList(
+            "/org/commonjava/indy/indy-core/maven-metadata.xml",
+            "/org/commonjava/indy/indy-core/0.17.0/indy-core-0.17.0.pom.sha1",
+            "/org/commonjava/indy/indy-core/0.17.0/indy-core-0.17.0.pom.md5",
+            "/org/commonjava/indy/indy-core/0.17.0/indy-core-0.17.0.pom",
+            "/org/jboss/pnc/pnc-api/2.2.0/pnc-api-2.2.0.jar",
+            "/org/acme/app/1.0-SNAPSHOT/app-1.0-20211201.jar",
+            "/exactly/this.pom",
+            "/exactly/thisXpom",
+            "maven:remote:ignored",
+            "maven:remote:tobeignored",
+            "maven:remote:nottobeignored",
+            "/x/foo/y.jar",
+            "/x/baz/y.jar",
+            "aa-rest",
+            "/file.asc",
+            "/multi\nline.sha1",
+            "/org/jboss/\n",
+            "");
+
+    @Test
+    public void shouldMatchAsEachPatternSeparately() {
+        PatternsList patternsList = new PatternsList(PATTERNS);
+
+        for (String string : STRINGS) {
+            Assertions.assertEquals(patternsList.matchesEach(string), patternsList.matches(string), string);
+        }
+    }
+
+    @Test
+    public void shouldKeepPatternsWithSameGroupNameApart() {
+        // when
+        PatternsList patternsList = new PatternsList(Arrays.asList(".*\\.(?<ext>jar)", ".*\\.(?<ext>pom)"));
+
+        // then
+        Assertions.assertTrue(patternsList.matches("/a/b.jar"));
+        Assertions.assertTrue(patternsList.matches("/a/b.pom"));
+        Assertions.assertFalse(patternsList.matches("/a/b.war"));
+    }
+
+    @Test
+    public void shouldMatchNothingWithoutPatterns() {
+        Assertions.assertFalse(new PatternsList(null).matches("/any"));
+        Assertions.assertFalse(new PatternsList(new ArrayList<>()).matches("/any"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmark() {
+        List<String> patterns = new ArrayList<>(PATTERNS);
+        for (int i = 0; i < 30; i++) {
+            patterns.add(".*/group" + i + "/.*\\.(war|ear)");
+        }
+        PatternsList patternsList = new PatternsList(patterns);
+
+        Random random = new Random(42);
+        String[] paths = new String[100_000];
+        for (int i = 0; i < paths.length; i++) {
+            String extension = STRINGS.get(random.nextInt(STRINGS.size() - 3));
+            paths[i] = "/org/group" + random.nextInt(50) + "/artifact/" + i + extension;
+        }
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int eachMatches = 0;
+            for (String path : paths) {
+                eachMatches += patternsList.matchesEach(path) ? 1 : 0;
+            }
+            long each = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int combinedMatches = 0;
+            for (String path : paths) {
+                combinedMatches += patternsList.matches(path) ? 1 : 0;
+            }
+            long combined = System.nanoTime() - start;
+
+            Assertions.assertEquals(eachMatches, combinedMatches);
+            logger.info(
+                    "Round {}: each pattern {} ms, combined {} ms ({} matches)",
+                    round,
+                    each / 1_000_000,
+                    combined / 1_000_000,
+                    combinedMatches);
+        }
+    }
+}
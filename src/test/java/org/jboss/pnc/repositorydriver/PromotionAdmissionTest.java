@@ -0,0 +1,150 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.commonjava.indy.model.core.AccessChannel;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class PromotionAdmissionTest {
+
+    private PromotionAdmission admission;
+
+    private final List<Runnable> started = new ArrayList<>();
+
+    @BeforeEach
+    public void beforeEach() {
+        admission = new PromotionAdmission();
+        admission.configuration = new Configuration();
+        admission.configuration.setPromotionMaxActive(1);
+        admission.configuration.setPromotionMaxQueued(1);
+        admission.configuration.setPromotionMaxEntries(100);
+        admission.configuration.setPromotionRetryAfter(Duration.ofSeconds(30));
+        admission.configuration.setPromotionAging(Duration.ofMinutes(15));
+        admission.meterRegistry = new SimpleMeterRegistry();
+        admission.executor = Mockito.mock(ExecutorService.class);
+        Mockito.doAnswer(invocation -> started.add(invocation.getArgument(0)))
+                .when(admission.executor)
+                .execute(any());
+        admission.init();
+    }
+
+    @Test
+    public void shouldQueueAndRejectWhenSaturated() {
+        // given
+        admission.submit("build-1", false, BuildCategory.STANDARD, 10, () -> {});
+        admission.submit("build-2", false, BuildCategory.STANDARD, 10, () -> {});
+
+        // when
+        PromotionRejectedException rejected = Assertions.assertThrows(
+                PromotionRejectedException.class,
+                () -> admission.submit("build-3", false, BuildCategory.STANDARD, 10, () -> {}));
+
+        // then
+        Assertions.assertEquals(Duration.ofSeconds(30), rejected.getRetryAfter());
+        Assertions.assertThrows(PromotionRejectedException.class, () -> admission.checkCapacity("build-3"));
+        Assertions.assertEquals(1, started.size());
+        Assertions.assertEquals(1, admission.getActive());
+        Assertions.assertEquals(1, admission.getQueued());
+
+        // the queued promotion starts once the active one completes
+        started.get(0).run();
+        Assertions.assertEquals(2, started.size());
+        Assertions.assertEquals(0, admission.getQueued());
+        started.get(1).run();
+        Assertions.assertEquals(0, admission.getActive());
+        Assertions.assertEquals(0, admission.getEntries());
+    }
+
+    @Test
+    public void shouldRejectOverTheEntriesBudget() {
+        // given
+        admission.configuration.setPromotionMaxQueued(10);
+        admission.submit("build-1", false, BuildCategory.STANDARD, 60, () -> {});
+
+        // when, then
+        Assertions.assertThrows(
+                PromotionRejectedException.class,
+                () -> admission.submit("build-2", false, BuildCategory.STANDARD, 50, () -> {}));
+        admission.submit("build-3", false, BuildCategory.STANDARD, 40, () -> {});
+        Assertions.assertEquals(100, admission.getEntries());
+
+        // a single report over the budget is admitted when there is no other promotion
+        started.get(0).run();
+        started.get(1).run();
+        admission.submit("build-4", false, BuildCategory.STANDARD, 500, () -> {});
+        Assertions.assertEquals(500, admission.getEntries());
+    }
+
+    @Test
+    public void shouldRejectEntriesChargedOverTheBudget() {
+        // given
+        admission.configuration.setPromotionMaxActive(2);
+        List<PromotionRejectedException> rejected = new ArrayList<>();
+        admission.submit("build-1", false, BuildCategory.STANDARD, 0, budget -> {
+            // a single promotion may go over the budget
+            budget.charge(150);
+            Assertions.assertEquals(150, admission.getEntries());
+            started.get(1).run();
+        });
+        admission.submit("build-2", false, BuildCategory.STANDARD, 0, budget -> {
+            rejected.add(Assertions.assertThrows(PromotionRejectedException.class, () -> budget.charge(10)));
+        });
+
+        // when
+        started.get(0).run();
+
+        // then
+        Assertions.assertEquals(1, rejected.size());
+        Assertions.assertEquals(0, admission.getActive());
+        Assertions.assertEquals(0, admission.getEntries());
+    }
+
+    @Test
+    public void shouldChargeVisitedEntriesInBatches() {
+        // given
+        List<Integer> charged = new ArrayList<>();
+        List<TrackedContentEntryDTO> visited = new ArrayList<>();
+        TrackedContentVisitor visitor = PromotionAdmission.charging(charged::add, new TrackedContentVisitor() {
+
+            @Override
+            public void visitDownload(TrackedContentEntryDTO download) {
+                visited.add(download);
+            }
+
+            @Override
+            public void visitUpload(TrackedContentEntryDTO upload) {
+                visited.add(upload);
+            }
+        });
+        TrackedContentEntryDTO entry = new TrackedContentEntryDTO(
+                TrackingReportMocks.centralKey,
+                AccessChannel.NATIVE,
+                "/path");
+
+        // when
+        for (int i = 0; i < PromotionAdmission.CHARGED_ENTRIES; i++) {
+            visitor.visitDownload(entry);
+        }
+        visitor.visitUpload(entry);
+
+        // then
+        Assertions.assertEquals(PromotionAdmission.CHARGED_ENTRIES + 1, visited.size());
+        Assertions.assertEquals(
+                List.of(PromotionAdmission.CHARGED_ENTRIES, PromotionAdmission.CHARGED_ENTRIES),
+                charged);
+    }
+}
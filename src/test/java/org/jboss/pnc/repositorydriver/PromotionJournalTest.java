@@ -0,0 +1,131 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.commonjava.indy.model.core.StoreKey;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.BuildType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class PromotionJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final SourceTargetPaths pair = new SourceTargetPaths(
+            StoreKey.fromString("maven:hosted:build-1"),
+            StoreKey.fromString("maven:hosted:pnc-builds"));
+
+    @Test
+    public void shouldRecoverUnfinishedPromotion() throws IOException {
+        // given
+        PromotionJournal journal = newJournal();
+        PromotionCheckpoint checkpoint = journal.started(request("build-1"));
+        checkpoint.chunkPromoted(pair, 2, 0);
+        journal.started(request("build-2")).completed();
+        journal.destroy();
+        // line torn by a crash
+        Files.write(
+                journalDir.resolve(PromotionJournal.JOURNAL_FILE),
+                "{\"type\":\"CHU".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        // when
+        PromotionJournal restarted = newJournal();
+        List<PromotionCheckpoint> recovered = restarted.takeRecovered();
+
+        // then
+        Assertions.assertEquals(1, recovered.size());
+        PromotionCheckpoint resumed = recovered.get(0);
+        Assertions.assertEquals("build-1", resumed.getRequest().getBuildContentId());
+        Assertions.assertTrue(resumed.isChunkPromoted(pair, 2, 0));
+        Assertions.assertFalse(resumed.isChunkPromoted(pair, 2, 1));
+        Assertions.assertFalse(resumed.isChunkPromoted(pair, 3, 0));
+        Assertions.assertFalse(resumed.isPairCompleted(pair));
+        restarted.destroy();
+    }
+
+    @Test
+    public void shouldPromoteRolledBackChunkAgain() {
+        // given
+        PromotionJournal journal = newJournal();
+        PromotionCheckpoint checkpoint = journal.started(request("build-1"));
+        checkpoint.chunkPromoted(pair, 2, 0);
+        checkpoint.chunkPromoted(pair, 2, 1);
+        checkpoint.chunkRolledBack(pair, 2, 1);
+        journal.destroy();
+
+        // when
+        PromotionJournal restarted = newJournal();
+        PromotionCheckpoint resumed = restarted.takeRecovered().get(0);
+
+        // then
+        Assertions.assertTrue(resumed.isChunkPromoted(pair, 2, 0));
+        Assertions.assertFalse(resumed.isChunkPromoted(pair, 2, 1));
+        restarted.destroy();
+    }
+
+    @Test
+    public void shouldNotRecoverCompletedPromotion() {
+        // given
+        PromotionJournal journal = newJournal();
+        PromotionCheckpoint checkpoint = journal.started(request("build-1"));
+        checkpoint.pairCompleted(pair);
+        checkpoint.completed();
+        journal.destroy();
+
+        // when
+        PromotionJournal restarted = newJournal();
+
+        // then
+        Assertions.assertTrue(restarted.takeRecovered().isEmpty());
+        restarted.destroy();
+    }
+
+    @Test
+    public void shouldKeepCheckpointsInMemoryWhenDisabled() {
+        // given
+        PromotionJournal journal = new PromotionJournal();
+        journal.configuration = new Configuration();
+        journal.init();
+
+        // when
+        PromotionCheckpoint checkpoint = journal.started(request("build-1"));
+        checkpoint.pairCompleted(pair);
+
+        // then
+        Assertions.assertFalse(journal.isEnabled());
+        Assertions.assertTrue(checkpoint.isPairCompleted(pair));
+    }
+
+    private PromotionJournal newJournal() {
+        PromotionJournal journal = new PromotionJournal();
+        journal.configuration = new Configuration();
+        journal.configuration.setJournalEnabled(true);
+        journal.configuration.setJournalDir(journalDir.toString());
+        journal.jsonMapper = new ObjectMapper();
+        journal.init();
+        return journal;
+    }
+
+    private static RepositoryPromoteRequest request(String buildContentId) {
+        return RepositoryPromoteRequest.builder()
+                .buildContentId(buildContentId)
+                .buildType(BuildType.MVN)
+                .tempBuild(false)
+                .buildCategory(BuildCategory.STANDARD)
+                .build();
+    }
+}
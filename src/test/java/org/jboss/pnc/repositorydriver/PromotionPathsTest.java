@@ -0,0 +1,37 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.commonjava.indy.model.core.StoreKey;
+import org.commonjava.indy.model.core.StoreType;
+import org.commonjava.indy.pkg.PackageTypeConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class PromotionPathsTest {
+
+    @Test
+    public void shouldCollectPathsAddedConcurrently() {
+        // given
+        PromotionPaths promotionPaths = new PromotionPaths();
+        StoreKey[] sources = { TrackingReportMocks.centralKey, TrackingReportMocks.notToBeIgnoredKey };
+        StoreKey target = new StoreKey(PackageTypeConstants.PKG_TYPE_MAVEN, StoreType.hosted, "shared-imports");
+
+        // when
+        IntStream.range(0, 100_000)
+                .parallel()
+                .forEach(i -> promotionPaths.add(sources[i % 2], target, "/path/" + i / 2));
+
+        // then
+        Set<SourceTargetPaths> sourceTargetsPaths = promotionPaths.getSourceTargetsPaths();
+        Assertions.assertEquals(2, sourceTargetsPaths.size());
+        for (SourceTargetPaths sourceTargetPaths : sourceTargetsPaths) {
+            Assertions.assertEquals(target, sourceTargetPaths.getTarget());
+            Assertions.assertEquals(50_000, sourceTargetPaths.getPaths().size());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.repositorydriver.PromotionQueue.QueuedPromotion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class PromotionQueueTest {
+
+    private static final long AGING = Duration.ofMinutes(15).toNanos();
+
+    @Test
+    public void shouldPreferPersistentBuilds() {
+        // given
+        PromotionQueue queue = new PromotionQueue();
+        queue.add(promotion("temp", "user-1", true, 10));
+        queue.add(promotion("persistent", "user-1", false, 100_000));
+
+        // when
+        QueuedPromotion next = queue.poll(Collections.emptyMap(), true, AGING);
+
+        // then
+        Assertions.assertEquals("persistent", next.getBuildContentId());
+        Assertions.assertEquals("temp", queue.poll(Collections.emptyMap(), true, AGING).getBuildContentId());
+        Assertions.assertNull(queue.poll(Collections.emptyMap(), true, AGING));
+    }
+
+    @Test
+    public void shouldShareSlotsAcrossOwners() {
+        // given
+        PromotionQueue queue = new PromotionQueue();
+        queue.add(promotion("busy-1", "busy", false, 10));
+        queue.add(promotion("busy-2", "busy", false, 10));
+        queue.add(promotion("idle-1", "idle", false, 10));
+        Map<String, Integer> activeByOwner = new HashMap<>();
+        activeByOwner.put("busy", 2);
+
+        // when
+        QueuedPromotion next = queue.poll(activeByOwner, false, AGING);
+
+        // then
+        Assertions.assertEquals("idle-1", next.getBuildContentId());
+        Assertions.assertEquals("busy-1", queue.poll(activeByOwner, false, AGING).getBuildContentId());
+    }
+
+    @Test
+    public void shouldRunShortestFirstOnlyWhenEnabled() {
+        // given
+        PromotionQueue queue = new PromotionQueue();
+        queue.add(promotion("large", "user-1", false, 100_000));
+        queue.add(promotion("small", "user-1", false, 10));
+
+        // when, then
+        Assertions.assertEquals("small", queue.poll(Collections.emptyMap(), true, AGING).getBuildContentId());
+        queue.add(promotion("smaller", "user-1", false, 1));
+        Assertions.assertEquals("large", queue.poll(Collections.emptyMap(), false, AGING).getBuildContentId());
+    }
+
+    @Test
+    public void shouldPromoteLongWaitingBuilds() {
+        // given
+        PromotionQueue queue = new PromotionQueue();
+        queue.add(promotion("temp", "user-1", true, 10));
+        queue.add(promotion("persistent", "user-1", false, 10));
+
+        // when the aging time is over for both, the older one goes first
+        QueuedPromotion next = queue.poll(Collections.emptyMap(), false, -1);
+
+        // then
+        Assertions.assertEquals("temp", next.getBuildContentId());
+    }
+
+    private QueuedPromotion promotion(String buildContentId, String owner, boolean tempBuild, int entries) {
+        return new QueuedPromotion(
+                buildContentId,
+                owner,
+                PromotionQueue.priority(tempBuild, BuildCategory.STANDARD),
+                entries,
+                () -> {});
+    }
+}
@@ -0,0 +1,58 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import org.jboss.pnc.repositorydriver.profile.WithJournal;
+import org.jboss.pnc.repositorydriver.testresource.UnfinishedPromotionJournal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+
+/**
+ * The promotion recorded in the journal by {@link UnfinishedPromotionJournal} is resumed on startup.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@QuarkusTest
+@TestProfile(WithJournal.class)
+@TestSecurity(authorizationEnabled = false)
+public class PromotionResumeTest {
+
+    @Test
+    @Timeout(15)
+    public void shouldResumePromotionFromJournal() throws Exception {
+        // given
+        // the promotion was resumed on startup
+
+        // when
+        List<LoggedRequest> callbacks = UnfinishedPromotionJournal.callbackServer
+                .findAll(postRequestedFor(urlEqualTo(UnfinishedPromotionJournal.CALLBACK_PATH)));
+        while (callbacks.isEmpty()) {
+            Thread.sleep(100);
+            callbacks = UnfinishedPromotionJournal.callbackServer
+                    .findAll(postRequestedFor(urlEqualTo(UnfinishedPromotionJournal.CALLBACK_PATH)));
+        }
+
+        // then
+        Assertions.assertEquals(1, callbacks.size());
+        Assertions.assertTrue(callbacks.get(0).getBodyAsString().contains("\"SUCCESS\""));
+        // the chunk of the uploads was promoted before the restart
+        Assertions.assertTrue(
+                IndyMock.IndyPromoteClientModuleMock.promoteRequests.stream()
+                        .noneMatch(req -> req.getSource().equals(UnfinishedPromotionJournal.UPLOADS_SOURCE)));
+        // the completed promotion is removed from the journal
+        Path journal = UnfinishedPromotionJournal.journalDir.resolve(PromotionJournal.JOURNAL_FILE);
+        while (Files.size(journal) > 0) {
+            Thread.sleep(100);
+        }
+    }
+}
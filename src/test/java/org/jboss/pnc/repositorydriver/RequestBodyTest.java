@@ -0,0 +1,37 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class RequestBodyTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Test
+    public void shouldSerializeToGzippedBytes() throws IOException {
+        // given
+        Map<String, String> value = Collections.singletonMap("buildContentId", "build-1");
+
+        // when
+        RequestBody plain = RequestBody.json(jsonMapper, value, false);
+        RequestBody gzipped = RequestBody.json(jsonMapper, value, true);
+
+        // then
+        Assertions.assertNull(plain.getContentEncoding());
+        Assertions.assertEquals(RequestBody.GZIP, gzipped.getContentEncoding());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBytes()))) {
+            Assertions.assertArrayEquals(plain.getBytes(), in.readAllBytes());
+        }
+        Assertions.assertEquals(value, jsonMapper.readValue(plain.getBytes(), Map.class));
+    }
+}
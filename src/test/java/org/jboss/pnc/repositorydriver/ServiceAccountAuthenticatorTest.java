@@ -0,0 +1,24 @@
+package org.jboss.pnc.repositorydriver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class ServiceAccountAuthenticatorTest {
+
+    @Test
+    public void shouldKeepReportingMaxConnections() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new ServiceAccountAuthenticator(() -> "token", meterRegistry, 1234);
+
+        // when
+        System.gc();
+
+        // then
+        Assertions.assertEquals(1234, meterRegistry.get("indy-client.config.max-connections").gauge().value());
+    }
+}
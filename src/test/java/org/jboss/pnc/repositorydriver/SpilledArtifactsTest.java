@@ -0,0 +1,87 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.RepositoryType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.jboss.pnc.api.repositorydriver.dto.TargetRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class SpilledArtifactsTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    public void shouldReadTheSameArtifacts() throws IOException {
+        // given
+        TargetRepository sharedImports = TargetRepository.builder()
+                .identifier("indy-maven")
+                .repositoryType(RepositoryType.MAVEN)
+                .repositoryPath("/api/content/maven/hosted/shared-imports/")
+                .temporaryRepo(false)
+                .build();
+        List<RepositoryArtifact> artifacts = new ArrayList<>();
+        // more than the initial mapping, so it is remapped
+        for (int i = 0; i < 2000; i++) {
+            artifacts.add(
+                    RepositoryArtifact.builder()
+                            .identifier("org.jboss:artifact-" + i + ":jar:1.0")
+                            .purl("pkg:maven/org.jboss/artifact-" + i + "@1.0?type=jar&\u017e=" + "x".repeat(i % 700))
+                            .md5("md5-" + i)
+                            .sha1("sha1-" + i)
+                            .sha256("sha256-" + i)
+                            .size((long) i)
+                            .deployPath("/org/jboss/artifact-" + i + "/1.0/artifact-" + i + "-1.0.jar")
+                            .filename("artifact-" + i + "-1.0.jar")
+                            .originUrl(i % 2 == 0 ? null : "http://central/artifact-" + i)
+                            .importDate(i % 3 == 0 ? null : Instant.ofEpochSecond(1_600_000_000L + i, i))
+                            .buildCategory(i % 5 == 0 ? null : BuildCategory.STANDARD)
+                            .targetRepository(sharedImports)
+                            .build());
+        }
+
+        // when
+        List<RepositoryArtifact> spilled = SpilledArtifacts.spill(artifacts, spillDir);
+
+        // then
+        Assertions.assertEquals(describe(artifacts), describe(spilled));
+        Assertions.assertSame(sharedImports, spilled.get(1).getTargetRepository());
+        try (Stream<Path> files = Files.list(spillDir)) {
+            Assertions.assertEquals(0, files.count(), "The spill file should be removed.");
+        }
+    }
+
+    private static List<String> describe(List<RepositoryArtifact> artifacts) {
+        return artifacts.stream()
+                .map(
+                        a -> String.join(
+                                "|",
+                                a.getIdentifier(),
+                                a.getPurl(),
+                                a.getMd5(),
+                                a.getSha1(),
+                                a.getSha256(),
+                                String.valueOf(a.getSize()),
+                                a.getDeployPath(),
+                                a.getFilename(),
+                                String.valueOf(a.getOriginUrl()),
+                                String.valueOf(a.getImportDate()),
+                                String.valueOf(a.getBuildCategory()),
+                                String.valueOf(a.getTargetRepository())))
+                .collect(Collectors.toList());
+    }
+}
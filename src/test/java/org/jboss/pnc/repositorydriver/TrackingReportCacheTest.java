@@ -0,0 +1,136 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class TrackingReportCacheTest {
+
+    @TempDir
+    Path spillDir;
+
+    private TrackingReportCache cache;
+
+    @BeforeEach
+    public void beforeEach() {
+        cache = new TrackingReportCache();
+        cache.configuration = new Configuration();
+        cache.configuration.setTrackingReportCacheMaxMb(1);
+        cache.meterRegistry = new SimpleMeterRegistry();
+        cache.init();
+    }
+
+    @Test
+    public void shouldReturnCachedAnalysisOfSealedReport() {
+        // given
+        cache.sealed("build-X");
+        TrackingReportAnalysis analysis = analysis(3);
+        cache.put("build-X", analysis);
+
+        // when
+        TrackingReportAnalysis cached = cache.get("build-X");
+
+        // then
+        Assertions.assertSame(analysis, cached);
+        Assertions.assertNull(cache.get("build-Y"));
+        Assertions.assertEquals(1, cache.stats().hitCount());
+        Assertions.assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    public void shouldNotCacheAnalysisOfUnsealedReport() {
+        // when
+        cache.put("build-X", analysis(3));
+
+        // then
+        Assertions.assertFalse(cache.contains("build-X"));
+    }
+
+    @Test
+    public void shouldNotReturnInvalidatedAnalysis() {
+        // given
+        cache.sealed("build-X");
+        cache.put("build-X", analysis(3));
+
+        // when
+        cache.invalidate("build-X");
+        cache.put("build-X", analysis(3));
+
+        // then, the record is cleared and not sealed anymore
+        Assertions.assertFalse(cache.contains("build-X"));
+        Assertions.assertNull(cache.get("build-X"));
+    }
+
+    @Test
+    public void shouldKeepAnalysisWithUploadedArtifacts() {
+        // given
+        cache.sealed("build-X");
+        TrackingReportAnalysis analysis = analysis(3);
+        cache.put("build-X", analysis);
+
+        // when
+        cache.put("build-X", TrackingReportAnalysis.downloads(artifacts(3)));
+
+        // then
+        Assertions.assertSame(analysis, cache.get("build-X"));
+        Assertions.assertTrue(analysis.hasUploadedArtifacts(false, BuildCategory.STANDARD));
+        Assertions.assertFalse(analysis.hasUploadedArtifacts(true, BuildCategory.STANDARD));
+    }
+
+    @Test
+    public void shouldEvictAnalysesOverMaxSize() throws InterruptedException {
+        // given
+        cache.sealed("build-X");
+        cache.sealed("build-Y");
+        cache.put("build-X", analysis(600));
+
+        // when
+        // 600 and 500 artifacts of 1KB are more than the 1MB allowed
+        cache.put("build-Y", analysis(500));
+
+        // then
+        for (int i = 0; i < 100 && cache.stats().evictionCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, cache.stats().evictionCount());
+        Assertions.assertTrue(cache.contains("build-X") ^ cache.contains("build-Y"));
+    }
+
+    @Test
+    public void shouldCountSpilledArtifactsByTheirOffsets() throws IOException {
+        // when
+        TrackingReportAnalysis analysis = TrackingReportAnalysis
+                .downloads(SpilledArtifacts.spill(artifacts(2000), spillDir));
+
+        // then
+        Assertions.assertEquals(2000L * TrackingReportAnalysis.SPILLED_ARTIFACT_BYTES, analysis.estimatedBytes());
+    }
+
+    private static TrackingReportAnalysis analysis(int artifacts) {
+        return new TrackingReportAnalysis(artifacts(artifacts), new ArrayList<>(), false, BuildCategory.STANDARD);
+    }
+
+    private static List<RepositoryArtifact> artifacts(int count) {
+        List<RepositoryArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            artifacts.add(
+                    RepositoryArtifact.builder()
+                            .identifier("org.jboss.pnc:cached-" + i + ":jar:1.0")
+                            .deployPath("/org/jboss/pnc/cached-" + i + "/1.0/cached-" + i + "-1.0.jar")
+                            .build());
+        }
+        return artifacts;
+    }
+}
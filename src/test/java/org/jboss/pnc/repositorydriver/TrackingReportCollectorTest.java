@@ -0,0 +1,256 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.mockito.InjectSpy;
+import org.commonjava.indy.folo.dto.TrackedContentDTO;
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.commonjava.indy.model.core.AccessChannel;
+import org.commonjava.indy.model.core.StoreKey;
+import org.commonjava.indy.model.core.StoreType;
+import org.commonjava.indy.pkg.PackageTypeConstants;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.RepositoryType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryArtifact;
+import org.jboss.pnc.repositorydriver.constants.IndyRepositoryConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.argThat;
+
+/**
+ * Verifies the single pass collector results for a report mixing the package types, ignored stores, paths not valid
+ * for their package type and a path whose purl cannot be built.
+ *
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+@QuarkusTest
+public class TrackingReportCollectorTest {
+
+    private static final String BUILD_CONTENT_ID = "build-X";
+
+    private static final String INDY_POM_ID = "org.commonjava.indy:indy-core:pom:0.17.0";
+    private static final String INDY_POM_PURL = "pkg:maven/org.commonjava.indy/indy-core@0.17.0?type=pom";
+    private static final String INDY_JAR_ID = "org.commonjava.indy:indy-core:jar:0.17.0";
+    private static final String INDY_JAR_PURL = "pkg:maven/org.commonjava.indy/indy-core@0.17.0?type=jar";
+
+    private static final String METADATA = "/org/commonjava/indy/indy-core/maven-metadata.xml";
+    private static final String NOT_MAVEN = "/not/a/maven/path";
+    private static final String MALFORMED_PURL = "/org/jboss/pnc/broken/2.0/broken-2.0.jar";
+    private static final String JQUERY = "/jquery/-/jquery-3.6.0.tgz";
+    private static final String TYPES_NODE = "/@types/node/-/node-16.0.0.tgz";
+    private static final String GENERIC_FILE = "/download/file.zip";
+
+    private static final StoreKey NPM_KEY = new StoreKey(PackageTypeConstants.PKG_TYPE_NPM, StoreType.remote, "npmjs");
+    private static final StoreKey NPM_SHARED_IMPORTS_KEY = new StoreKey(
+            PackageTypeConstants.PKG_TYPE_NPM,
+            StoreType.hosted,
+            IndyRepositoryConstants.SHARED_IMPORTS_ID);
+    private static final StoreKey GENERIC_KEY = new StoreKey(
+            PackageTypeConstants.PKG_TYPE_GENERIC_HTTP,
+            StoreType.remote,
+            "r-host");
+    private static final StoreKey BUILD_KEY = new StoreKey(
+            PackageTypeConstants.PKG_TYPE_MAVEN,
+            StoreType.hosted,
+            BUILD_CONTENT_ID);
+
+    private static final String MAVEN_SHARED_IMPORTS_PATH = "/api/content/maven/hosted/shared-imports/";
+
+    @InjectSpy
+    TrackingReportProcessor trackingReportProcessor;
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void shouldCollectExpectedResults(boolean tempBuild) throws Exception {
+        // given
+        Mockito.doThrow(new MalformedPackageURLException("malformed"))
+                .when(trackingReportProcessor)
+                .computeMavenPurl(argThat(pathInfo -> "broken".equals(pathInfo.getProjectId().getArtifactId())));
+        TrackedContentDTO report = fixtureReport();
+        String promotionTarget = tempBuild ? "temp-target" : "build-target";
+
+        // when
+        TrackingReportCollector collector = trackingReportProcessor
+                .newPromotionCollector(tempBuild, BuildCategory.STANDARD, RepositoryType.MAVEN, BUILD_CONTENT_ID);
+        collector.visitReport(report);
+
+        // then
+        Assertions.assertEquals(
+                sorted(
+                        INDY_POM_ID + "|" + INDY_POM_PURL + "|" + MAVEN_SHARED_IMPORTS_PATH,
+                        INDY_JAR_ID + "|" + INDY_JAR_PURL + "|" + MAVEN_SHARED_IMPORTS_PATH,
+                        INDY_POM_ID + "|" + INDY_POM_PURL + "|/api/content/maven/remote/ignored/",
+                        INDY_JAR_ID + "|" + INDY_JAR_PURL + "|/api/content/maven/remote/tobeignored/",
+                        "http://central/metadata|" + sha256(METADATA) + "|generic maven-metadata.xml "
+                                + "http://central/metadata sha256:" + sha256(METADATA) + "|"
+                                + MAVEN_SHARED_IMPORTS_PATH,
+                        localUrl(TrackingReportMocks.sharedImportsKey, NOT_MAVEN) + "|" + sha256(NOT_MAVEN)
+                                + "|generic path " + localUrl(TrackingReportMocks.sharedImportsKey, NOT_MAVEN)
+                                + " sha256:" + sha256(NOT_MAVEN) + "|" + MAVEN_SHARED_IMPORTS_PATH,
+                        "org.jboss.pnc:broken:jar:2.0|null|" + MAVEN_SHARED_IMPORTS_PATH,
+                        "jquery:3.6.0|pkg:npm/jquery@3.6.0|/api/content/npm/hosted/shared-imports/",
+                        "@types/node:16.0.0|pkg:npm/%40types/node@16.0.0|/api/content/npm/hosted/shared-imports/",
+                        "http://host/download/file.zip|" + sha256(GENERIC_FILE) + "|generic file.zip "
+                                + "http://host/download/file.zip sha256:" + sha256(GENERIC_FILE)
+                                + "|/api/content/generic-http/hosted/h-host/"),
+                describe(collector.getDownloadedArtifacts()));
+        Assertions.assertEquals(
+                sorted(
+                        INDY_POM_ID + "|" + INDY_POM_PURL + "|/api/content/maven/hosted/" + promotionTarget + "/",
+                        INDY_JAR_ID + "|" + INDY_JAR_PURL + "|/api/content/maven/hosted/" + promotionTarget + "/"),
+                describe(collector.getUploadedArtifacts()));
+
+        Map<String, Set<String>> downloadsPromotions = new HashMap<>();
+        downloadsPromotions.put(
+                TrackingReportMocks.centralKey + "->" + TrackingReportMocks.sharedImportsKey,
+                Set.of(
+                        TrackingReportMocks.indyPom,
+                        TrackingReportMocks.indyPom + ".md5",
+                        TrackingReportMocks.indyPom + ".sha1",
+                        TrackingReportMocks.indyJar,
+                        TrackingReportMocks.indyJar + ".md5",
+                        TrackingReportMocks.indyJar + ".sha1",
+                        MALFORMED_PURL,
+                        MALFORMED_PURL + ".md5",
+                        MALFORMED_PURL + ".sha1"));
+        downloadsPromotions.put(
+                TrackingReportMocks.sharedImportsKey + "->" + TrackingReportMocks.sharedImportsKey,
+                Set.of(NOT_MAVEN, NOT_MAVEN + ".md5", NOT_MAVEN + ".sha1"));
+        downloadsPromotions.put(NPM_KEY + "->" + NPM_SHARED_IMPORTS_KEY, Set.of(JQUERY, TYPES_NODE));
+        Assertions.assertEquals(downloadsPromotions, describe(collector.getDownloadsPromotions()));
+
+        Assertions.assertEquals(
+                Collections.singletonMap(
+                        BUILD_KEY + "->maven:hosted:" + promotionTarget,
+                        Set.of(
+                                TrackingReportMocks.indyPom,
+                                TrackingReportMocks.indyPom + ".md5",
+                                TrackingReportMocks.indyPom + ".sha1",
+                                TrackingReportMocks.indyJar,
+                                TrackingReportMocks.indyJar + ".md5",
+                                TrackingReportMocks.indyJar + ".sha1")),
+                describe(collector.getUploadsPromotions()));
+
+        // generic-http downloads are not archived
+        Assertions.assertEquals(
+                sorted(
+                        TrackingReportMocks.sharedImportsKey + " " + TrackingReportMocks.indyPom,
+                        TrackingReportMocks.sharedImportsKey + " " + TrackingReportMocks.indyJar,
+                        TrackingReportMocks.sharedImportsKey + " " + METADATA,
+                        TrackingReportMocks.sharedImportsKey + " " + NOT_MAVEN,
+                        TrackingReportMocks.sharedImportsKey + " " + MALFORMED_PURL,
+                        TrackingReportMocks.ignoredKey + " " + TrackingReportMocks.indyPom,
+                        TrackingReportMocks.toBeIgnoredKey + " " + TrackingReportMocks.indyJar,
+                        NPM_SHARED_IMPORTS_KEY + " " + JQUERY,
+                        NPM_SHARED_IMPORTS_KEY + " " + TYPES_NODE),
+                describeArchival(collector.getArchivalArtifacts()));
+    }
+
+    private TrackedContentDTO fixtureReport() {
+        TrackedContentDTO report = new TrackedContentDTO();
+
+        Set<TrackedContentEntryDTO> downloads = new HashSet<>();
+        downloads.add(entry(TrackingReportMocks.centralKey, TrackingReportMocks.indyPom, "http://central/pom"));
+        downloads.add(entry(TrackingReportMocks.centralKey, TrackingReportMocks.indyJar, "http://central/jar"));
+        downloads.add(entry(TrackingReportMocks.centralKey, METADATA, "http://central/metadata"));
+        downloads.add(entry(TrackingReportMocks.centralKey, MALFORMED_PURL, "http://central/broken"));
+        downloads.add(entry(TrackingReportMocks.ignoredKey, TrackingReportMocks.indyPom, null));
+        downloads.add(entry(TrackingReportMocks.toBeIgnoredKey, TrackingReportMocks.indyJar, null));
+        downloads.add(entry(TrackingReportMocks.sharedImportsKey, NOT_MAVEN, null));
+        downloads.add(entry(NPM_KEY, JQUERY, "http://npmjs/jquery"));
+        downloads.add(entry(NPM_KEY, TYPES_NODE, "http://npmjs/types-node"));
+        downloads.add(entry(GENERIC_KEY, GENERIC_FILE, "http://host/download/file.zip"));
+        report.setDownloads(downloads);
+
+        Set<TrackedContentEntryDTO> uploads = new HashSet<>();
+        uploads.add(entry(BUILD_KEY, TrackingReportMocks.indyJar, null));
+        uploads.add(entry(BUILD_KEY, TrackingReportMocks.indyPom, null));
+        report.setUploads(uploads);
+        return report;
+    }
+
+    private TrackedContentEntryDTO entry(StoreKey storeKey, String path, String originUrl) {
+        TrackedContentEntryDTO entry = new TrackedContentEntryDTO(storeKey, AccessChannel.NATIVE, path);
+        entry.setOriginUrl(originUrl);
+        entry.setLocalUrl(localUrl(storeKey, path));
+        entry.setMd5("md5-" + path.hashCode());
+        entry.setSha1("sha1-" + path.hashCode());
+        entry.setSha256(sha256(path));
+        entry.setSize((long) path.length());
+        return entry;
+    }
+
+    private static String localUrl(StoreKey storeKey, String path) {
+        return "http://indy/api/content/" + storeKey.toString().replace(':', '/') + path;
+    }
+
+    private static String sha256(String path) {
+        return "sha256-" + path.hashCode();
+    }
+
+    private static List<String> sorted(String... values) {
+        List<String> result = new ArrayList<>(List.of(values));
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Identifiers, purls and target repositories of the artifacts, sorted.
+     */
+    private List<String> describe(List<RepositoryArtifact> artifacts) throws MalformedPackageURLException {
+        List<String> result = new ArrayList<>();
+        for (RepositoryArtifact artifact : artifacts) {
+            result.add(
+                    String.join(
+                            "|",
+                            artifact.getIdentifier(),
+                            describePurl(artifact.getPurl()),
+                            artifact.getTargetRepository().getRepositoryPath()));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * The generic purls are compared by their decoded components, as the qualifier values are URL encoded.
+     */
+    private static String describePurl(String purl) throws MalformedPackageURLException {
+        if (purl == null || !purl.startsWith("pkg:generic/")) {
+            return String.valueOf(purl);
+        }
+        PackageURL packageUrl = new PackageURL(purl);
+        return "generic " + packageUrl.getName() + " " + packageUrl.getQualifiers().get("download_url") + " "
+                + packageUrl.getQualifiers().get("checksum");
+    }
+
+    private Map<String, Set<String>> describe(PromotionPaths promotionPaths) {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (SourceTargetPaths sourceTargetPaths : promotionPaths.getSourceTargetsPaths()) {
+            result.put(
+                    sourceTargetPaths.getSource() + "->" + sourceTargetPaths.getTarget(),
+                    new HashSet<>(sourceTargetPaths.getPaths()));
+        }
+        return result;
+    }
+
+    private List<String> describeArchival(List<ArchiveDownloadEntry> entries) {
+        List<String> result = new ArrayList<>();
+        for (ArchiveDownloadEntry entry : entries) {
+            result.add(entry.getStoreKey() + " " + entry.getPath());
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -6,7 +6,9 @@ import java.util.Set;
 
 import javax.inject.Inject;
 
+import com.github.packageurl.MalformedPackageURLException;
 import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.mockito.InjectSpy;
 
 import org.commonjava.indy.folo.dto.TrackedContentDTO;
 import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
@@ -22,6 +24,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
 
 /**
  * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
@@ -29,12 +34,15 @@ import org.junit.jupiter.params.provider.ValueSource;
 @QuarkusTest
 public class TrackingReportProcessorTest {
 
-    @Inject
+    @InjectSpy
     TrackingReportProcessor trackingReportProcessor;
 
     @Inject
     Configuration configuration;
 
+    @Inject
+    ArtifactCoordinatesCache coordinatesCache;
+
     @BeforeAll
     public static void beforeAll() {
     }
@@ -72,6 +80,71 @@ public class TrackingReportProcessorTest {
         Assertions.assertLinesMatch(expected.stream(), paths.stream());
     }
 
+    @Test
+    public void shouldReuseCachedCoordinates() throws RepositoryDriverException {
+        // given
+        String path = "/org/jboss/pnc/cached/1.0/cached-1.0.pom";
+        TrackedContentDTO report = new TrackedContentDTO();
+        Set<TrackedContentEntryDTO> downloads = new HashSet<>();
+        downloads.add(new TrackedContentEntryDTO(TrackingReportMocks.centralKey, AccessChannel.NATIVE, path));
+        report.setDownloads(downloads);
+        long hitsBefore = coordinatesCache.stats().hitCount();
+
+        // when
+        RepositoryArtifact first = trackingReportProcessor.collectDownloadedArtifacts(report).get(0);
+        RepositoryArtifact second = trackingReportProcessor.collectDownloadedArtifacts(report).get(0);
+
+        // then
+        Assertions.assertEquals(hitsBefore + 1, coordinatesCache.stats().hitCount());
+        Assertions.assertTrue(first.getIdentifier().startsWith("org.jboss.pnc:cached:"));
+        Assertions.assertEquals(first.getIdentifier(), second.getIdentifier());
+        Assertions.assertEquals(first.getPurl(), second.getPurl());
+    }
+
+    @Test
+    public void shouldKeepIdentifierWhenPurlIsMalformed() throws MalformedPackageURLException {
+        // given
+        String path = "/org/jboss/pnc/malformed/1.0/malformed-1.0.jar";
+        TrackedContentEntryDTO download = new TrackedContentEntryDTO(
+                TrackingReportMocks.centralKey,
+                AccessChannel.NATIVE,
+                path);
+        download.setOriginUrl("http://central/malformed");
+        Mockito.doThrow(new MalformedPackageURLException("malformed"))
+                .when(trackingReportProcessor)
+                .computeMavenPurl(any());
+        long hitsBefore = coordinatesCache.stats().hitCount();
+
+        // when
+        ArtifactCoordinates first = trackingReportProcessor.computeCoordinates(download);
+        ArtifactCoordinates second = trackingReportProcessor.computeCoordinates(download);
+
+        // then
+        Assertions.assertEquals("org.jboss.pnc:malformed:jar:1.0", first.getIdentifier());
+        Assertions.assertNull(first.getPurl());
+        Assertions.assertEquals(first.getIdentifier(), second.getIdentifier());
+        Assertions.assertNull(second.getPurl());
+        Assertions.assertEquals(hitsBefore + 1, coordinatesCache.stats().hitCount());
+        Mockito.verify(trackingReportProcessor, Mockito.times(1)).computeMavenPurl(any());
+    }
+
+    @Test
+    public void shouldShareTargetRepositoryOfTheSameStore() throws RepositoryDriverException {
+        // given
+        TrackedContentDTO report = new TrackedContentDTO();
+        Set<TrackedContentEntryDTO> downloads = new HashSet<>();
+        downloads.add(TrackingReportMocks.indyPomFromCentral);
+        downloads.add(TrackingReportMocks.indyJarFromCentral);
+        report.setDownloads(downloads);
+
+        // when
+        List<RepositoryArtifact> artifacts = trackingReportProcessor.collectDownloadedArtifacts(report);
+
+        // then
+        Assertions.assertEquals(2, artifacts.size());
+        Assertions.assertSame(artifacts.get(0).getTargetRepository(), artifacts.get(1).getTargetRepository());
+    }
+
     @ParameterizedTest
     @ValueSource(booleans = { true, false })
     public void shouldUploadTwoThenVerifyExtractedArtifactsContainThem(boolean tempBuild) {
@@ -254,6 +327,35 @@ public class TrackingReportProcessorTest {
         Assertions.assertEquals(entries.size(), 0);
     }
 
+    @Test
+    void shouldArchiveDownloadsSortedAfterGenericProxyArtifact() throws RepositoryDriverException {
+        TrackedContentDTO report = new TrackedContentDTO();
+        Set<TrackedContentEntryDTO> downloads = new HashSet<>();
+
+        StoreKey genericKey = new StoreKey(PackageTypeConstants.PKG_TYPE_GENERIC_HTTP, StoreType.remote, "r-host");
+        TrackedContentEntryDTO trackedGeneric = new TrackedContentEntryDTO(
+                genericKey,
+                AccessChannel.GENERIC_PROXY,
+                "/download/file.zip");
+        trackedGeneric.setOriginUrl("http://host/download/file.zip");
+        downloads.add(trackedGeneric);
+
+        StoreKey buildKey = new StoreKey(PackageTypeConstants.PKG_TYPE_MAVEN, StoreType.remote, "ignored");
+        TrackedContentEntryDTO trackedIndyJar = new TrackedContentEntryDTO(
+                buildKey,
+                AccessChannel.NATIVE,
+                TrackingReportMocks.indyJar);
+        trackedIndyJar.setOriginUrl("originJarUrl");
+        downloads.add(trackedIndyJar);
+
+        report.setDownloads(downloads);
+        List<ArchiveDownloadEntry> entries = trackingReportProcessor.collectArchivalArtifacts(report);
+
+        // the generic download is sorted first by its origin url
+        Assertions.assertEquals(1, entries.size());
+        Assertions.assertEquals(TrackingReportMocks.indyJar, entries.get(0).getPath());
+    }
+
     @Test
     void archivalShouldRespectInternalRepos() throws RepositoryDriverException {
         TrackedContentDTO report = new TrackedContentDTO();
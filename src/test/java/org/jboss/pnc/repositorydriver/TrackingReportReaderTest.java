@@ -0,0 +1,98 @@
+package org.jboss.pnc.repositorydriver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.commonjava.indy.folo.dto.TrackedContentDTO;
+import org.commonjava.indy.folo.dto.TrackedContentEntryDTO;
+import org.commonjava.indy.folo.model.TrackingKey;
+import org.commonjava.indy.model.core.AccessChannel;
+import org.commonjava.indy.model.core.StoreKey;
+import org.commonjava.indy.model.core.StoreType;
+import org.commonjava.indy.model.core.io.IndyObjectMapper;
+import org.commonjava.indy.pkg.PackageTypeConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:matejonnet@gmail.com">Matej Lazar</a>
+ */
+public class TrackingReportReaderTest {
+
+    @Test
+    public void shouldStreamAllEntriesOfTheReport() throws IOException {
+        // given
+        TrackedContentDTO report = new TrackedContentDTO();
+        report.setKey(new TrackingKey("build-X"));
+        Set<TrackedContentEntryDTO> downloads = new HashSet<>();
+        downloads.add(TrackingReportMocks.indyPomFromCentral);
+        downloads.add(TrackingReportMocks.indyJarFromCentral);
+        report.setDownloads(downloads);
+
+        StoreKey buildKey = new StoreKey(PackageTypeConstants.PKG_TYPE_MAVEN, StoreType.hosted, "build-X");
+        TrackedContentEntryDTO upload = new TrackedContentEntryDTO(
+                buildKey,
+                AccessChannel.NATIVE,
+                TrackingReportMocks.indyJar);
+        upload.setSha256("abc");
+        upload.setSize(42L);
+        Set<TrackedContentEntryDTO> uploads = new HashSet<>();
+        uploads.add(upload);
+        report.setUploads(uploads);
+
+        byte[] json = new IndyObjectMapper(true).writeValueAsBytes(report);
+
+        // when
+        List<TrackedContentEntryDTO> readDownloads = new ArrayList<>();
+        List<TrackedContentEntryDTO> readUploads = new ArrayList<>();
+        new TrackingReportReader().read(new ByteArrayInputStream(json), new TrackedContentVisitor() {
+            @Override
+            public void visitDownload(TrackedContentEntryDTO download) {
+                readDownloads.add(download);
+            }
+
+            @Override
+            public void visitUpload(TrackedContentEntryDTO upload) {
+                readUploads.add(upload);
+            }
+        });
+
+        // then
+        Assertions.assertEquals(
+                Set.of(TrackingReportMocks.indyPom, TrackingReportMocks.indyJar),
+                readDownloads.stream().map(TrackedContentEntryDTO::getPath).collect(Collectors.toSet()));
+        readDownloads.forEach(d -> Assertions.assertEquals(TrackingReportMocks.centralKey, d.getStoreKey()));
+
+        Assertions.assertEquals(1, readUploads.size());
+        TrackedContentEntryDTO readUpload = readUploads.get(0);
+        Assertions.assertEquals(buildKey, readUpload.getStoreKey());
+        Assertions.assertEquals(TrackingReportMocks.indyJar, readUpload.getPath());
+        Assertions.assertEquals("abc", readUpload.getSha256());
+        Assertions.assertEquals(42L, readUpload.getSize());
+    }
+
+    @Test
+    public void shouldSkipMissingEntries() throws IOException {
+        String json = "{\"key\":{\"id\":\"build-X\"},\"uploads\":null}";
+        List<TrackedContentEntryDTO> entries = new ArrayList<>();
+
+        new TrackingReportReader().read(new ByteArrayInputStream(json.getBytes()), new TrackedContentVisitor() {
+            @Override
+            public void visitDownload(TrackedContentEntryDTO download) {
+                entries.add(download);
+            }
+
+            @Override
+            public void visitUpload(TrackedContentEntryDTO upload) {
+                entries.add(upload);
+            }
+        });
+
+        Assertions.assertTrue(entries.isEmpty());
+    }
+}
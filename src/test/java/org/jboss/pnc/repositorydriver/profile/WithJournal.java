@@ -0,0 +1,14 @@
+package org.jboss.pnc.repositorydriver.profile;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+import org.jboss.pnc.repositorydriver.testresource.UnfinishedPromotionJournal;
+
+public class WithJournal implements QuarkusTestProfile {
+    @Override
+    public List<TestResourceEntry> testResources() {
+        return Collections.singletonList(new TestResourceEntry(UnfinishedPromotionJournal.class));
+    }
+}
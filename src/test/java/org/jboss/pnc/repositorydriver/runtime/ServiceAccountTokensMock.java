@@ -0,0 +1,19 @@
+package org.jboss.pnc.repositorydriver.runtime;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import io.quarkus.test.Mock;
+import org.jboss.pnc.repositorydriver.ServiceAccountTokens;
+
+/**
+ * @author <a href="mailto:jbrazdil@gmail.com">Honza Brázdil</a>
+ */
+@Mock
+@ApplicationScoped
+public class ServiceAccountTokensMock extends ServiceAccountTokens {
+
+    @Override
+    public String getAccessToken() {
+        return "theToken";
+    }
+}
@@ -0,0 +1,107 @@
+package org.jboss.pnc.repositorydriver.testresource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import org.commonjava.indy.model.core.StoreKey;
+import org.commonjava.indy.model.core.StoreType;
+import org.commonjava.indy.pkg.PackageTypeConstants;
+import org.jboss.pnc.api.dto.Request;
+import org.jboss.pnc.api.enums.BuildCategory;
+import org.jboss.pnc.api.enums.BuildType;
+import org.jboss.pnc.api.repositorydriver.dto.RepositoryPromoteRequest;
+import org.jboss.pnc.repositorydriver.JournalEntry;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Journal of a promotion interrupted by a restart, the chunk of its uploads was promoted before the restart. The
+ * callback of the promotion goes to {@link #callbackServer}.
+ */
+public class UnfinishedPromotionJournal implements QuarkusTestResourceLifecycleManager {
+
+    public static final String BUILD_CONTENT_ID = "build-resumed";
+
+    public static final String CALLBACK_PATH = "/resumed-callback";
+
+    public static final StoreKey UPLOADS_SOURCE = new StoreKey(
+            PackageTypeConstants.PKG_TYPE_MAVEN,
+            StoreType.hosted,
+            BUILD_CONTENT_ID);
+
+    private static final StoreKey UPLOADS_TARGET = new StoreKey(
+            PackageTypeConstants.PKG_TYPE_MAVEN,
+            StoreType.hosted,
+            "build-target");
+
+    public static WireMockServer callbackServer;
+
+    public static Path journalDir;
+
+    @Override
+    public Map<String, String> start() {
+        callbackServer = new WireMockServer(options().dynamicPort());
+        callbackServer.start();
+        callbackServer.stubFor(post(urlEqualTo(CALLBACK_PATH)).willReturn(aResponse().withStatus(204)));
+
+        RepositoryPromoteRequest request = RepositoryPromoteRequest.builder()
+                .buildContentId(BUILD_CONTENT_ID)
+                .buildType(BuildType.MVN)
+                .tempBuild(false)
+                .buildCategory(BuildCategory.STANDARD)
+                .callback(
+                        new Request(
+                                Request.Method.POST,
+                                URI.create(callbackServer.baseUrl() + CALLBACK_PATH),
+                                Collections.emptyList()))
+                .build();
+        JournalEntry started = new JournalEntry();
+        started.setType(JournalEntry.Type.STARTED);
+        started.setBuildContentId(BUILD_CONTENT_ID);
+        started.setRequest(request);
+        // both upload paths fit into the one chunk of the test chunk size
+        JournalEntry chunk = new JournalEntry();
+        chunk.setType(JournalEntry.Type.CHUNK);
+        chunk.setBuildContentId(BUILD_CONTENT_ID);
+        chunk.setSource(UPLOADS_SOURCE.toString());
+        chunk.setTarget(UPLOADS_TARGET.toString());
+        chunk.setChunkSize(2);
+        chunk.setChunk(0);
+
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            journalDir = Files.createTempDirectory("journal");
+            List<String> lines = new ArrayList<>();
+            lines.add(mapper.writeValueAsString(started));
+            lines.add(mapper.writeValueAsString(chunk));
+            Files.write(journalDir.resolve("promotions.journal"), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, String> config = new HashMap<>();
+        config.put("repository-driver.journal.enabled", "true");
+        config.put("repository-driver.journal.dir", journalDir.toString());
+        return config;
+    }
+
+    @Override
+    public void stop() {
+        callbackServer.stop();
+    }
+}